@@ -0,0 +1,61 @@
+package com.rasit.brokage.benchmark;
+
+import com.rasit.brokage.BrokageApplication;
+import com.rasit.brokage.utility.AssetKey;
+import com.rasit.brokage.utility.SideType;
+import com.rasit.brokage.utility.StatusType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application against a private in-memory H2 database, seeded by the Flyway migrations the
+ * same way the file database is, and offers helpers to grow the seed data for a benchmark.
+ */
+final class BenchmarkContext {
+    /**
+     * Customers seeded by the {@code V2__seed_data} migration.
+     */
+    static final String ALICE = "39aeef68-f97b-4c05-8385-cfe4c0f49b5b";
+    static final String BOB = "98bba09f-c6b0-4b9c-932c-8ae422c57a7d";
+
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO orders (order_id, customer_id, asset_name, asset_key, order_side, size, price, status, create_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(BrokageApplication.class)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:brokage-benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "server.port=0",
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=WARN",
+                        "logging.file.name=target/benchmark-log.json")
+                .run();
+    }
+
+    /**
+     * Inserts PENDING orders straight into the table with one JDBC batch. The order books have to
+     * be rebuilt afterwards.
+     */
+    static void insertOrders(JdbcTemplate jdbcTemplate, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(INSERT_ORDER_SQL, rows);
+    }
+
+    static Object[] orderRow(UUID orderId, String customerId, String assetName, SideType side, BigDecimal size, BigDecimal price) {
+        return new Object[]{orderId, customerId, assetName, AssetKey.of(assetName), side.name(), size, price, StatusType.PENDING.name(), OffsetDateTime.now()};
+    }
+
+    static void grantAsset(JdbcTemplate jdbcTemplate, String customerId, String assetName, BigDecimal amount) {
+        jdbcTemplate.update("UPDATE assets SET size = ?, usable_size = ? WHERE customer_id = ? AND asset_key = ?",
+                amount, amount, customerId, AssetKey.of(assetName));
+    }
+}
@@ -0,0 +1,64 @@
+package com.rasit.brokage.benchmark;
+
+import com.rasit.brokage.rest.exception.CustomException;
+import com.rasit.brokage.rest.resource.order.OrderRestRequestModel;
+import com.rasit.brokage.service.OrderService;
+import com.rasit.brokage.utility.SideType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.rasit.brokage.utility.BrokageConstants.TRY_ASSET_NAME;
+
+/**
+ * A basket of {@code size} BUY orders created with one {@link OrderService#createOrders} call
+ * versus one {@link OrderService#createOrder} call per order. Both report the time per basket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateOrderBatchBenchmark {
+    @Param({"10", "100", "500"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private List<OrderRestRequestModel> orders;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        orderService = context.getBean(OrderService.class);
+        // enough TRY for every order the run can create
+        BenchmarkContext.grantAsset(context.getBean(JdbcTemplate.class), BenchmarkContext.ALICE, TRY_ASSET_NAME, new BigDecimal("1000000000000"));
+
+        orders = Collections.nCopies(size, new OrderRestRequestModel(BenchmarkContext.ALICE, "Gold", SideType.BUY, BigDecimal.ONE, BigDecimal.valueOf(100)));
+    }
+
+    @Benchmark
+    public Object createOrders() throws CustomException {
+        return orderService.createOrders(BenchmarkContext.ALICE, orders);
+    }
+
+    @Benchmark
+    public Object createOrderOneByOne() throws CustomException {
+        Object last = null;
+        for (OrderRestRequestModel order : orders) {
+            last = orderService.createOrder(order);
+        }
+        return last;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+}
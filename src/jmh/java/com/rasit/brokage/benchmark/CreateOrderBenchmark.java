@@ -0,0 +1,52 @@
+package com.rasit.brokage.benchmark;
+
+import com.rasit.brokage.rest.exception.CustomException;
+import com.rasit.brokage.rest.resource.order.OrderRestRequestModel;
+import com.rasit.brokage.rest.resource.order.OrderRestResponseModel;
+import com.rasit.brokage.service.OrderService;
+import com.rasit.brokage.utility.SideType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static com.rasit.brokage.utility.BrokageConstants.TRY_ASSET_NAME;
+
+/**
+ * {@link OrderService#createOrder} for a BUY order, including the conditional reservation of its
+ * usable size, the order insert and the commit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CreateOrderBenchmark {
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private OrderRestRequestModel request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        orderService = context.getBean(OrderService.class);
+        // enough TRY for every order the run can create
+        BenchmarkContext.grantAsset(context.getBean(JdbcTemplate.class), BenchmarkContext.ALICE, TRY_ASSET_NAME, new BigDecimal("1000000000000"));
+
+        request = new OrderRestRequestModel(BenchmarkContext.ALICE, "Gold", SideType.BUY, BigDecimal.ONE, BigDecimal.valueOf(100));
+    }
+
+    @Benchmark
+    public ResponseEntity<OrderRestResponseModel> createOrder() throws CustomException {
+        return orderService.createOrder(request);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+}
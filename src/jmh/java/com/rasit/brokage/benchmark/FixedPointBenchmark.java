@@ -0,0 +1,72 @@
+package com.rasit.brokage.benchmark;
+
+import com.rasit.brokage.utility.FixedPoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arithmetic of a match sweeping {@code fills} counter-orders: the remaining size, the fill quantity
+ * and the traded amount per fill, once with {@link BigDecimal} and once with {@link FixedPoint}
+ * scaled longs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedPointBenchmark {
+
+    @Param({"10", "1000"})
+    public int fills;
+
+    private final FixedPoint fixedPoint = new FixedPoint(2);
+    private BigDecimal[] decimalSizes;
+    private BigDecimal[] decimalPrices;
+    private long[] scaledSizes;
+    private long[] scaledPrices;
+    private BigDecimal decimalIncomingSize;
+    private long scaledIncomingSize;
+
+    @Setup
+    public void setUp() {
+        decimalSizes = new BigDecimal[fills];
+        decimalPrices = new BigDecimal[fills];
+        scaledSizes = new long[fills];
+        scaledPrices = new long[fills];
+        for (int i = 0; i < fills; i++) {
+            decimalSizes[i] = new BigDecimal("1.25").add(BigDecimal.valueOf(i % 7));
+            decimalPrices[i] = new BigDecimal("150.75").add(BigDecimal.valueOf(i, 2));
+            scaledSizes[i] = fixedPoint.fromDecimal(decimalSizes[i]);
+            scaledPrices[i] = fixedPoint.fromDecimal(decimalPrices[i]);
+        }
+        decimalIncomingSize = BigDecimal.valueOf(10L * fills);
+        scaledIncomingSize = fixedPoint.fromDecimal(decimalIncomingSize);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal remaining = decimalIncomingSize;
+        BigDecimal amount = BigDecimal.ZERO;
+        for (int i = 0; i < fills && remaining.signum() > 0; i++) {
+            BigDecimal quantity = remaining.min(decimalSizes[i]);
+            remaining = remaining.subtract(quantity);
+            amount = amount.add(quantity.multiply(decimalPrices[i]));
+        }
+        return amount;
+    }
+
+    @Benchmark
+    public long fixedPoint() {
+        long remaining = scaledIncomingSize;
+        long amount = 0;
+        for (int i = 0; i < fills && remaining > 0; i++) {
+            long quantity = Math.min(remaining, scaledSizes[i]);
+            remaining -= quantity;
+            amount += fixedPoint.multiply(quantity, scaledPrices[i]);
+        }
+        return amount;
+    }
+}
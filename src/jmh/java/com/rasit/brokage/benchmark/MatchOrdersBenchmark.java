@@ -0,0 +1,100 @@
+package com.rasit.brokage.benchmark;
+
+import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.core.matching.OrderBookRegistry;
+import com.rasit.brokage.rest.exception.CustomException;
+import com.rasit.brokage.rest.resource.order.OrdersRestResponseListModel;
+import com.rasit.brokage.service.OrderService;
+import com.rasit.brokage.utility.SideType;
+import com.rasit.brokage.utility.StatusType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderService#matchOrders} against a book of {@code depth} resting SELL orders.
+ * <p>
+ * Every invocation matches a fresh BUY order that fills exactly the best SELL order, including the
+ * settlement writes and the commit. The filled order is replaced at the back of the book before the
+ * next invocation, so the depth stays constant for the whole run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchOrdersBenchmark {
+    private static final String ASSET = "Gold";
+    private static final BigDecimal TICK = new BigDecimal("0.01");
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int depth;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private OrderBookRegistry orderBookRegistry;
+    private JdbcTemplate jdbcTemplate;
+    private BigDecimal lastPrice;
+    private OrderEntity incomingOrder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        orderService = context.getBean(OrderService.class);
+        orderBookRegistry = context.getBean(OrderBookRegistry.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Object[]> rows = new ArrayList<>(depth);
+        lastPrice = BigDecimal.valueOf(100);
+        for (int i = 0; i < depth; i++) {
+            lastPrice = lastPrice.add(TICK);
+            rows.add(BenchmarkContext.orderRow(UUID.randomUUID(), BenchmarkContext.BOB, ASSET, SideType.SELL, BigDecimal.ONE, lastPrice));
+        }
+        BenchmarkContext.insertOrders(jdbcTemplate, rows);
+        orderBookRegistry.rebuild();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareIncomingOrder() {
+        lastPrice = lastPrice.add(TICK);
+        OrderEntity replacement = order(BenchmarkContext.BOB, SideType.SELL, lastPrice);
+        incomingOrder = order(BenchmarkContext.ALICE, SideType.BUY, lastPrice);
+        BenchmarkContext.insertOrders(jdbcTemplate, List.of(
+                BenchmarkContext.orderRow(replacement.getOrderId(), BenchmarkContext.BOB, ASSET, SideType.SELL, BigDecimal.ONE, lastPrice),
+                BenchmarkContext.orderRow(incomingOrder.getOrderId(), BenchmarkContext.ALICE, ASSET, SideType.BUY, BigDecimal.ONE, lastPrice)));
+        orderBookRegistry.add(replacement);
+    }
+
+    @Benchmark
+    public ResponseEntity<OrdersRestResponseListModel> matchOrders() throws CustomException {
+        return orderService.matchOrders(incomingOrder);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private OrderEntity order(String customerId, SideType side, BigDecimal price) {
+        OrderEntity order = new OrderEntity();
+        order.setOrderId(UUID.randomUUID());
+        order.setCustomerId(customerId);
+        order.setAssetName(ASSET);
+        order.setOrderSide(side);
+        order.setSize(BigDecimal.ONE);
+        order.setPrice(price);
+        order.setStatus(StatusType.PENDING);
+        order.setCreateDate(ZonedDateTime.now());
+        return order;
+    }
+}
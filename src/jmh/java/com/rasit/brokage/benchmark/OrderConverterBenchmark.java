@@ -0,0 +1,55 @@
+package com.rasit.brokage.benchmark;
+
+import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.rest.converter.OrderConverter;
+import com.rasit.brokage.rest.resource.order.OrderRestResponseModel;
+import com.rasit.brokage.utility.SideType;
+import com.rasit.brokage.utility.StatusType;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderConverter#toResourceList} for one page of orders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderConverterBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private final OrderConverter orderConverter = new OrderConverter();
+    private List<OrderEntity> orders;
+
+    @Setup
+    public void setUp() {
+        orders = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            OrderEntity order = new OrderEntity();
+            order.setOrderId(UUID.randomUUID());
+            order.setCustomerId(BenchmarkContext.ALICE);
+            order.setAssetName("Gold");
+            order.setOrderSide(i % 2 == 0 ? SideType.BUY : SideType.SELL);
+            order.setSize(BigDecimal.valueOf(i + 1));
+            order.setPrice(new BigDecimal("150.75"));
+            order.setStatus(StatusType.PENDING);
+            order.setCreateDate(ZonedDateTime.now());
+            orders.add(order);
+        }
+    }
+
+    @Benchmark
+    public List<OrderRestResponseModel> toResourceList() {
+        return orderConverter.toResourceList(orders);
+    }
+}
@@ -0,0 +1,104 @@
+#!/usr/bin/env bash
+#
+# Drives POST /v1/order and GET /v1/asset/list of a running service and reports p99 latency and the
+# highest number of concurrent Tomcat connections seen during each run.
+#
+# Usage: src/loadtest/load-test.sh <label> [concurrency] [duration]
+#   label        name of the run, e.g. platform or virtual; results go to target/loadtest/<label>
+#   concurrency  concurrent clients in total (default 400)
+#   duration     length of each endpoint run in hey format (default 60s)
+#
+# Orders of one customer are serialized by its customer lock, so the load is spread over CUSTOMERS
+# customers (default 100), load1 to loadN, each driven by concurrency / CUSTOMERS clients. They are
+# seeded into the service's H2 database with a TRY balance and an empty Gold asset before the run;
+# seeding is idempotent.
+#
+# BASE_URL overrides the target, DB_URL, DB_USER and DB_PASSWORD the database to seed and H2_JAR the
+# H2 driver (default: the newest one in the local Maven repository).
+# Requires java, curl, jq and hey (https://github.com/rakyll/hey).
+set -euo pipefail
+
+LABEL=${1:?usage: load-test.sh <label> [concurrency] [duration]}
+CONCURRENCY=${2:-400}
+DURATION=${3:-60s}
+CUSTOMERS=${CUSTOMERS:-100}
+BASE_URL=${BASE_URL:-http://localhost:8080/brokage}
+DB_URL=${DB_URL:-"jdbc:h2:file:~/brokage;AUTO_SERVER=true"}
+DB_USER=${DB_USER:-root}
+DB_PASSWORD=${DB_PASSWORD:-rasit}
+H2_JAR=${H2_JAR:-$(ls ~/.m2/repository/com/h2database/h2/*/h2-*.jar 2>/dev/null | sort -V | tail -1)}
+CLIENTS_PER_CUSTOMER=$(( CONCURRENCY / CUSTOMERS > 0 ? CONCURRENCY / CUSTOMERS : 1 ))
+OUT_DIR=target/loadtest/$LABEL
+
+for tool in java curl jq hey; do
+    command -v "$tool" >/dev/null || { echo "$tool is required" >&2; exit 1; }
+done
+[[ -f "$H2_JAR" ]] || { echo "H2 driver not found, set H2_JAR" >&2; exit 1; }
+mkdir -p "$OUT_DIR"
+
+# Customers share the seed password of alice ("alice")
+cat > "$OUT_DIR/seed.sql" <<SQL
+INSERT INTO customer (id, first_name, last_name, username, password, role)
+SELECT RANDOM_UUID(), 'load', 'test', 'load' || x, '\$2a\$12\$MY8grB1Gq0i7YoJp7B4v0uqARCemfmJ1Y7cak5q34cojiMwjLEWI.', 'CUSTOMER'
+FROM SYSTEM_RANGE(1, $CUSTOMERS)
+WHERE NOT EXISTS (SELECT 1 FROM customer c WHERE c.username = 'load' || x);
+
+INSERT INTO assets (asset_id, customer_id, asset_name, asset_key, size, usable_size)
+SELECT RANDOM_UUID(), CAST(c.id AS VARCHAR), s.asset_name, LOWER(s.asset_name), s.size, s.size
+FROM customer c, (VALUES ('TRY', 10000), ('Gold', 0)) s(asset_name, size)
+WHERE c.username LIKE 'load%'
+  AND NOT EXISTS (SELECT 1 FROM assets a WHERE a.customer_id = CAST(c.id AS VARCHAR) AND a.asset_key = LOWER(s.asset_name));
+SQL
+java -cp "$H2_JAR" org.h2.tools.RunScript -url "$DB_URL" -user "$DB_USER" -password "$DB_PASSWORD" -script "$OUT_DIR/seed.sql"
+
+TOKENS=()
+for i in $(seq 1 "$CUSTOMERS"); do
+    TOKENS+=("$(curl -sf -H 'Content-Type: application/json' \
+        -d "{\"username\":\"load$i\",\"password\":\"alice\"}" \
+        "$BASE_URL/v1/auth/login" | jq -r .token)")
+done
+
+gauge() {
+    curl -sf -H "Authorization: Bearer ${TOKENS[0]}" "$BASE_URL/actuator/metrics/$1" \
+        | jq -r '.measurements[] | select(.statistic == "VALUE") | .value'
+}
+
+# Samples the connection gauge once a second and keeps the highest value in $1
+sample_connections() {
+    local max=0 current
+    while true; do
+        current=$(gauge tomcat.connections.current || echo 0)
+        if (( ${current%.*} > max )); then
+            max=${current%.*}
+            echo "$max" > "$1"
+        fi
+        sleep 1
+    done
+}
+
+# Runs one hey per customer with its own token and merges their per-request CSV output
+run() {
+    local name=$1; shift
+    local clients=()
+    echo 0 > "$OUT_DIR/$name.max-connections"
+    sample_connections "$OUT_DIR/$name.max-connections" &
+    local sampler=$!
+    for i in "${!TOKENS[@]}"; do
+        hey -z "$DURATION" -c "$CLIENTS_PER_CUSTOMER" -o csv -H "Authorization: Bearer ${TOKENS[$i]}" "$@" > "$OUT_DIR/$name.$i.csv" &
+        clients+=($!)
+    done
+    wait "${clients[@]}"
+    kill "$sampler"
+    tail -q -n +2 "$OUT_DIR"/"$name".*.csv > "$OUT_DIR/$name.csv"
+    rm "$OUT_DIR"/"$name".*.csv
+    printf '%-12s requests %-8s non-2xx %-6s p99 %-10s max connections %s\n' "$name" \
+        "$(wc -l < "$OUT_DIR/$name.csv")" \
+        "$(awk -F, '$7 !~ /^2/' "$OUT_DIR/$name.csv" | wc -l)" \
+        "$(cut -d, -f1 "$OUT_DIR/$name.csv" | sort -g | awk '{ t[NR] = $1 } END { i = int(NR * 0.99); if (i < 1) i = 1; if (NR) printf "%.4fs", t[i] }')" \
+        "$(cat "$OUT_DIR/$name.max-connections")"
+}
+
+echo "$CUSTOMERS customers x $CLIENTS_PER_CUSTOMER clients for $DURATION per endpoint"
+# 1 x 0.01 TRY per order, so each seeded balance lasts for about a million orders
+run order -m POST -T application/json -d '{"assetName":"Gold","orderSide":"BUY","size":1,"price":0.01}' "$BASE_URL/v1/order"
+run asset-list "$BASE_URL/v1/asset/list?page_number=0&page_size=10"
@@ -1,18 +1,20 @@
 package com.rasit.brokage.core.data;
 
 import com.rasit.brokage.core.data.entity.AssetEntity;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 
 public interface AssetDao {
     boolean isAssetExistsWithCustomerIdAndName(String customerId, String name);
 
     AssetEntity findAssetByCustomerIdAndName(String customerId, String assetName);
 
-    Page<AssetEntity> findAssetsByCustomerId(String customerId, Pageable paging);
+    List<AssetEntity> findAssetsByCustomerId(String customerId);
+
+    List<AssetEntity> findAssetsByCustomerIdAndNames(String customerId, Collection<String> assetNames);
 
     void reduceSizeofAsset(String customerId, String assetToUpdateSize, BigDecimal transactionAmount);
 
@@ -1,68 +1,84 @@
 package com.rasit.brokage.core.data;
 
 import com.rasit.brokage.core.data.entity.AssetEntity;
+import com.rasit.brokage.core.data.event.AssetsChangedEvent;
 import com.rasit.brokage.core.data.repository.AssetsRepository;
+import com.rasit.brokage.utility.AssetKey;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Repository
 @Slf4j
 public class AssetDaoImpl implements AssetDao {
     private final AssetsRepository assetsRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AssetDaoImpl(AssetsRepository assetsRepository) {
+    public AssetDaoImpl(AssetsRepository assetsRepository, ApplicationEventPublisher eventPublisher) {
         this.assetsRepository = assetsRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public boolean isAssetExistsWithCustomerIdAndName(String customerId, String name) {
-        return assetsRepository.existsAssetByNameAndCustomerId(customerId, StringUtils.lowerCase(name));
+        return assetsRepository.existsAssetByNameAndCustomerId(customerId, AssetKey.of(name));
     }
 
     @Override
     public AssetEntity findAssetByCustomerIdAndName(String customerId, String assetName) {
-        Optional<AssetEntity> result = assetsRepository.findByCustomerIdAndAssetNameIgnoreCase(customerId, StringUtils.lowerCase(assetName));
+        Optional<AssetEntity> result = assetsRepository.findByCustomerIdAndAssetKey(customerId, AssetKey.of(assetName));
 
         return result.orElse(null);
     }
 
     @Override
-    public Page<AssetEntity> findAssetsByCustomerId(String customerId, Pageable paging) {
-        return assetsRepository.findAllByCustomerId(customerId, paging);
+    public List<AssetEntity> findAssetsByCustomerId(String customerId) {
+        return assetsRepository.findAllByCustomerIdOrderByAssetKey(customerId);
+    }
+
+    @Override
+    public List<AssetEntity> findAssetsByCustomerIdAndNames(String customerId, Collection<String> assetNames) {
+        return assetsRepository.findAllByCustomerIdAndAssetKeyIn(customerId, assetNames.stream().map(AssetKey::of).collect(Collectors.toSet()));
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void reduceSizeofAsset(String customerId, String assetToUpdateSize, BigDecimal transactionAmount) {
-        assetsRepository.subtractFromSizeByCustomerIdAndAssetName(customerId, StringUtils.lowerCase(assetToUpdateSize), transactionAmount);
+        assetsRepository.subtractFromSizeByCustomerIdAndAssetName(customerId, AssetKey.of(assetToUpdateSize), transactionAmount);
+        eventPublisher.publishEvent(AssetsChangedEvent.of(customerId));
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void increaseSizeofAsset(String customerId, String assetToUpdateSize, BigDecimal transactionAmount) {
-        assetsRepository.addToSizeByCustomerIdAndAssetName(customerId, StringUtils.lowerCase(assetToUpdateSize), transactionAmount);
+        assetsRepository.addToSizeByCustomerIdAndAssetName(customerId, AssetKey.of(assetToUpdateSize), transactionAmount);
+        eventPublisher.publishEvent(AssetsChangedEvent.of(customerId));
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void increaseUsableSizeofAsset(String customerId, String assetToUpdateSize, BigDecimal transactionAmount) {
-        assetsRepository.addToUsableSizeByCustomerIdAndAssetName(customerId, StringUtils.lowerCase(assetToUpdateSize), transactionAmount);
+        assetsRepository.addToUsableSizeByCustomerIdAndAssetName(customerId, AssetKey.of(assetToUpdateSize), transactionAmount);
+        eventPublisher.publishEvent(AssetsChangedEvent.of(customerId));
     }
 
     @Override
     public AssetEntity save(AssetEntity asset) {
-        return assetsRepository.save(asset);
+        AssetEntity saved = assetsRepository.save(asset);
+        eventPublisher.publishEvent(AssetsChangedEvent.of(saved.getCustomerId()));
+        return saved;
     }
 
     @Override
     public void deleteAll() {
         assetsRepository.deleteAll();
+        eventPublisher.publishEvent(AssetsChangedEvent.all());
     }
 }
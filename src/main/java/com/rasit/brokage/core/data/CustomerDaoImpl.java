@@ -1,8 +1,10 @@
 package com.rasit.brokage.core.data;
 
 import com.rasit.brokage.core.data.entity.CustomerEntity;
+import com.rasit.brokage.core.data.event.CustomerChangedEvent;
 import com.rasit.brokage.core.data.repository.CustomerRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -11,9 +13,11 @@ import java.util.Optional;
 @Slf4j
 public class CustomerDaoImpl implements CustomerDao {
     private final CustomerRepository customerRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CustomerDaoImpl(CustomerRepository customerRepository) {
+    public CustomerDaoImpl(CustomerRepository customerRepository, ApplicationEventPublisher eventPublisher) {
         this.customerRepository = customerRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -23,11 +27,14 @@ public class CustomerDaoImpl implements CustomerDao {
 
     @Override
     public CustomerEntity save(CustomerEntity customerEntity) {
-        return customerRepository.save(customerEntity);
+        CustomerEntity saved = customerRepository.save(customerEntity);
+        eventPublisher.publishEvent(new CustomerChangedEvent(saved.getId(), saved.getUsername()));
+        return saved;
     }
 
     @Override
     public void deleteAll() {
         customerRepository.deleteAll();
+        eventPublisher.publishEvent(CustomerChangedEvent.all());
     }
 }
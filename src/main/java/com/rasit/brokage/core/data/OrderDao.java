@@ -1,25 +1,117 @@
 package com.rasit.brokage.core.data;
 
 import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.utility.ContinuationToken;
 import com.rasit.brokage.utility.SideType;
 import com.rasit.brokage.utility.StatusType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface OrderDao {
     Page<OrderEntity> getOrdersByCustomerIdAndDate(String customerId, ZonedDateTime startDate, ZonedDateTime endDate, Pageable paging);
 
-    void saveOrderAndReduceUsableSizeofAsset(OrderEntity orderEntity, String assetToUpdateUsableSize, BigDecimal transactionAmount);
+    /**
+     * Lists orders in (createDate, orderId) order starting right after the given position, without
+     * counting the matching rows.
+     *
+     * @param after    position of the last order of the previous page, null for the first page.
+     * @param pageSize number of orders to return.
+     */
+    Slice<OrderEntity> getOrdersByCustomerIdAndDate(String customerId, ZonedDateTime startDate, ZonedDateTime endDate, ContinuationToken after, int pageSize);
 
-    void cancelOrderAndIncreaseUsableSizeofAsset(String orderId, String assetToUpdateUsableSize, BigDecimal transactionAmount);
+    /**
+     * Reserves the amount from the usable size of the asset and saves the order, but only if the
+     * usable size covers the amount. The check and the debit are a single conditional UPDATE.
+     *
+     * @return false if the usable size was not enough; nothing is written then.
+     */
+    boolean saveOrderAndReserveUsableSizeofAsset(OrderEntity orderEntity, String assetToUpdateUsableSize, BigDecimal transactionAmount);
 
-    boolean isOrderExistsWithOrderId(String orderId);
+    /**
+     * Reserves the total amount of every asset with the same conditional UPDATE and inserts the
+     * orders with one JDBC batch. Order ids, create dates and asset keys are assigned here.
+     *
+     * @param reservations amounts to reserve by asset name.
+     * @return false if the usable size of any asset was not enough; the transaction is then marked
+     * rollback-only and no order is inserted.
+     */
+    boolean saveOrdersAndReserveUsableSizes(String customerId, List<OrderEntity> orderEntities, Map<String, BigDecimal> reservations);
+
+    /**
+     * Reads all PENDING orders of a customer, optionally only those of one asset and/or side, and
+     * locks their rows until the end of the transaction.
+     *
+     * @param assetName only read orders of this asset, null for all assets.
+     * @param orderSide only read orders of this side, null for both sides.
+     */
+    List<OrderEntity> getPendingOrdersForUpdate(String customerId, String assetName, SideType orderSide);
+
+    /**
+     * Cancels the orders read by {@link #getPendingOrdersForUpdate} with the same filter in one
+     * set-based UPDATE, and adds the released usable sizes back with one UPDATE per asset. The
+     * orders keep the size stored in the table.
+     *
+     * @param orderEntities the orders read with this filter.
+     * @param releases      amounts to release by asset name.
+     */
+    void cancelPendingOrdersAndIncreaseUsableSizes(String customerId, String assetName, SideType orderSide,
+                                                   List<OrderEntity> orderEntities, Map<String, BigDecimal> releases);
+
+    /**
+     * Cancels orders read by {@link #getPendingOrdersForUpdate} with one JDBC batch, storing their
+     * given size as the canceled size, and adds the released usable sizes back with one UPDATE per
+     * asset. Used while the settlement journal is on, when the table may not show the size an
+     * order rests with yet.
+     *
+     * @param releases amounts to release by asset name.
+     */
+    void cancelOrdersAndIncreaseUsableSizes(String customerId, List<OrderEntity> orderEntities, Map<String, BigDecimal> releases);
+
+    /**
+     * Reads a PENDING order of a customer and locks its row until the end of the transaction, so
+     * the order can be canceled without being read again.
+     *
+     * @return the locked order, null if there is no PENDING order with this id owned by the customer.
+     */
+    OrderEntity getPendingOrderForUpdate(String orderId, String customerId);
+
+    /**
+     * @return id of the customer owning the order, null if there is no such order.
+     */
+    String getCustomerIdOfOrder(String orderId);
+
+    /**
+     * Moves an order read by {@link #getPendingOrderForUpdate} from PENDING to CANCELED, storing the
+     * given size as the canceled size, and adds its reserved amount back to the usable size of the
+     * asset.
+     *
+     * @param canceledSize size the order still rested with, which partial fills may have reduced
+     *                     below the size of the read order.
+     * @return false if the order was no longer PENDING; nothing is released then.
+     */
+    boolean cancelOrderAndIncreaseUsableSizeofAsset(OrderEntity orderEntity, BigDecimal canceledSize, String assetToUpdateUsableSize, BigDecimal transactionAmount);
+
+    /**
+     * Streams all PENDING orders in time priority without loading them into the persistence context.
+     *
+     * @return database time the read started at; orders changed later show up in
+     * {@link #getOrdersModifiedSince}.
+     */
+    ZonedDateTime forEachPendingOrder(Consumer<OrderEntity> action);
+
+    /**
+     * @return orders inserted or changed at or after the given database time, whatever their status,
+     * in time priority. Deleted orders are not returned.
+     */
+    List<OrderEntity> getOrdersModifiedSince(ZonedDateTime since);
 
     boolean isOrderExistsWithOrderIdAndCustomerId(String orderId, String customerId);
 
@@ -27,9 +119,9 @@ public interface OrderDao {
 
     List<OrderEntity> getAllByStatusAndAssetNameAndSide(StatusType statusType, String assetName, SideType sideType);
 
-    void updateOrderStatusWithMatched(UUID orderID);
+    List<OrderEntity> getAllByStatus(StatusType statusType);
 
-    void updateOrderSize(UUID orderID, BigDecimal size);
+    List<OrderEntity> getAllByStatusAndAssetName(StatusType statusType, String assetName);
 
     OrderEntity save(OrderEntity orderEntity);
 
@@ -1,32 +1,66 @@
 package com.rasit.brokage.core.data;
 
 import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.core.data.event.AssetsChangedEvent;
+import com.rasit.brokage.core.data.event.OrdersChangedEvent;
 import com.rasit.brokage.core.data.repository.AssetsRepository;
 import com.rasit.brokage.core.data.repository.OrdersRepository;
+import com.rasit.brokage.utility.AssetKey;
+import com.rasit.brokage.utility.ContinuationToken;
 import com.rasit.brokage.utility.SideType;
 import com.rasit.brokage.utility.StatusType;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Repository
 @Slf4j
 public class OrderDaoImpl implements OrderDao {
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO orders (order_id, customer_id, asset_name, asset_key, order_side, size, price, status, create_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_ORDERS_SQL =
+            "SELECT order_id, customer_id, asset_name, asset_key, order_side, size, price, status, create_date FROM orders";
+    private static final String SELECT_PENDING_ORDERS_SQL = SELECT_ORDERS_SQL + " WHERE customer_id = ? AND status = 'PENDING'";
+    private static final String TIME_PRIORITY = " ORDER BY create_date, order_id";
+    private static final String CANCEL_PENDING_ORDERS_SQL =
+            "UPDATE orders SET status = 'CANCELED' WHERE customer_id = ? AND status = 'PENDING'";
+    private static final String CANCEL_PENDING_ORDER_SQL =
+            "UPDATE orders SET status = 'CANCELED', size = ? WHERE order_id = ? AND status = 'PENDING'";
+    private static final String RELEASE_USABLE_SIZE_SQL =
+            "UPDATE assets SET usable_size = usable_size + ? WHERE customer_id = ? AND asset_key = ?";
+
     private final OrdersRepository ordersRepository;
     private final AssetsRepository assetsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public OrderDaoImpl(OrdersRepository ordersRepository, AssetsRepository assetsRepository) {
+    public OrderDaoImpl(OrdersRepository ordersRepository, AssetsRepository assetsRepository, JdbcTemplate jdbcTemplate,
+                        ApplicationEventPublisher eventPublisher) {
         this.ordersRepository = ordersRepository;
         this.assetsRepository = assetsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
     }
 
 
@@ -35,33 +69,144 @@ public class OrderDaoImpl implements OrderDao {
         return ordersRepository.findAllByCustomerIdAndCreateDateBetween(customerId, startDate, endDate, paging);
     }
 
+    @Override
+    public Slice<OrderEntity> getOrdersByCustomerIdAndDate(String customerId, ZonedDateTime startDate, ZonedDateTime endDate, ContinuationToken after, int pageSize) {
+        Pageable paging = PageRequest.of(0, pageSize);
+        if (after == null) {
+            return ordersRepository.findSliceByCustomerIdAndCreateDateBetweenOrderByCreateDateAscOrderIdAsc(customerId, startDate, endDate, paging);
+        }
+        return ordersRepository.findSliceByCustomerIdAndCreateDateBetweenAfter(customerId, startDate, endDate, after.getCreateDate(), after.getOrderId(), paging);
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public void saveOrderAndReduceUsableSizeofAsset(OrderEntity orderEntity, String assetToUpdateUsableSize, BigDecimal transactionAmount) {
+    public boolean saveOrderAndReserveUsableSizeofAsset(OrderEntity orderEntity, String assetToUpdateUsableSize, BigDecimal transactionAmount) {
+        if (assetsRepository.reserveUsableSizeByCustomerIdAndAssetName(orderEntity.getCustomerId(), AssetKey.of(assetToUpdateUsableSize), transactionAmount) == 0) {
+            return false;
+        }
         orderEntity.setCreateDate(ZonedDateTime.now());
-        orderEntity = ordersRepository.save(orderEntity);
-        assetsRepository.subtractFromUsableSizeByCustomerIdAndAssetName(orderEntity.getCustomerId(), StringUtils.lowerCase(assetToUpdateUsableSize), transactionAmount);
+        ordersRepository.save(orderEntity);
+        eventPublisher.publishEvent(AssetsChangedEvent.of(orderEntity.getCustomerId()));
+        eventPublisher.publishEvent(OrdersChangedEvent.of(orderEntity.getCustomerId()));
+        return true;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean saveOrdersAndReserveUsableSizes(String customerId, List<OrderEntity> orderEntities, Map<String, BigDecimal> reservations) {
+        for (Map.Entry<String, BigDecimal> reservation : reservations.entrySet()) {
+            if (assetsRepository.reserveUsableSizeByCustomerIdAndAssetName(customerId, AssetKey.of(reservation.getKey()), reservation.getValue()) == 0) {
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return false;
+            }
+        }
+
+        List<Object[]> orderRows = new ArrayList<>(orderEntities.size());
+        for (OrderEntity orderEntity : orderEntities) {
+            orderEntity.setOrderId(UUID.randomUUID());
+            orderEntity.setAssetKey(AssetKey.of(orderEntity.getAssetName()));
+            orderEntity.setCreateDate(ZonedDateTime.now());
+            orderRows.add(new Object[]{orderEntity.getOrderId(), orderEntity.getCustomerId(), orderEntity.getAssetName(), orderEntity.getAssetKey(),
+                    orderEntity.getOrderSide().name(), orderEntity.getSize(), orderEntity.getPrice(), orderEntity.getStatus().name(), orderEntity.getCreateDate().toOffsetDateTime()});
+        }
+        if (!orderRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ORDER_SQL, orderRows);
+        }
+        eventPublisher.publishEvent(AssetsChangedEvent.of(customerId));
+        eventPublisher.publishEvent(OrdersChangedEvent.of(customerId));
+        log.debug("Inserted {} orders with {} reservations for customer {}", orderRows.size(), reservations.size(), customerId);
+        return true;
+    }
+
+    @Override
+    public List<OrderEntity> getPendingOrdersForUpdate(String customerId, String assetName, SideType orderSide) {
+        List<Object> params = new ArrayList<>();
+        String filter = pendingOrdersFilter(customerId, assetName, orderSide, params);
+        return jdbcTemplate.query(SELECT_PENDING_ORDERS_SQL + filter + " FOR UPDATE", (rs, rowNum) -> mapOrder(rs), params.toArray());
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void cancelPendingOrdersAndIncreaseUsableSizes(String customerId, String assetName, SideType orderSide,
+                                                          List<OrderEntity> orders, Map<String, BigDecimal> releases) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        List<Object> params = new ArrayList<>();
+        String filter = pendingOrdersFilter(customerId, assetName, orderSide, params);
+        jdbcTemplate.update(CANCEL_PENDING_ORDERS_SQL + filter, params.toArray());
+        releaseUsableSizes(customerId, orders, releases);
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
-    public void cancelOrderAndIncreaseUsableSizeofAsset(String orderId, String assetToUpdateUsableSize, BigDecimal transactionAmount) {
-        Optional<OrderEntity> orderEntity = ordersRepository.findByOrderIdAndStatus(UUID.fromString(orderId), StatusType.PENDING);
-        if (orderEntity.isPresent()) {
-            ordersRepository.updateOrderStatus(UUID.fromString(orderId), StatusType.PENDING, StatusType.CANCELED);
-            assetsRepository.addToUsableSizeByCustomerIdAndAssetName(orderEntity.get().getCustomerId(), StringUtils.lowerCase(assetToUpdateUsableSize), transactionAmount);
+    public void cancelOrdersAndIncreaseUsableSizes(String customerId, List<OrderEntity> orders, Map<String, BigDecimal> releases) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(CANCEL_PENDING_ORDER_SQL, orders.stream()
+                .map(order -> new Object[]{order.getSize(), order.getOrderId()})
+                .toList());
+        releaseUsableSizes(customerId, orders, releases);
+    }
+
+    private String pendingOrdersFilter(String customerId, String assetName, SideType orderSide, List<Object> params) {
+        StringBuilder filter = new StringBuilder();
+        params.add(customerId);
+        if (assetName != null) {
+            filter.append(" AND asset_key = ?");
+            params.add(AssetKey.of(assetName));
+        }
+        if (orderSide != null) {
+            filter.append(" AND order_side = ?");
+            params.add(orderSide.name());
         }
+        return filter.toString();
+    }
+
+    private void releaseUsableSizes(String customerId, List<OrderEntity> orders, Map<String, BigDecimal> releases) {
+        orders.forEach(order -> order.setStatus(StatusType.CANCELED));
+        jdbcTemplate.batchUpdate(RELEASE_USABLE_SIZE_SQL, releases.entrySet().stream()
+                .map(release -> new Object[]{release.getValue(), customerId, AssetKey.of(release.getKey())})
+                .toList());
+        eventPublisher.publishEvent(AssetsChangedEvent.of(customerId));
+        eventPublisher.publishEvent(OrdersChangedEvent.of(customerId));
+        log.debug("Canceled {} orders of customer {}, released {} assets", orders.size(), customerId, releases.size());
+    }
+
+    @Override
+    public OrderEntity getPendingOrderForUpdate(String orderId, String customerId) {
+        return ordersRepository.findForUpdateByOrderIdAndCustomerIdAndStatus(UUID.fromString(orderId), customerId, StatusType.PENDING).orElse(null);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ZonedDateTime forEachPendingOrder(Consumer<OrderEntity> action) {
+        OffsetDateTime readStart = jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP", OffsetDateTime.class);
+        jdbcTemplate.query(SELECT_ORDERS_SQL + " WHERE status = 'PENDING'" + TIME_PRIORITY, (RowCallbackHandler) rs -> action.accept(mapOrder(rs)));
+        return readStart.toZonedDateTime();
     }
 
     @Override
-    public void updateOrderStatusWithMatched(UUID orderID) {
-        ordersRepository.updateOrderStatus(orderID, StatusType.PENDING, StatusType.MATCHED);
+    public List<OrderEntity> getOrdersModifiedSince(ZonedDateTime since) {
+        return jdbcTemplate.query(SELECT_ORDERS_SQL + " WHERE modified_date >= ?" + TIME_PRIORITY, (rs, rowNum) -> mapOrder(rs), since.toOffsetDateTime());
     }
 
+    @Override
+    public String getCustomerIdOfOrder(String orderId) {
+        return ordersRepository.findCustomerIdByOrderId(UUID.fromString(orderId)).orElse(null);
+    }
 
     @Override
-    public boolean isOrderExistsWithOrderId(String orderId) {
-        return ordersRepository.existsById(UUID.fromString(orderId));
+    @Transactional(rollbackFor = Exception.class)
+    public boolean cancelOrderAndIncreaseUsableSizeofAsset(OrderEntity orderEntity, BigDecimal canceledSize, String assetToUpdateUsableSize, BigDecimal transactionAmount) {
+        if (ordersRepository.updateOrderStatusAndSize(orderEntity.getOrderId(), StatusType.PENDING, StatusType.CANCELED, canceledSize) == 0) {
+            return false;
+        }
+        assetsRepository.addToUsableSizeByCustomerIdAndAssetName(orderEntity.getCustomerId(), AssetKey.of(assetToUpdateUsableSize), transactionAmount);
+        eventPublisher.publishEvent(AssetsChangedEvent.of(orderEntity.getCustomerId()));
+        eventPublisher.publishEvent(OrdersChangedEvent.of(orderEntity.getCustomerId()));
+        return true;
     }
 
     @Override
@@ -77,21 +222,43 @@ public class OrderDaoImpl implements OrderDao {
 
     @Override
     public List<OrderEntity> getAllByStatusAndAssetNameAndSide(StatusType statusType, String assetName, SideType sideType) {
-        return ordersRepository.findAllByStatusAndAssetNameAndOrderSide(statusType, assetName, sideType);
+        return ordersRepository.findAllByStatusAndAssetKeyAndOrderSide(statusType, AssetKey.of(assetName), sideType);
     }
 
     @Override
-    public void updateOrderSize(UUID orderID, BigDecimal size) {
-        ordersRepository.updateOrderSizeByOrderId(orderID, size);
+    public List<OrderEntity> getAllByStatus(StatusType statusType) {
+        return ordersRepository.findAllByStatusOrderByCreateDateAsc(statusType);
+    }
+
+    @Override
+    public List<OrderEntity> getAllByStatusAndAssetName(StatusType statusType, String assetName) {
+        return ordersRepository.findAllByStatusAndAssetKeyOrderByCreateDateAsc(statusType, AssetKey.of(assetName));
     }
 
     @Override
     public OrderEntity save(OrderEntity orderEntity) {
-        return ordersRepository.save(orderEntity);
+        OrderEntity saved = ordersRepository.save(orderEntity);
+        eventPublisher.publishEvent(OrdersChangedEvent.of(saved.getCustomerId()));
+        return saved;
     }
 
     @Override
     public void deleteAll() {
         ordersRepository.deleteAll();
+        eventPublisher.publishEvent(OrdersChangedEvent.all());
+    }
+
+    private static OrderEntity mapOrder(ResultSet rs) throws SQLException {
+        OrderEntity order = new OrderEntity();
+        order.setOrderId(rs.getObject("order_id", UUID.class));
+        order.setCustomerId(rs.getString("customer_id"));
+        order.setAssetName(rs.getString("asset_name"));
+        order.setAssetKey(rs.getString("asset_key"));
+        order.setOrderSide(SideType.valueOf(rs.getString("order_side")));
+        order.setSize(rs.getBigDecimal("size"));
+        order.setPrice(rs.getBigDecimal("price"));
+        order.setStatus(StatusType.valueOf(rs.getString("status")));
+        order.setCreateDate(rs.getObject("create_date", OffsetDateTime.class).toZonedDateTime());
+        return order;
     }
 }
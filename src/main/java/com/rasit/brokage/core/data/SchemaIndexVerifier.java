@@ -0,0 +1,87 @@
+package com.rasit.brokage.core.data;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Checks at startup that every index declared with {@link Index} on an entity exists in the
+ * database. The schema comes from the migrations, so a missing index would otherwise only show
+ * up as a slow table scan.
+ */
+@Component
+@Slf4j
+public class SchemaIndexVerifier {
+    private final DataSource dataSource;
+    private final EntityManagerFactory entityManagerFactory;
+    private final boolean enabled;
+
+    public SchemaIndexVerifier(DataSource dataSource, EntityManagerFactory entityManagerFactory,
+                               @Value("${brokage.schema.verify-indexes:true}") boolean enabled) {
+        this.dataSource = dataSource;
+        this.entityManagerFactory = entityManagerFactory;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @throws IllegalStateException if a declared index is missing.
+     */
+    @PostConstruct
+    public void verify() throws SQLException {
+        if (!enabled) {
+            return;
+        }
+
+        List<String> missing = new ArrayList<>();
+        int checked = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (EntityType<?> entity : entityManagerFactory.getMetamodel().getEntities()) {
+                Table table = entity.getJavaType().getAnnotation(Table.class);
+                if (table == null || table.indexes().length == 0) {
+                    continue;
+                }
+                Set<String> existing = indexNames(connection, metaData, table.name());
+                for (Index index : table.indexes()) {
+                    checked++;
+                    if (!existing.contains(index.name().toUpperCase(Locale.ROOT))) {
+                        missing.add(table.name() + "." + index.name());
+                    }
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Indexes missing from the database schema: " + missing);
+        }
+        log.info("Verified {} schema indexes", checked);
+    }
+
+    private Set<String> indexNames(Connection connection, DatabaseMetaData metaData, String tableName) throws SQLException {
+        String name = metaData.storesUpperCaseIdentifiers() ? tableName.toUpperCase(Locale.ROOT)
+                : metaData.storesLowerCaseIdentifiers() ? tableName.toLowerCase(Locale.ROOT) : tableName;
+
+        Set<String> indexNames = new HashSet<>();
+        try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), name, false, true)) {
+            while (indexes.next()) {
+                String indexName = indexes.getString("INDEX_NAME");
+                if (indexName != null) {
+                    indexNames.add(indexName.toUpperCase(Locale.ROOT));
+                }
+            }
+        }
+        return indexNames;
+    }
+}
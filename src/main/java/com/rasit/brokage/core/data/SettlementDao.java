@@ -0,0 +1,29 @@
+package com.rasit.brokage.core.data;
+
+import com.rasit.brokage.core.settlement.Settlement;
+
+public interface SettlementDao {
+    /**
+     * Writes the settlement of a match in the transaction of the match. The orders are updated
+     * first, and only while they are still PENDING.
+     *
+     * @return false if an order of the settlement was no longer PENDING, e.g. canceled after the
+     * match took it from its book; the transaction is then marked rollback-only and no balance is
+     * written.
+     */
+    boolean settle(Settlement settlement);
+
+    /**
+     * Writes a settlement read from the journal and advances the projected sequence in the same
+     * transaction, so every journal record is applied exactly once.
+     *
+     * @param sequence journal sequence of the settlement.
+     * @return false if the record was projected before and nothing was written.
+     */
+    boolean settle(long sequence, Settlement settlement);
+
+    /**
+     * @return sequence of the last journal record written to the tables, 0 if none.
+     */
+    long getProjectedSequence();
+}
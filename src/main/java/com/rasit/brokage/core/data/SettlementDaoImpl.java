@@ -0,0 +1,110 @@
+package com.rasit.brokage.core.data;
+
+import com.rasit.brokage.core.data.event.AssetsChangedEvent;
+import com.rasit.brokage.core.data.event.OrdersChangedEvent;
+import com.rasit.brokage.core.settlement.BalanceDelta;
+import com.rasit.brokage.core.settlement.OrderUpdate;
+import com.rasit.brokage.core.settlement.Settlement;
+import com.rasit.brokage.utility.FixedPoint;
+import com.rasit.brokage.utility.StatusType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a {@link Settlement} with one JDBC batch for the orders and one for the asset balances.
+ */
+@Repository
+@Slf4j
+public class SettlementDaoImpl implements SettlementDao {
+    private static final String UPDATE_ASSET_SQL =
+            "UPDATE assets SET size = size + ?, usable_size = usable_size + ? WHERE customer_id = ? AND asset_key = ?";
+    private static final String UPDATE_ORDER_SQL =
+            "UPDATE orders SET status = COALESCE(?, status), size = COALESCE(?, size) WHERE order_id = ? AND status = ?";
+    private static final String ADVANCE_CHECKPOINT_SQL =
+            "UPDATE journal_checkpoint SET projected_sequence = ? WHERE id = 1 AND projected_sequence < ?";
+    private static final String SELECT_CHECKPOINT_SQL = "SELECT projected_sequence FROM journal_checkpoint WHERE id = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FixedPoint fixedPoint;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SettlementDaoImpl(JdbcTemplate jdbcTemplate, FixedPoint fixedPoint, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fixedPoint = fixedPoint;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean settle(Settlement settlement) {
+        if (!write(settlement, true)) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean settle(long sequence, Settlement settlement) {
+        if (jdbcTemplate.update(ADVANCE_CHECKPOINT_SQL, sequence, sequence) == 0) {
+            log.debug("Journal record {} was projected before, skipping it", sequence);
+            return false;
+        }
+        // A journaled order may be canceled before its resize is projected; the cancel stores its size then
+        write(settlement, false);
+        return true;
+    }
+
+    @Override
+    public long getProjectedSequence() {
+        Long sequence = jdbcTemplate.queryForObject(SELECT_CHECKPOINT_SQL, Long.class);
+        return sequence == null ? 0 : sequence;
+    }
+
+    /**
+     * @param requirePending whether every order must still be PENDING.
+     * @return false if an order was no longer PENDING while required to be; the balances are not
+     * written then.
+     */
+    private boolean write(Settlement settlement, boolean requirePending) {
+        List<Object[]> assetRows = settlement.getBalanceDeltas().stream()
+                .map(delta -> new Object[]{fixedPoint.toDecimal(delta.getSize()), fixedPoint.toDecimal(delta.getUsableSize()), delta.getCustomerId(), delta.getAssetKey()})
+                .toList();
+        List<Object[]> orderRows = settlement.getOrderUpdates().stream()
+                .map(update -> new Object[]{statusOf(update), update.getSize(), update.getOrderId(), StatusType.PENDING.name()})
+                .toList();
+
+        Set<String> customerIds = settlement.getBalanceDeltas().stream()
+                .map(BalanceDelta::getCustomerId)
+                .collect(Collectors.toSet());
+        if (!orderRows.isEmpty()) {
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_ORDER_SQL, orderRows);
+            if (requirePending && Arrays.stream(updated).anyMatch(count -> count == 0)) {
+                log.warn("An order of the settlement is no longer PENDING, the match is rolled back");
+                return false;
+            }
+            // Every filled order moves the balances of its customer, so the order owners are among the delta customers
+            eventPublisher.publishEvent(new OrdersChangedEvent(customerIds));
+        }
+        if (!assetRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_ASSET_SQL, assetRows);
+            eventPublisher.publishEvent(new AssetsChangedEvent(customerIds));
+        }
+        log.debug("Settled {} asset balances and {} orders", assetRows.size(), orderRows.size());
+        return true;
+    }
+
+    private static String statusOf(OrderUpdate update) {
+        return update.getStatus() == null ? null : update.getStatus().name();
+    }
+}
@@ -1,5 +1,6 @@
 package com.rasit.brokage.core.data.entity;
 
+import com.rasit.brokage.utility.AssetKey;
 import jakarta.persistence.*;
 import lombok.Data;
 
@@ -8,7 +9,7 @@ import java.math.BigDecimal;
 import java.util.UUID;
 
 @Entity
-@Table(name = "assets")
+@Table(name = "assets", indexes = @Index(name = "idx_assets_customer_asset_key", columnList = "customer_id, asset_key", unique = true))
 @Data
 public class AssetEntity implements Serializable {
 
@@ -25,9 +26,20 @@ public class AssetEntity implements Serializable {
     @Column(name = "asset_name")
     private String assetName;
 
+    /**
+     * {@link AssetKey} of the asset name; together with the customer id it identifies the balance row.
+     */
+    @Column(name = "asset_key", nullable = false, updatable = false)
+    private String assetKey;
+
     @Column(name = "size")
     private BigDecimal size;
 
     @Column(name = "usable_size")
     private BigDecimal usableSize;
+
+    @PrePersist
+    void initAssetKey() {
+        assetKey = AssetKey.of(assetName);
+    }
 }
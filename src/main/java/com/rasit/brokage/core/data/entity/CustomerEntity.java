@@ -19,7 +19,7 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "customer")
+@Table(name = "customer", indexes = @Index(name = "idx_customer_username", columnList = "username"))
 public class CustomerEntity implements UserDetails {
 
     @Id
@@ -1,5 +1,6 @@
 package com.rasit.brokage.core.data.entity;
 
+import com.rasit.brokage.utility.AssetKey;
 import com.rasit.brokage.utility.SideType;
 import com.rasit.brokage.utility.StatusType;
 import jakarta.persistence.*;
@@ -12,7 +13,10 @@ import java.time.ZonedDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_book", columnList = "status, asset_key, order_side, price, create_date"),
+        @Index(name = "idx_orders_customer_create_date", columnList = "customer_id, create_date, order_id"),
+        @Index(name = "idx_orders_modified_date", columnList = "modified_date")})
 @Data
 public class OrderEntity implements Serializable {
 
@@ -34,6 +38,12 @@ public class OrderEntity implements Serializable {
     @Column(name = "asset_name")
     private String assetName;
 
+    /**
+     * {@link AssetKey} of the traded asset, which picks the order book and matching shard of the order.
+     */
+    @Column(name = "asset_key", nullable = false, updatable = false)
+    private String assetKey;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "order_side")
     private SideType orderSide;
@@ -51,4 +61,15 @@ public class OrderEntity implements Serializable {
     @CreatedDate
     @Column(name = "create_date", nullable = false)
     private ZonedDateTime createDate;
+
+    /**
+     * Time of the last change, set by the database on every insert and update.
+     */
+    @Column(name = "modified_date", nullable = false, insertable = false, updatable = false)
+    private ZonedDateTime modifiedDate;
+
+    @PrePersist
+    void initAssetKey() {
+        assetKey = AssetKey.of(assetName);
+    }
 }
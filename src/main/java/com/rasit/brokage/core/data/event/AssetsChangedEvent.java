@@ -0,0 +1,28 @@
+package com.rasit.brokage.core.data.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by the DAOs whenever asset balances are written, so that anything holding on to a
+ * portfolio, like a cached asset list, can drop it.
+ */
+@Getter
+@AllArgsConstructor
+public class AssetsChangedEvent {
+    /**
+     * Ids of the customers whose assets changed, null when all assets were removed.
+     */
+    private final Collection<String> customerIds;
+
+    public static AssetsChangedEvent of(String customerId) {
+        return new AssetsChangedEvent(List.of(customerId));
+    }
+
+    public static AssetsChangedEvent all() {
+        return new AssetsChangedEvent(null);
+    }
+}
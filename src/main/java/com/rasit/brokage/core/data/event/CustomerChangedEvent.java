@@ -0,0 +1,28 @@
+package com.rasit.brokage.core.data.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Published by {@code CustomerDao} whenever customers are saved or removed, so that anything
+ * holding on to a customer, like a cached principal, can drop it.
+ */
+@Getter
+@AllArgsConstructor
+public class CustomerChangedEvent {
+    /**
+     * Id of the saved customer, null when all customers were removed.
+     */
+    private final UUID customerId;
+
+    /**
+     * Username of the saved customer, null when all customers were removed.
+     */
+    private final String username;
+
+    public static CustomerChangedEvent all() {
+        return new CustomerChangedEvent(null, null);
+    }
+}
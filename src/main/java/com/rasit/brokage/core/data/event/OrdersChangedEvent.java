@@ -0,0 +1,28 @@
+package com.rasit.brokage.core.data.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by the DAOs whenever orders are written, so that anything derived from the orders of a
+ * customer, like the version behind an order list ETag, can follow.
+ */
+@Getter
+@AllArgsConstructor
+public class OrdersChangedEvent {
+    /**
+     * Ids of the customers whose orders changed, null when orders of unknown or all customers changed.
+     */
+    private final Collection<String> customerIds;
+
+    public static OrdersChangedEvent of(String customerId) {
+        return new OrdersChangedEvent(List.of(customerId));
+    }
+
+    public static OrdersChangedEvent all() {
+        return new OrdersChangedEvent(null);
+    }
+}
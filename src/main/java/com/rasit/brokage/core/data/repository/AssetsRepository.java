@@ -2,14 +2,14 @@ package com.rasit.brokage.core.data.repository;
 
 import com.rasit.brokage.core.data.entity.AssetEntity;
 import com.rasit.brokage.core.data.entity.OrderEntity;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -18,13 +18,13 @@ public interface AssetsRepository extends JpaRepository<AssetEntity, UUID> {
     OrderEntity findByCustomerId(String customerId);
 
     /**
-     * Returns true if an Asset exists with a matching name.
+     * Returns true if an Asset exists with a matching key.
      *
-     * @param assetName name of the asset to search for
+     * @param assetKey {@link com.rasit.brokage.utility.AssetKey} of the asset to search for
      * @return true if a matching tenant was found; false otherwise
      */
-    @Query("select case when count(a)> 0 then true else false end from AssetEntity a where lower(a.assetName)= :assetName and a.customerId= :customerId")
-    boolean existsAssetByNameAndCustomerId(@Param("customerId") String customerId, @Param("assetName") String assetName);
+    @Query("select case when count(a)> 0 then true else false end from AssetEntity a where a.assetKey= :assetKey and a.customerId= :customerId")
+    boolean existsAssetByNameAndCustomerId(@Param("customerId") String customerId, @Param("assetKey") String assetKey);
 
     /**
      * Returns an asset by its name.
@@ -35,31 +35,51 @@ public interface AssetsRepository extends JpaRepository<AssetEntity, UUID> {
     Optional<AssetEntity> findByAssetName(String assetName);
 
     /**
-     * Returns an asset by its name and customerId.
+     * Returns an asset by its key and customerId.
      *
-     * @param assetName  name of asset
+     * @param assetKey   {@link com.rasit.brokage.utility.AssetKey} of the asset
      * @param customerId asset of the customer to search for
-     * @return the asset with the given assetName and customerId or null if none found
+     * @return the asset with the given assetKey and customerId or null if none found
      */
-    Optional<AssetEntity> findByCustomerIdAndAssetNameIgnoreCase(String customerId, String assetName);
+    Optional<AssetEntity> findByCustomerIdAndAssetKey(String customerId, String assetKey);
 
-    Page<AssetEntity> findAllByCustomerId(String customerId, Pageable paging);
+    /**
+     * Returns all assets of a customer in one query.
+     *
+     * @param customerId asset of the customer to search for
+     * @return the assets of the customer ordered by {@link com.rasit.brokage.utility.AssetKey}
+     */
+    List<AssetEntity> findAllByCustomerIdOrderByAssetKey(String customerId);
+
+    /**
+     * Returns the assets of a customer with any of the given keys.
+     *
+     * @param customerId asset of the customer to search for
+     * @param assetKeys  {@link com.rasit.brokage.utility.AssetKey}s of the assets
+     * @return the matching assets, assets that do not exist are left out
+     */
+    List<AssetEntity> findAllByCustomerIdAndAssetKeyIn(String customerId, Collection<String> assetKeys);
 
+    /**
+     * Subtracts the amount from the usable size only if enough of it is left, in one statement.
+     *
+     * @return 1 if the amount was reserved, 0 if the usable size was not enough or the asset does not exist
+     */
     @Modifying
-    @Query("UPDATE AssetEntity a SET a.usableSize = a.usableSize - :transactionAmount where lower(a.assetName)= :assetName and a.customerId= :customerId")
-    void subtractFromUsableSizeByCustomerIdAndAssetName(@Param("customerId") String customerId, @Param("assetName") String assetName, @Param("transactionAmount") BigDecimal transactionAmount);
+    @Query("UPDATE AssetEntity a SET a.usableSize = a.usableSize - :transactionAmount where a.assetKey= :assetKey and a.customerId= :customerId and a.usableSize >= :transactionAmount")
+    int reserveUsableSizeByCustomerIdAndAssetName(@Param("customerId") String customerId, @Param("assetKey") String assetKey, @Param("transactionAmount") BigDecimal transactionAmount);
 
     @Modifying
-    @Query("UPDATE AssetEntity a SET a.usableSize = a.usableSize + :transactionAmount where lower(a.assetName)= :assetName and a.customerId= :customerId")
-    void addToUsableSizeByCustomerIdAndAssetName(@Param("customerId") String customerId, @Param("assetName") String assetName, @Param("transactionAmount") BigDecimal transactionAmount);
+    @Query("UPDATE AssetEntity a SET a.usableSize = a.usableSize + :transactionAmount where a.assetKey= :assetKey and a.customerId= :customerId")
+    void addToUsableSizeByCustomerIdAndAssetName(@Param("customerId") String customerId, @Param("assetKey") String assetKey, @Param("transactionAmount") BigDecimal transactionAmount);
 
 
     @Modifying
-    @Query("UPDATE AssetEntity a SET a.size = a.size - :transactionAmount where lower(a.assetName)= :assetName and a.customerId= :customerId")
-    void subtractFromSizeByCustomerIdAndAssetName(@Param("customerId") String customerId, @Param("assetName") String assetName, @Param("transactionAmount") BigDecimal transactionAmount);
+    @Query("UPDATE AssetEntity a SET a.size = a.size - :transactionAmount where a.assetKey= :assetKey and a.customerId= :customerId")
+    void subtractFromSizeByCustomerIdAndAssetName(@Param("customerId") String customerId, @Param("assetKey") String assetKey, @Param("transactionAmount") BigDecimal transactionAmount);
 
     @Modifying
-    @Query("UPDATE AssetEntity a SET a.size = a.size + :transactionAmount where lower(a.assetName)= :assetName and a.customerId= :customerId")
-    void addToSizeByCustomerIdAndAssetName(@Param("customerId") String customerId, @Param("assetName") String assetName, @Param("transactionAmount") BigDecimal transactionAmount);
+    @Query("UPDATE AssetEntity a SET a.size = a.size + :transactionAmount where a.assetKey= :assetKey and a.customerId= :customerId")
+    void addToSizeByCustomerIdAndAssetName(@Param("customerId") String customerId, @Param("assetKey") String assetKey, @Param("transactionAmount") BigDecimal transactionAmount);
 
 }
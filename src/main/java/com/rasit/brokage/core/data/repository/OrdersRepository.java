@@ -3,9 +3,12 @@ package com.rasit.brokage.core.data.repository;
 import com.rasit.brokage.core.data.entity.OrderEntity;
 import com.rasit.brokage.utility.SideType;
 import com.rasit.brokage.utility.StatusType;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -19,17 +22,30 @@ import java.util.List;
 public interface OrdersRepository extends JpaRepository<OrderEntity, UUID> {
     Page<OrderEntity> findAllByCustomerIdAndCreateDateBetween(String customerId, ZonedDateTime startDate, ZonedDateTime endDate, Pageable paging);
 
+    Slice<OrderEntity> findSliceByCustomerIdAndCreateDateBetweenOrderByCreateDateAscOrderIdAsc(String customerId, ZonedDateTime startDate, ZonedDateTime endDate, Pageable paging);
+
+    @Query("SELECT o FROM OrderEntity o WHERE o.customerId = :customerId AND o.createDate BETWEEN :startDate AND :endDate " +
+            "AND (o.createDate > :afterDate OR (o.createDate = :afterDate AND o.orderId > :afterOrderId)) ORDER BY o.createDate ASC, o.orderId ASC")
+    Slice<OrderEntity> findSliceByCustomerIdAndCreateDateBetweenAfter(@Param("customerId") String customerId, @Param("startDate") ZonedDateTime startDate, @Param("endDate") ZonedDateTime endDate,
+                                                                     @Param("afterDate") ZonedDateTime afterDate, @Param("afterOrderId") UUID afterOrderId, Pageable paging);
+
     @Modifying
-    @Query("UPDATE OrderEntity o SET o.status=:newStatus where o.orderId= :orderId and o.status= :status")
-    void updateOrderStatus(@Param("orderId") UUID orderId, @Param("status") StatusType status, @Param("newStatus") StatusType newStatus);
+    @Query("UPDATE OrderEntity o SET o.status=:newStatus, o.size=:size where o.orderId= :orderId and o.status= :status")
+    int updateOrderStatusAndSize(@Param("orderId") UUID orderId, @Param("status") StatusType status, @Param("newStatus") StatusType newStatus, @Param("size") BigDecimal size);
 
     Optional<OrderEntity> findByOrderIdAndStatus(UUID orderId, StatusType status);
 
-    List<OrderEntity> findAllByStatusAndAssetNameAndOrderSide(StatusType status, String assetName, SideType sideType);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<OrderEntity> findForUpdateByOrderIdAndCustomerIdAndStatus(UUID orderId, String customerId, StatusType status);
 
-    boolean existsByOrderIdAndCustomerId(UUID orderId, String customerId);
+    @Query("SELECT o.customerId FROM OrderEntity o WHERE o.orderId = :orderId")
+    Optional<String> findCustomerIdByOrderId(@Param("orderId") UUID orderId);
 
-    @Modifying
-    @Query("UPDATE OrderEntity o SET o.size=:size where o.orderId= :orderId")
-    void updateOrderSizeByOrderId(@Param("orderId") UUID orderId, @Param("size") BigDecimal size);
+    List<OrderEntity> findAllByStatusAndAssetKeyAndOrderSide(StatusType status, String assetKey, SideType sideType);
+
+    List<OrderEntity> findAllByStatusOrderByCreateDateAsc(StatusType status);
+
+    List<OrderEntity> findAllByStatusAndAssetKeyOrderByCreateDateAsc(StatusType status, String assetKey);
+
+    boolean existsByOrderIdAndCustomerId(UUID orderId, String customerId);
 }
@@ -0,0 +1,142 @@
+package com.rasit.brokage.core.data.statistics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * SQL statements issued while serving one request, broken down by the DAO method that issued them.
+ * <p>
+ * The statistics of the current request and the DAO method being run are bound to the thread.
+ * Work a request hands to another thread and waits for, such as a match on its shard, carries the
+ * statistics along through {@link #propagate(Callable)}.
+ */
+public class SqlStatistics {
+    /**
+     * Attribution of statements issued outside any DAO method.
+     */
+    public static final String NO_DAO_METHOD = "none";
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<String> CURRENT_DAO_METHOD = new ThreadLocal<>();
+
+    private final Supplier<String> route;
+    private final Map<String, Totals> totalsByDaoMethod = new ConcurrentHashMap<>();
+
+    private SqlStatistics(Supplier<String> route) {
+        this.route = route;
+    }
+
+    /**
+     * Starts collecting the statements of a request on the current thread.
+     *
+     * @param route resolves the route of the request; read lazily because it is only known once
+     *              the request is mapped to its handler.
+     */
+    public static SqlStatistics begin(Supplier<String> route) {
+        SqlStatistics statistics = new SqlStatistics(route);
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return statistics of the request served by the current thread, null outside a request.
+     */
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return the DAO method running on the current thread, {@link #NO_DAO_METHOD} if none.
+     */
+    public static String currentDaoMethod() {
+        String daoMethod = CURRENT_DAO_METHOD.get();
+        return daoMethod == null ? NO_DAO_METHOD : daoMethod;
+    }
+
+    /**
+     * Wraps the task so that it records into the statistics of the current request, whichever
+     * thread runs it.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics == null) {
+            return task;
+        }
+        return () -> {
+            SqlStatistics previous = CURRENT.get();
+            CURRENT.set(statistics);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    static String enterDaoMethod(String daoMethod) {
+        String previous = CURRENT_DAO_METHOD.get();
+        CURRENT_DAO_METHOD.set(daoMethod);
+        return previous;
+    }
+
+    static void exitDaoMethod(String previous) {
+        if (previous == null) {
+            CURRENT_DAO_METHOD.remove();
+        } else {
+            CURRENT_DAO_METHOD.set(previous);
+        }
+    }
+
+    void record(String daoMethod, long rows, long elapsedMillis) {
+        Totals totals = totalsByDaoMethod.computeIfAbsent(daoMethod, key -> new Totals());
+        totals.statements.increment();
+        totals.rows.add(rows);
+        totals.elapsedMillis.add(elapsedMillis);
+    }
+
+    public String getRoute() {
+        return route.get();
+    }
+
+    public long getStatementCount() {
+        return totalsByDaoMethod.values().stream().mapToLong(totals -> totals.statements.sum()).sum();
+    }
+
+    public long getRowCount() {
+        return totalsByDaoMethod.values().stream().mapToLong(totals -> totals.rows.sum()).sum();
+    }
+
+    public long getElapsedMillis() {
+        return totalsByDaoMethod.values().stream().mapToLong(totals -> totals.elapsedMillis.sum()).sum();
+    }
+
+    /**
+     * @return statements, rows and elapsed milliseconds by DAO method, e.g.
+     * {@code {OrderDao.getPendingOrderForUpdate={statements=1, rows=0, elapsed_ms=0}}}.
+     */
+    public Map<String, Map<String, Long>> getTotalsByDaoMethod() {
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        totalsByDaoMethod.forEach((daoMethod, totals) -> {
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("statements", totals.statements.sum());
+            values.put("rows", totals.rows.sum());
+            values.put("elapsed_ms", totals.elapsedMillis.sum());
+            result.put(daoMethod, values);
+        });
+        return result;
+    }
+
+    private static final class Totals {
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder elapsedMillis = new LongAdder();
+    }
+}
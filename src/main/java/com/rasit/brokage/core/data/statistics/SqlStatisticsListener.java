@@ -0,0 +1,77 @@
+package com.rasit.brokage.core.data.statistics;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Attributes every executed statement to the current request and DAO method, and logs statements
+ * slower than the threshold together with their SQL and context.
+ * <p>
+ * A JDBC batch counts as one statement. Rows are the update counts of writes; rows read by
+ * queries are not counted.
+ */
+@Slf4j
+public class SqlStatisticsListener implements QueryExecutionListener {
+    private final long slowQueryThresholdMillis;
+
+    public SqlStatisticsListener(long slowQueryThresholdMillis) {
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // Nothing to do before the statement runs
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        String daoMethod = SqlStatistics.currentDaoMethod();
+        long rows = rowsOf(execInfo.getResult());
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            statistics.record(daoMethod, rows, execInfo.getElapsedTime());
+        }
+        if (execInfo.getElapsedTime() >= slowQueryThresholdMillis) {
+            String route = statistics == null ? null : statistics.getRoute();
+            log.atWarn()
+                    .setMessage("Slow SQL statement in {} took {} ms: {}")
+                    .addArgument(daoMethod)
+                    .addArgument(execInfo.getElapsedTime())
+                    .addArgument(() -> queriesOf(queryInfoList))
+                    .addKeyValue("sql.query", () -> queriesOf(queryInfoList))
+                    .addKeyValue("sql.elapsed_ms", execInfo.getElapsedTime())
+                    .addKeyValue("sql.rows", rows)
+                    .addKeyValue("sql.batch_size", execInfo.isBatch() ? execInfo.getBatchSize() : 1)
+                    .addKeyValue("sql.success", execInfo.isSuccess())
+                    .addKeyValue("sql.dao_method", daoMethod)
+                    .addKeyValue("sql.route", route)
+                    .log();
+        }
+    }
+
+    static long rowsOf(Object result) {
+        if (result instanceof Number count) {
+            return Math.max(count.longValue(), 0);
+        }
+        long rows = 0;
+        if (result instanceof int[] counts) {
+            for (int count : counts) {
+                rows += Math.max(count, 0);
+            }
+        } else if (result instanceof long[] counts) {
+            for (long count : counts) {
+                rows += Math.max(count, 0);
+            }
+        }
+        return rows;
+    }
+
+    private static String queriesOf(List<QueryInfo> queryInfoList) {
+        return queryInfoList.stream().map(QueryInfo::getQuery).collect(Collectors.joining("; "));
+    }
+}
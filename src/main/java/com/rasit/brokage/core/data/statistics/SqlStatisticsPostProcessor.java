@@ -0,0 +1,69 @@
+package com.rasit.brokage.core.data.statistics;
+
+import com.rasit.brokage.core.data.AssetDao;
+import com.rasit.brokage.core.data.CustomerDao;
+import com.rasit.brokage.core.data.OrderDao;
+import com.rasit.brokage.core.data.SettlementDao;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Wires the SQL statistics in: wraps the {@link DataSource} with a datasource-proxy that reports
+ * every statement to the {@link SqlStatisticsListener}, and advises the DAOs so that the
+ * statements they issue are attributed to the DAO method, e.g. {@code OrderDao.getAllByStatus}.
+ */
+@Component
+@Slf4j
+public class SqlStatisticsPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+    private static final List<Class<?>> DAO_TYPES = List.of(OrderDao.class, AssetDao.class, SettlementDao.class, CustomerDao.class);
+
+    private final boolean enabled;
+    private final long slowQueryThresholdMillis;
+
+    public SqlStatisticsPostProcessor(@Value("${brokage.sql.statistics.enabled:true}") boolean enabled,
+                                      @Value("${brokage.sql.slow-query-threshold-ms:200}") long slowQueryThresholdMillis) {
+        this.enabled = enabled;
+        this.slowQueryThresholdMillis = slowQueryThresholdMillis;
+        MethodInterceptor daoMethodInterceptor = invocation -> {
+            String previous = SqlStatistics.enterDaoMethod(daoTypeOf(AopProxyUtils.ultimateTargetClass(invocation.getThis())).getSimpleName()
+                    + "." + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                SqlStatistics.exitDaoMethod(previous);
+            }
+        };
+        this.advisor = new DefaultPointcutAdvisor(new ComposablePointcut(type -> daoTypeOf(type) != null), daoMethodInterceptor);
+        setBeforeExistingAdvisors(true);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled) {
+            return bean;
+        }
+        if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+            log.info("Counting SQL statements of data source {}, slow query threshold {} ms", beanName, slowQueryThresholdMillis);
+            return ProxyDataSourceBuilder.create(dataSource)
+                    .name(beanName)
+                    .listener(new SqlStatisticsListener(slowQueryThresholdMillis))
+                    .build();
+        }
+        return super.postProcessAfterInitialization(bean, beanName);
+    }
+
+    private static Class<?> daoTypeOf(Class<?> type) {
+        return DAO_TYPES.stream().filter(daoType -> daoType.isAssignableFrom(type)).findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,331 @@
+package com.rasit.brokage.core.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of binary records kept in memory-mapped segment files.
+ * <p>
+ * Every record gets the next sequence number and is framed as {@code [length][crc][sequence][payload]},
+ * the CRC covering sequence and payload. {@link #append(byte[])} returns once the record is on disk:
+ * appenders that arrive while a flush is running wait for the next one, so a single fsync commits
+ * every record written in the meantime (group commit).
+ * <p>
+ * A segment is named after the sequence of its first record and is forced completely before the
+ * next one is started, so only the last segment can end in a torn record. On open the last segment
+ * is scanned up to the first record that is incomplete, fails its CRC or breaks the sequence, and
+ * everything from there on is zeroed before new records are appended.
+ */
+@Slf4j
+public class MappedJournal implements Closeable {
+    static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment current;
+    private long lastSequence;
+    private long durableSequence;
+    private boolean flushing;
+
+    private MappedJournal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Opens the journal in the directory, creating it if needed, and recovers the end of the last
+     * segment.
+     *
+     * @param segmentSize  size of a segment file in bytes.
+     * @param lastSequence sequence already taken outside the journal; numbering continues after the
+     *                     larger of it and the last record found.
+     * @throws IllegalStateException if a segment other than the last one is damaged.
+     */
+    public static MappedJournal open(Path directory, int segmentSize, long lastSequence) throws IOException {
+        Files.createDirectories(directory);
+        MappedJournal journal = new MappedJournal(directory, segmentSize);
+        journal.recover(lastSequence);
+        return journal;
+    }
+
+    /**
+     * Appends a record and waits until it is forced to disk.
+     *
+     * @return sequence of the record.
+     * @throws IllegalArgumentException if the record does not fit into a segment.
+     */
+    public long append(byte[] payload) throws IOException {
+        int recordSize = HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Journal record of " + recordSize + " bytes does not fit into a segment of " + segmentSize + " bytes");
+        }
+
+        long sequence;
+        lock.lock();
+        try {
+            if (current.position + recordSize > current.buffer.capacity()) {
+                roll();
+            }
+            sequence = lastSequence + 1;
+            write(current.buffer, current.position, sequence, payload);
+            current.position += recordSize;
+            current.lastSequence = sequence;
+            lastSequence = sequence;
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(sequence);
+        return sequence;
+    }
+
+    /**
+     * Hands every record after the given sequence to the handler in sequence order.
+     */
+    public void replay(long afterSequence, RecordHandler handler) throws IOException {
+        List<Segment> snapshot;
+        lock.lock();
+        try {
+            snapshot = List.copyOf(segments);
+        } finally {
+            lock.unlock();
+        }
+        for (Segment segment : snapshot) {
+            if (segment.lastSequence <= afterSequence) {
+                continue;
+            }
+            ByteBuffer buffer = segment.buffer.duplicate();
+            long sequence = segment.firstSequence;
+            for (int position = 0; sequence <= segment.lastSequence; sequence++) {
+                int length = buffer.getInt(position);
+                if (sequence > afterSequence) {
+                    handler.handle(sequence, buffer.slice(position + HEADER_SIZE, length));
+                }
+                position += HEADER_SIZE + length;
+            }
+        }
+    }
+
+    /**
+     * Deletes the segments whose records all have a sequence up to the given one. The segment being
+     * written is always kept.
+     */
+    public void deleteSegmentsUpTo(long sequence) throws IOException {
+        List<Segment> deletable = new ArrayList<>();
+        lock.lock();
+        try {
+            while (segments.size() > 1 && segments.get(0).lastSequence <= sequence) {
+                deletable.add(segments.remove(0));
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Segment segment : deletable) {
+            Files.deleteIfExists(segment.path);
+            log.debug("Journal segment {} deleted", segment.path.getFileName());
+        }
+    }
+
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (current != null) {
+                current.buffer.force();
+                durableSequence = lastSequence;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+                flushing = true;
+                long target = lastSequence;
+                MappedByteBuffer buffer = current.buffer;
+                boolean forced = false;
+                lock.unlock();
+                try {
+                    buffer.force();
+                    forced = true;
+                } finally {
+                    lock.lock();
+                    flushing = false;
+                    if (forced) {
+                        durableSequence = Math.max(durableSequence, target);
+                    }
+                    flushed.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forces the full segment and starts the next one. Called with the lock held.
+     */
+    private void roll() throws IOException {
+        current.buffer.force();
+        durableSequence = Math.max(durableSequence, current.lastSequence);
+        current = createSegment(lastSequence + 1);
+        segments.add(current);
+        log.debug("Journal segment {} started", current.path.getFileName());
+    }
+
+    private void recover(long minimumLastSequence) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+
+        for (int i = 0; i < paths.size(); i++) {
+            Segment segment = mapSegment(paths.get(i));
+            boolean intact = scan(segment);
+            boolean last = i == paths.size() - 1;
+            if (!intact && !last) {
+                throw new IllegalStateException("Journal segment " + segment.path + " is damaged at offset " + segment.position);
+            }
+            if (!intact) {
+                log.warn("Journal segment {} ends in an incomplete record at offset {}, discarding the rest", segment.path.getFileName(), segment.position);
+                zeroFrom(segment);
+            }
+            segments.add(segment);
+        }
+
+        long recoveredSequence = segments.isEmpty() ? 0 : segments.get(segments.size() - 1).lastSequence;
+        lastSequence = Math.max(recoveredSequence, minimumLastSequence);
+        durableSequence = lastSequence;
+        if (segments.isEmpty() || lastSequence > recoveredSequence) {
+            // Numbering moves past the records on disk, so start a segment that begins with it
+            current = createSegment(lastSequence + 1);
+            segments.add(current);
+        } else {
+            current = segments.get(segments.size() - 1);
+        }
+        log.info("Journal opened in {} with {} segments, last sequence {}", directory, segments.size(), lastSequence);
+    }
+
+    /**
+     * Walks the records of the segment and leaves its position after the last valid one.
+     *
+     * @return false if the segment ends in an invalid record rather than in empty space.
+     */
+    private boolean scan(Segment segment) {
+        ByteBuffer buffer = segment.buffer;
+        int capacity = buffer.capacity();
+        long expected = segment.firstSequence;
+        int position = 0;
+        while (position + HEADER_SIZE <= capacity) {
+            int length = buffer.getInt(position);
+            if (length == 0 && buffer.getInt(position + Integer.BYTES) == 0) {
+                break;
+            }
+            if (length < 0 || position + HEADER_SIZE + length > capacity
+                    || buffer.getLong(position + 2 * Integer.BYTES) != expected
+                    || buffer.getInt(position + Integer.BYTES) != crcOf(buffer, position, length)) {
+                segment.position = position;
+                segment.lastSequence = expected - 1;
+                return false;
+            }
+            position += HEADER_SIZE + length;
+            expected++;
+        }
+        segment.position = position;
+        segment.lastSequence = expected - 1;
+        return true;
+    }
+
+    private void zeroFrom(Segment segment) {
+        byte[] zeros = new byte[8192];
+        int capacity = segment.buffer.capacity();
+        for (int position = segment.position; position < capacity; position += zeros.length) {
+            segment.buffer.put(position, zeros, 0, Math.min(zeros.length, capacity - position));
+        }
+        segment.buffer.force();
+    }
+
+    private Segment createSegment(long firstSequence) throws IOException {
+        return mapSegment(directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX)));
+    }
+
+    private Segment mapSegment(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        long firstSequence = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Segments written with a larger segment size keep their size
+            long size = Math.max(channel.size(), segmentSize);
+            return new Segment(path, firstSequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    private static void write(ByteBuffer buffer, int position, long sequence, byte[] payload) {
+        buffer.putLong(position + 2 * Integer.BYTES, sequence);
+        buffer.put(position + HEADER_SIZE, payload);
+        buffer.putInt(position + Integer.BYTES, crcOf(buffer, position, payload.length));
+        // The length goes last, so a record is never taken for complete before its body is written
+        buffer.putInt(position, payload.length);
+    }
+
+    private static int crcOf(ByteBuffer buffer, int position, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(position + 2 * Integer.BYTES, Long.BYTES + length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Receives the records of {@link #replay(long, RecordHandler)}.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void handle(long sequence, ByteBuffer payload) throws IOException;
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final long firstSequence;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private long lastSequence;
+
+        private Segment(Path path, long firstSequence, MappedByteBuffer buffer) {
+            this.path = path;
+            this.firstSequence = firstSequence;
+            this.buffer = buffer;
+            this.lastSequence = firstSequence - 1;
+        }
+    }
+}
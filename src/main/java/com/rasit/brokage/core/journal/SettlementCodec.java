@@ -0,0 +1,89 @@
+package com.rasit.brokage.core.journal;
+
+import com.rasit.brokage.core.settlement.BalanceDelta;
+import com.rasit.brokage.core.settlement.OrderUpdate;
+import com.rasit.brokage.core.settlement.Settlement;
+import com.rasit.brokage.utility.StatusType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Binary form of a {@link Settlement} as it is written to the journal: the balance deltas as
+ * customer, asset key and scaled longs, then the order updates as order id, matched flag and
+ * optional new size.
+ */
+final class SettlementCodec {
+    private static final byte VERSION = 1;
+
+    private SettlementCodec() {
+    }
+
+    static byte[] encode(Settlement settlement) {
+        List<BalanceDelta> balanceDeltas = settlement.getBalanceDeltas();
+        Collection<OrderUpdate> orderUpdates = settlement.getOrderUpdates();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + 64 * balanceDeltas.size() + 32 * orderUpdates.size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeInt(balanceDeltas.size());
+            for (BalanceDelta delta : balanceDeltas) {
+                out.writeUTF(delta.getCustomerId());
+                out.writeUTF(delta.getAssetKey());
+                out.writeLong(delta.getSize());
+                out.writeLong(delta.getUsableSize());
+            }
+            out.writeInt(orderUpdates.size());
+            for (OrderUpdate update : orderUpdates) {
+                out.writeLong(update.getOrderId().getMostSignificantBits());
+                out.writeLong(update.getOrderId().getLeastSignificantBits());
+                out.writeBoolean(update.getStatus() == StatusType.MATCHED);
+                out.writeBoolean(update.getSize() != null);
+                if (update.getSize() != null) {
+                    out.writeUTF(update.getSize().toPlainString());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Settlement decode(ByteBuffer payload) throws IOException {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unknown settlement record version " + version);
+            }
+            Settlement settlement = new Settlement();
+            int balanceDeltaCount = in.readInt();
+            for (int i = 0; i < balanceDeltaCount; i++) {
+                String customerId = in.readUTF();
+                String assetKey = in.readUTF();
+                settlement.addToSize(customerId, assetKey, in.readLong());
+                settlement.addToUsableSize(customerId, assetKey, in.readLong());
+            }
+            int orderUpdateCount = in.readInt();
+            for (int i = 0; i < orderUpdateCount; i++) {
+                UUID orderId = new UUID(in.readLong(), in.readLong());
+                if (in.readBoolean()) {
+                    settlement.markMatched(orderId);
+                }
+                if (in.readBoolean()) {
+                    settlement.resize(orderId, new BigDecimal(in.readUTF()));
+                }
+            }
+            return settlement;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.rasit.brokage.core.journal;
+
+import com.rasit.brokage.core.data.SettlementDao;
+import com.rasit.brokage.core.settlement.Settlement;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes the settlements of matches.
+ * <p>
+ * By default a settlement is written to the tables right away, inside the transaction of its match.
+ * With {@code brokage.journal.enabled} it is appended to a {@link MappedJournal} instead and the match
+ * completes as soon as the record is on disk. A single projector thread then writes the journaled
+ * settlements to the tables in sequence order, advancing the {@code journal_checkpoint} row in the
+ * same transaction. At startup the records after the checkpoint are projected before the
+ * application takes traffic.
+ * <p>
+ * While the journal is enabled the tables lag behind the order books. The books are then the
+ * source of truth for resting orders, and code that reads PENDING orders back into a book calls
+ * {@link #awaitProjected()} first.
+ */
+@Component
+@Slf4j
+public class SettlementJournal {
+    private final SettlementDao settlementDao;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final long awaitTimeoutMillis;
+    private final Timer appendTimer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final ConcurrentSkipListMap<Long, Settlement> unprojected = new ConcurrentSkipListMap<>();
+    private MappedJournal journal;
+    private Thread projector;
+    private volatile boolean running;
+    private volatile long appendedSequence;
+    private volatile long projectedSequence;
+
+    public SettlementJournal(SettlementDao settlementDao,
+                             @Value("${brokage.journal.enabled:false}") boolean enabled,
+                             @Value("${brokage.journal.directory:journal}") String directory,
+                             @Value("${brokage.journal.segment-size-mb:64}") int segmentSizeMb,
+                             @Value("${brokage.journal.await-timeout-ms:10000}") long awaitTimeoutMillis,
+                             MeterRegistry meterRegistry) {
+        this.settlementDao = settlementDao;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+        this.awaitTimeoutMillis = awaitTimeoutMillis;
+        this.appendTimer = Timer.builder("brokage.journal.append")
+                .description("Time to append a settlement to the journal until it is on disk")
+                .register(meterRegistry);
+        Gauge.builder("brokage.journal.projection.lag", this, journal -> journal.appendedSequence - journal.projectedSequence)
+                .description("Journaled settlements not yet written to the tables")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Opens the journal and projects the records written after the last checkpoint.
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long checkpoint = settlementDao.getProjectedSequence();
+        journal = MappedJournal.open(directory, segmentSize, checkpoint);
+        projectedSequence = checkpoint;
+        appendedSequence = journal.getLastSequence();
+
+        journal.replay(checkpoint, (sequence, payload) -> {
+            settlementDao.settle(sequence, SettlementCodec.decode(payload));
+            projectedSequence = sequence;
+        });
+        if (appendedSequence > checkpoint) {
+            log.info("Projected journal records {} to {} left over from the last run", checkpoint + 1, appendedSequence);
+        }
+        journal.deleteSegmentsUpTo(projectedSequence);
+
+        running = true;
+        projector = new Thread(this::project, "settlement-projector");
+        projector.setDaemon(true);
+        projector.start();
+    }
+
+    /**
+     * Writes the settlement to the tables, or to the journal when it is enabled.
+     *
+     * @return false if the journal is disabled and an order of the settlement was no longer
+     * PENDING; see {@link SettlementDao#settle(Settlement)}.
+     */
+    public boolean settle(Settlement settlement) {
+        if (!enabled) {
+            return settlementDao.settle(settlement);
+        }
+        byte[] record = SettlementCodec.encode(settlement);
+        long start = System.nanoTime();
+        long sequence;
+        try {
+            sequence = journal.append(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        unprojected.put(sequence, settlement);
+        lock.lock();
+        try {
+            appendedSequence = Math.max(appendedSequence, sequence);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Waits until every settlement journaled so far is written to the tables. Returns right away
+     * when the journal is disabled.
+     *
+     * @throws IllegalStateException if the projection does not catch up within the timeout.
+     */
+    public void awaitProjected() {
+        if (!enabled) {
+            return;
+        }
+        long target = appendedSequence;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(awaitTimeoutMillis);
+        lock.lock();
+        try {
+            while (projectedSequence < target) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Journal projection did not reach sequence " + target + " within " + awaitTimeoutMillis + " ms");
+                }
+                changed.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the journal projection", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the projector once the settlements journaled so far are written, and closes the journal.
+     * Whatever is left is projected on the next start.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        try {
+            awaitProjected();
+        } catch (IllegalStateException e) {
+            log.warn("Stopping with {} journaled settlements not written to the tables", appendedSequence - projectedSequence);
+        }
+        running = false;
+        projector.interrupt();
+        projector.join(awaitTimeoutMillis);
+        journal.close();
+    }
+
+    private void project() {
+        while (running) {
+            Settlement settlement = unprojected.get(projectedSequence + 1);
+            if (settlement == null) {
+                awaitAppend();
+                continue;
+            }
+            long sequence = projectedSequence + 1;
+            try {
+                settlementDao.settle(sequence, settlement);
+            } catch (RuntimeException e) {
+                log.error("Projecting journal record {} failed, retrying", sequence, e);
+                pause();
+                continue;
+            }
+            unprojected.remove(sequence);
+            lock.lock();
+            try {
+                projectedSequence = sequence;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            deleteProjectedSegments();
+        }
+    }
+
+    private void awaitAppend() {
+        lock.lock();
+        try {
+            if (!unprojected.containsKey(projectedSequence + 1)) {
+                changed.await(100, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private void deleteProjectedSegments() {
+        try {
+            journal.deleteSegmentsUpTo(projectedSequence);
+        } catch (IOException e) {
+            log.warn("Deleting projected journal segments failed: {}", e.getMessage());
+        }
+    }
+}
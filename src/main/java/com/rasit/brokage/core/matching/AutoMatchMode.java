@@ -0,0 +1,15 @@
+package com.rasit.brokage.core.matching;
+
+/**
+ * Represents how a newly created order is matched when continuous matching is enabled.
+ */
+public enum AutoMatchMode {
+    /**
+     * The order is matched before the create request returns and the response carries the result.
+     */
+    SYNC,
+    /**
+     * The match is queued on the shard of the asset and the create request returns right away.
+     */
+    ASYNC
+}
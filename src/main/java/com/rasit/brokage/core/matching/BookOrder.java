@@ -0,0 +1,58 @@
+package com.rasit.brokage.core.matching;
+
+import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.utility.FixedPoint;
+import com.rasit.brokage.utility.SideType;
+import com.rasit.brokage.utility.StatusType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * Resting order as it is kept inside an {@link OrderBook}.
+ * <p>
+ * Detached from the persistence context on purpose, so that matching never triggers dirty checking
+ * on {@link OrderEntity} instances. Price and size are {@link FixedPoint} scaled longs.
+ */
+@Data
+@AllArgsConstructor
+public class BookOrder {
+    private UUID orderId;
+    private String customerId;
+    private String assetName;
+    private SideType orderSide;
+    private long price;
+    private long size;
+    private ZonedDateTime createDate;
+
+    public static BookOrder from(OrderEntity orderEntity, FixedPoint fixedPoint) {
+        return new BookOrder(orderEntity.getOrderId(), orderEntity.getCustomerId(), orderEntity.getAssetName(), orderEntity.getOrderSide(),
+                fixedPoint.fromDecimal(orderEntity.getPrice()), fixedPoint.fromDecimal(orderEntity.getSize()), orderEntity.getCreateDate());
+    }
+
+    public BookOrder copy() {
+        return new BookOrder(orderId, customerId, assetName, orderSide, price, size, createDate);
+    }
+
+    /**
+     * Builds a detached {@link OrderEntity} view of this order, e.g. to render it as a rest resource.
+     *
+     * @param status     status of the order at the time of the view.
+     * @param fixedPoint scale of price and size.
+     * @return new {@link OrderEntity} carrying the current state of this order.
+     */
+    public OrderEntity toEntity(StatusType status, FixedPoint fixedPoint) {
+        OrderEntity orderEntity = new OrderEntity();
+        orderEntity.setOrderId(orderId);
+        orderEntity.setCustomerId(customerId);
+        orderEntity.setAssetName(assetName);
+        orderEntity.setOrderSide(orderSide);
+        orderEntity.setPrice(fixedPoint.toDecimal(price));
+        orderEntity.setSize(fixedPoint.toDecimal(size));
+        orderEntity.setStatus(status);
+        orderEntity.setCreateDate(createDate);
+        return orderEntity;
+    }
+}
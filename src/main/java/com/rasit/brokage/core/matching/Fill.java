@@ -0,0 +1,25 @@
+package com.rasit.brokage.core.matching;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Single execution between the order being matched and a resting counter-order.
+ */
+@Getter
+@AllArgsConstructor
+public class Fill {
+    /**
+     * Snapshot of the counter-order right after this fill, its size being the remaining size.
+     */
+    private final BookOrder counterOrder;
+
+    /**
+     * Executed quantity as a scaled long.
+     */
+    private final long quantity;
+
+    public boolean isCounterOrderFilled() {
+        return counterOrder.getSize() == 0;
+    }
+}
@@ -0,0 +1,199 @@
+package com.rasit.brokage.core.matching;
+
+import com.rasit.brokage.core.data.statistics.SqlStatistics;
+import com.rasit.brokage.rest.exception.CustomException;
+import com.rasit.brokage.utility.ErrorMessageType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs all matching work of an asset on a single thread.
+ * <p>
+ * Asset names are hashed onto a fixed set of single-threaded shards, each fed by a bounded queue.
+ * Everything that touches the {@link OrderBook} of an asset goes through its shard, so a book is
+ * only ever mutated by one thread and different assets are matched in parallel. When a shard queue
+ * is full the submission is rejected instead of queuing without limit.
+ */
+@Component
+@Slf4j
+public class MatchingScheduler {
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final ThreadPoolExecutor[] shards;
+    private final Counter[] rejections;
+    private final long timeoutMillis;
+
+    public MatchingScheduler(@Value("${brokage.matching.shard-count:0}") int shardCount,
+                             @Value("${brokage.matching.shard-queue-capacity:1024}") int queueCapacity,
+                             @Value("${brokage.matching.timeout-ms:5000}") long timeoutMillis,
+                             MeterRegistry meterRegistry) {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.shards = new ThreadPoolExecutor[count];
+        this.rejections = new Counter[count];
+        this.timeoutMillis = timeoutMillis;
+
+        for (int i = 0; i < count; i++) {
+            final int shard = i;
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(() -> {
+                    CURRENT_SHARD.set(shard);
+                    runnable.run();
+                }, "matching-shard-" + shard);
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+            Tags tags = Tags.of("shard", String.valueOf(shard));
+            new ExecutorServiceMetrics(shards[i], "brokage.matching.shard", tags).bindTo(meterRegistry);
+            rejections[i] = Counter.builder("brokage.matching.shard.rejected")
+                    .description("Submissions rejected because the shard queue was full")
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+        log.info("Matching scheduler started with {} shards, queue capacity {}", count, queueCapacity);
+    }
+
+    public int shardOf(String assetName) {
+        return Math.floorMod(assetName.hashCode(), shards.length);
+    }
+
+    /**
+     * Runs the task on the shard of the asset and waits for its result. When called from that
+     * shard already, the task runs inline.
+     * <p>
+     * A task that has not started within the timeout is canceled and never runs. A task that has
+     * already started may still commit, so it is waited for instead of being reported as failed.
+     *
+     * @param assetName asset whose shard runs the task.
+     * @param task      the work to run.
+     * @return result of the task.
+     * @throws CustomException if the shard queue is full, the task did not start within the timeout
+     *                         or the task throws it.
+     */
+    public <T> T call(String assetName, Callable<T> task) throws CustomException {
+        int shard = shardOf(assetName);
+        // Claimed by whichever comes first: the shard starting the task or the caller canceling it
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<T> future = null;
+        try {
+            if (Integer.valueOf(shard).equals(CURRENT_SHARD.get())) {
+                return task.call();
+            }
+            future = shards[shard].submit(SqlStatistics.propagate(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    throw new CancellationException();
+                }
+                return task.call();
+            }));
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            throw rejected(shard, assetName);
+        } catch (TimeoutException e) {
+            if (cancel(shard, future, claimed)) {
+                log.warn("Matching task for asset {} did not start within {} ms and was canceled", assetName, timeoutMillis);
+                throw new CustomException(ErrorMessageType.MATCHING_UNAVAILABLE, new String[]{assetName}, HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            log.warn("Matching task for asset {} is still running after {} ms, waiting for it to complete", assetName, timeoutMillis);
+            return awaitStarted(assetName, future);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(shard, future, claimed);
+            throw new CustomException(ErrorMessageType.MATCHING_UNAVAILABLE, new String[]{assetName}, HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (CustomException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Queues the task on the shard of the asset without waiting for it.
+     *
+     * @param assetName asset whose shard runs the task.
+     * @param task      the work to run.
+     * @return false if the shard queue was full and the task was dropped.
+     */
+    public boolean execute(String assetName, Runnable task) {
+        int shard = shardOf(assetName);
+        try {
+            shards[shard].execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejections[shard].increment();
+            log.warn("Matching shard {} is full, task for asset {} dropped", shard, assetName);
+            return false;
+        }
+    }
+
+    /**
+     * Stops taking new work and waits for the queued work of every shard to drain.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor shard : shards) {
+            shard.shutdown();
+        }
+        for (ThreadPoolExecutor shard : shards) {
+            if (!shard.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("Matching shard did not drain within {} ms", timeoutMillis);
+            }
+        }
+    }
+
+    /**
+     * Cancels a task that has not started yet, so it never touches the book or the database.
+     *
+     * @return false if the task has already started or completed.
+     */
+    private boolean cancel(int shard, Future<?> future, AtomicBoolean claimed) {
+        if (future == null || !claimed.compareAndSet(false, true)) {
+            return false;
+        }
+        future.cancel(false);
+        shards[shard].remove((Runnable) future);
+        return true;
+    }
+
+    private <T> T awaitStarted(String assetName, Future<T> future) throws CustomException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for the running matching task of asset {}, it may still complete", assetName);
+            throw new CustomException(ErrorMessageType.MATCHING_UNAVAILABLE, new String[]{assetName}, HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private CustomException rejected(int shard, String assetName) {
+        rejections[shard].increment();
+        log.warn("Matching shard {} is full, rejecting task for asset {}", shard, assetName);
+        return new CustomException(ErrorMessageType.MATCHING_UNAVAILABLE, new String[]{assetName}, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private CustomException rethrow(Throwable cause) throws CustomException {
+        if (cause instanceof CustomException customException) {
+            throw customException;
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        throw new IllegalStateException(cause);
+    }
+}
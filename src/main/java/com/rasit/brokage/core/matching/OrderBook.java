@@ -0,0 +1,170 @@
+package com.rasit.brokage.core.matching;
+
+import com.rasit.brokage.utility.SideType;
+
+import java.util.*;
+
+/**
+ * Resident price-time priority order book of a single asset.
+ * <p>
+ * Each side keeps its price levels sorted (bids descending, asks ascending) and every level keeps its
+ * orders in arrival order. The best level of each side is cached, so the top of the book is read in
+ * O(1) and a match only walks the levels that actually cross. Prices and sizes are scaled longs, so
+ * matching does no decimal arithmetic.
+ * <p>
+ * Instances are not thread-safe, callers have to serialize access to a book.
+ */
+public class OrderBook {
+    private final String assetName;
+    private final NavigableMap<Long, PriceLevel> bids = new TreeMap<>(Comparator.reverseOrder());
+    private final NavigableMap<Long, PriceLevel> asks = new TreeMap<>();
+    private final Map<UUID, BookOrder> orders = new HashMap<>();
+    private PriceLevel bestBid;
+    private PriceLevel bestAsk;
+
+    public OrderBook(String assetName) {
+        this.assetName = assetName;
+    }
+
+    public String getAssetName() {
+        return assetName;
+    }
+
+    /**
+     * @return the highest priced BUY level, or null if there is no resting BUY order.
+     */
+    public PriceLevel getBestBid() {
+        return bestBid;
+    }
+
+    /**
+     * @return the lowest priced SELL level, or null if there is no resting SELL order.
+     */
+    public PriceLevel getBestAsk() {
+        return bestAsk;
+    }
+
+    public BookOrder getOrder(UUID orderId) {
+        return orders.get(orderId);
+    }
+
+    public int getOrderCount() {
+        return orders.size();
+    }
+
+    /**
+     * Adds an order at the back of the queue of its price level. Adding an order that is already
+     * resting in the book is a no-op.
+     *
+     * @param order order to rest in the book.
+     * @return the order resting in the book.
+     */
+    public BookOrder add(BookOrder order) {
+        BookOrder existing = orders.putIfAbsent(order.getOrderId(), order);
+        if (existing != null) {
+            return existing;
+        }
+        NavigableMap<Long, PriceLevel> levels = levelsOf(order.getOrderSide());
+        levels.computeIfAbsent(order.getPrice(), PriceLevel::new).add(order);
+        refreshBest(order.getOrderSide());
+        return order;
+    }
+
+    /**
+     * Removes an order from the book.
+     *
+     * @param orderId identifier of the order to remove.
+     * @return the removed order, or null if the order was not resting in the book.
+     */
+    public BookOrder remove(UUID orderId) {
+        BookOrder order = orders.remove(orderId);
+        if (order == null) {
+            return null;
+        }
+        removeFromLevel(levelsOf(order.getOrderSide()).get(order.getPrice()), order);
+        return order;
+    }
+
+    /**
+     * Matches the given order against the opposite side of the book in price-time priority.
+     * <p>
+     * The order is added to the book first if it is not resting yet. Fully filled orders, including
+     * the given one, are removed from the book; partially filled ones keep their queue position.
+     *
+     * @param order order to match.
+     * @return fills in execution order, empty if the book does not cross.
+     */
+    public List<Fill> match(BookOrder order) {
+        BookOrder incoming = add(order);
+        SideType counterSide = incoming.getOrderSide() == SideType.BUY ? SideType.SELL : SideType.BUY;
+        PriceLevel incomingLevel = levelsOf(incoming.getOrderSide()).get(incoming.getPrice());
+        List<Fill> fills = new ArrayList<>();
+
+        while (incoming.getSize() > 0) {
+            PriceLevel level = counterSide == SideType.SELL ? bestAsk : bestBid;
+            if (level == null || !isPriceMatch(incoming, level.getPrice())) {
+                break;
+            }
+            BookOrder counterOrder = level.peek();
+            long fillQuantity = Math.min(incoming.getSize(), counterOrder.getSize());
+
+            incomingLevel.reduce(incoming, fillQuantity);
+            level.reduce(counterOrder, fillQuantity);
+            fills.add(new Fill(counterOrder.copy(), fillQuantity));
+
+            if (counterOrder.getSize() == 0) {
+                orders.remove(counterOrder.getOrderId());
+                removeFromLevel(level, counterOrder);
+            }
+        }
+
+        if (incoming.getSize() == 0) {
+            orders.remove(incoming.getOrderId());
+            removeFromLevel(incomingLevel, incoming);
+        }
+        return fills;
+    }
+
+    public void clear() {
+        bids.clear();
+        asks.clear();
+        orders.clear();
+        bestBid = null;
+        bestAsk = null;
+    }
+
+    /**
+     * For a BUY order the counter price must be less than or equal to its price, for a SELL order
+     * it must be greater than or equal to its price.
+     */
+    private boolean isPriceMatch(BookOrder order, long counterPrice) {
+        if (order.getOrderSide() == SideType.BUY) {
+            return order.getPrice() >= counterPrice;
+        }
+        return order.getPrice() <= counterPrice;
+    }
+
+    /**
+     * Takes the order out of its level and drops the level once it is empty. The caller removes the
+     * order from the order index.
+     */
+    private void removeFromLevel(PriceLevel level, BookOrder order) {
+        level.remove(order.getOrderId());
+        if (level.isEmpty()) {
+            levelsOf(order.getOrderSide()).remove(level.getPrice());
+            refreshBest(order.getOrderSide());
+        }
+    }
+
+    private NavigableMap<Long, PriceLevel> levelsOf(SideType side) {
+        return side == SideType.BUY ? bids : asks;
+    }
+
+    private void refreshBest(SideType side) {
+        if (side == SideType.BUY) {
+            bestBid = bids.isEmpty() ? null : bids.firstEntry().getValue();
+        } else {
+            bestAsk = asks.isEmpty() ? null : asks.firstEntry().getValue();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.rasit.brokage.core.matching;
+
+import com.rasit.brokage.core.data.OrderDao;
+import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.core.journal.SettlementJournal;
+import com.rasit.brokage.rest.exception.CustomException;
+import com.rasit.brokage.utility.AssetKey;
+import com.rasit.brokage.utility.FixedPoint;
+import com.rasit.brokage.utility.StatusType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the resident {@link OrderBook} of every asset and keeps it in sync with the orders table.
+ * Books and their shards are looked up by {@link AssetKey}, so differently cased names of an asset
+ * share one book.
+ * <p>
+ * Books are rebuilt from the PENDING orders once the application is ready, taken from the latest
+ * {@link OrderBookSnapshots snapshot} when there is one. Afterwards new and
+ * canceled orders are applied once their transaction commits, and a book touched by a rolled back
+ * match is marked stale and reloaded from the database on its next use.
+ * <p>
+ * A book is only ever accessed from the {@link MatchingScheduler} shard of its asset, so books
+ * themselves need no locking. The number of orders resting in each book is published as the
+ * {@code brokage.orderbook.depth} gauge, tagged by asset and refreshed after every change on the shard.
+ * <p>
+ * When settlements go through the {@link SettlementJournal}, the orders table lags behind the books.
+ * The books are then the only up to date view of resting orders: matches and cancels first
+ * {@link #take} or look up the order in its book, and a book is only loaded once the journal is
+ * fully projected.
+ */
+@Component
+@Slf4j
+public class OrderBookRegistry {
+    private final OrderDao orderDao;
+    private final SettlementJournal settlementJournal;
+    private final OrderBookSnapshots orderBookSnapshots;
+    private final MatchingScheduler matchingScheduler;
+    private final FixedPoint fixedPoint;
+    private final Map<String, OrderBook> books = new ConcurrentHashMap<>();
+    private final Set<String> staleBooks = ConcurrentHashMap.newKeySet();
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> depths = new ConcurrentHashMap<>();
+
+    public OrderBookRegistry(OrderDao orderDao, SettlementJournal settlementJournal, OrderBookSnapshots orderBookSnapshots, MatchingScheduler matchingScheduler,
+                             FixedPoint fixedPoint, MeterRegistry meterRegistry) {
+        this.orderDao = orderDao;
+        this.settlementJournal = settlementJournal;
+        this.orderBookSnapshots = orderBookSnapshots;
+        this.matchingScheduler = matchingScheduler;
+        this.fixedPoint = fixedPoint;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        settlementJournal.awaitProjected();
+        long start = System.nanoTime();
+        String source = "snapshot";
+        List<BookOrder> pendingOrders = orderBookSnapshots.loadPendingOrders();
+        if (pendingOrders == null) {
+            source = "database";
+            pendingOrders = orderDao.getAllByStatus(StatusType.PENDING).stream().map(order -> BookOrder.from(order, fixedPoint)).toList();
+        }
+        Map<String, List<BookOrder>> ordersByAsset = pendingOrders.stream().collect(Collectors.groupingBy(order -> AssetKey.of(order.getAssetName())));
+
+        staleBooks.clear();
+        books.clear();
+        ordersByAsset.forEach((assetKey, orders) -> {
+            OrderBook book = new OrderBook(assetKey);
+            orders.forEach(book::add);
+            books.put(assetKey, book);
+        });
+        depths.forEach((assetKey, depth) -> depth.set(0));
+        books.forEach(this::updateDepth);
+        meterRegistry.timer("brokage.orderbook.rebuild", "source", source).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("Order books rebuilt from the {} for {} assets with {} pending orders", source, books.size(), pendingOrders.size());
+    }
+
+    /**
+     * Queues a newly created order onto the shard of its asset once the current transaction commits.
+     *
+     * @param orderEntity the persisted order.
+     */
+    public void add(OrderEntity orderEntity) {
+        BookOrder order = BookOrder.from(orderEntity, fixedPoint);
+        afterCommit(() -> enqueue(AssetKey.of(order.getAssetName()), book -> book.add(order)));
+    }
+
+    /**
+     * Queues the removal of a canceled order onto the shard of its asset once the current
+     * transaction commits.
+     *
+     * @param orderEntity the canceled order.
+     */
+    public void remove(OrderEntity orderEntity) {
+        afterCommit(() -> enqueue(AssetKey.of(orderEntity.getAssetName()), book -> book.remove(orderEntity.getOrderId())));
+    }
+
+    /**
+     * Matches the given order against the book of its asset on the shard of the asset. If the order
+     * is already resting, its size is taken from the book; otherwise it is read again on the shard,
+     * since it may have been filled or canceled after the caller read it. The book is updated right
+     * away; if the current transaction does not commit, the book is reloaded from the database on
+     * its next use.
+     *
+     * @param order the PENDING order to match; its size is updated to the size it is matched with.
+     * @return fills in execution order, empty if the book does not cross, null if the order is no
+     * longer PENDING, or with the journal enabled no longer resting in the book.
+     * @throws CustomException if the shard of the asset cannot take the work.
+     */
+    public List<Fill> match(BookOrder order) throws CustomException {
+        String assetKey = AssetKey.of(order.getAssetName());
+        List<Fill> fills = matchingScheduler.call(assetKey, () -> onShard(assetKey, book -> {
+            BookOrder resting = book.getOrder(order.getOrderId());
+            if (resting != null) {
+                order.setSize(resting.getSize());
+            } else if (settlementJournal.isEnabled()) {
+                return null;
+            } else {
+                OrderEntity pending = orderDao.getOrderByOrderIdAndStatus(order.getOrderId().toString(), StatusType.PENDING);
+                if (pending == null) {
+                    return null;
+                }
+                order.setSize(fixedPoint.fromDecimal(pending.getSize()));
+            }
+            return book.match(order.copy());
+        }));
+        if (fills != null && !fills.isEmpty()) {
+            onRollback(() -> staleBooks.add(assetKey));
+        }
+        return fills;
+    }
+
+    /**
+     * Takes an order out of the book of its asset on the shard of the asset, for a cancel that has
+     * to know the size the order still rests with. If the current transaction does not commit, the
+     * book is reloaded from the database on its next use.
+     *
+     * @return copy of the order as it rested in the book, null if it was not resting.
+     * @throws CustomException if the shard of the asset cannot take the work.
+     */
+    public BookOrder take(OrderEntity orderEntity) throws CustomException {
+        String assetKey = AssetKey.of(orderEntity.getAssetName());
+        BookOrder taken = matchingScheduler.call(assetKey, () -> onShard(assetKey, book -> book.remove(orderEntity.getOrderId())));
+        onRollback(() -> staleBooks.add(assetKey));
+        return taken == null ? null : taken.copy();
+    }
+
+    /**
+     * Takes the orders out of their books like {@link #take(OrderEntity)}, one shard call per asset.
+     *
+     * @return copies of the orders that were resting, in the order of the assets.
+     * @throws CustomException if the shard of an asset cannot take the work.
+     */
+    public List<BookOrder> take(List<OrderEntity> orderEntities) throws CustomException {
+        Map<String, List<OrderEntity>> ordersByAsset = orderEntities.stream().collect(Collectors.groupingBy(order -> AssetKey.of(order.getAssetName())));
+        List<BookOrder> taken = new ArrayList<>(orderEntities.size());
+        for (Map.Entry<String, List<OrderEntity>> entry : ordersByAsset.entrySet()) {
+            String assetKey = entry.getKey();
+            taken.addAll(matchingScheduler.call(assetKey, () -> onShard(assetKey, book -> entry.getValue().stream()
+                    .map(order -> book.remove(order.getOrderId()))
+                    .filter(Objects::nonNull)
+                    .map(BookOrder::copy)
+                    .toList())));
+            onRollback(() -> staleBooks.add(assetKey));
+        }
+        return taken;
+    }
+
+    private void enqueue(String assetKey, Function<OrderBook, ?> action) {
+        if (!matchingScheduler.execute(assetKey, () -> onShard(assetKey, action))) {
+            staleBooks.add(assetKey);
+        }
+    }
+
+    private <T> T onShard(String assetKey, Function<OrderBook, T> action) {
+        OrderBook book = books.computeIfAbsent(assetKey, key -> {
+            staleBooks.add(key);
+            return new OrderBook(key);
+        });
+        if (staleBooks.remove(assetKey)) {
+            try {
+                reload(book);
+            } catch (RuntimeException e) {
+                staleBooks.add(assetKey);
+                throw e;
+            }
+        }
+        T result = action.apply(book);
+        updateDepth(assetKey, book);
+        return result;
+    }
+
+    private void updateDepth(String assetKey, OrderBook book) {
+        depths.computeIfAbsent(assetKey, key -> meterRegistry.gauge("brokage.orderbook.depth", Tags.of("asset", key), new AtomicInteger()))
+                .set(book.getOrderCount());
+    }
+
+    private void reload(OrderBook book) {
+        settlementJournal.awaitProjected();
+        List<OrderEntity> pendingOrders = orderDao.getAllByStatusAndAssetName(StatusType.PENDING, book.getAssetName());
+        book.clear();
+        pendingOrders.forEach(order -> book.add(BookOrder.from(order, fixedPoint)));
+        log.debug("Order book of {} loaded with {} pending orders", book.getAssetName(), pendingOrders.size());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,282 @@
+package com.rasit.brokage.core.matching;
+
+import com.rasit.brokage.core.data.OrderDao;
+import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.utility.FixedPoint;
+import com.rasit.brokage.utility.SideType;
+import com.rasit.brokage.utility.StatusType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Periodic binary snapshots of the PENDING orders, so the order books can be built at startup
+ * without loading every resting order through JPA.
+ * <p>
+ * A snapshot is written in the background every {@code brokage.snapshot.interval-ms} and once more
+ * on shutdown. It holds the orders in time priority with scaled prices and sizes, customer and asset
+ * names written once and referenced by index afterwards, and a CRC32C over the whole file. It is
+ * written to a temporary file and moved over the previous snapshot, so a crash never leaves a
+ * partial one behind.
+ * <p>
+ * At startup the snapshot is brought up to date with the orders changed since it was read, going
+ * back {@code brokage.snapshot.tail-overlap-ms} further to cover transactions that were still
+ * running when it was read. A snapshot that is missing, damaged or written with another
+ * {@link FixedPoint} scale is ignored.
+ */
+@Component
+@Slf4j
+public class OrderBookSnapshots {
+    private static final int MAGIC = 0x42524b53;
+    private static final byte VERSION = 1;
+    private static final int NEW_NAME = -1;
+
+    private final OrderDao orderDao;
+    private final FixedPoint fixedPoint;
+    private final boolean enabled;
+    private final Path file;
+    private final long intervalMillis;
+    private final long tailOverlapMillis;
+    private final Timer writeTimer;
+    private ScheduledExecutorService writer;
+
+    public OrderBookSnapshots(OrderDao orderDao, FixedPoint fixedPoint,
+                              @Value("${brokage.snapshot.enabled:false}") boolean enabled,
+                              @Value("${brokage.snapshot.file:snapshot/orderbooks.snapshot}") String file,
+                              @Value("${brokage.snapshot.interval-ms:300000}") long intervalMillis,
+                              @Value("${brokage.snapshot.tail-overlap-ms:60000}") long tailOverlapMillis,
+                              MeterRegistry meterRegistry) {
+        this.orderDao = orderDao;
+        this.fixedPoint = fixedPoint;
+        this.enabled = enabled;
+        this.file = Path.of(file);
+        this.intervalMillis = intervalMillis;
+        this.tailOverlapMillis = tailOverlapMillis;
+        this.writeTimer = Timer.builder("brokage.orderbook.snapshot.write")
+                .description("Time to write a snapshot of the pending orders")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "orderbook-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::writeQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdownNow();
+        writer.awaitTermination(intervalMillis, TimeUnit.MILLISECONDS);
+        writeQuietly();
+    }
+
+    /**
+     * Writes a snapshot of the PENDING orders as they are in the database now.
+     *
+     * @return number of orders written.
+     */
+    public int write() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        int count;
+        try (SnapshotOutput out = new SnapshotOutput(temporary)) {
+            ZonedDateTime readStart = orderDao.forEachPendingOrder(out::write);
+            count = out.finish(readStart);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("Order book snapshot of {} pending orders written to {}", count, file);
+        return count;
+    }
+
+    /**
+     * Reads the PENDING orders from the latest snapshot and the orders changed since it was taken.
+     *
+     * @return the pending orders in time priority, null if snapshots are disabled or there is no
+     * usable snapshot.
+     */
+    public List<BookOrder> loadPendingOrders() {
+        if (!enabled) {
+            return null;
+        }
+        Map<UUID, BookOrder> orders = new HashMap<>();
+        ZonedDateTime takenAt;
+        try {
+            takenAt = read(orders);
+        } catch (NoSuchFileException e) {
+            log.info("No order book snapshot at {}, loading the pending orders from the database", file);
+            return null;
+        } catch (IOException e) {
+            log.warn("Order book snapshot {} is not usable, loading the pending orders from the database: {}", file, e.getMessage());
+            return null;
+        }
+
+        List<OrderEntity> changed = orderDao.getOrdersModifiedSince(takenAt.minusNanos(TimeUnit.MILLISECONDS.toNanos(tailOverlapMillis)));
+        for (OrderEntity order : changed) {
+            if (order.getStatus() == StatusType.PENDING) {
+                orders.put(order.getOrderId(), BookOrder.from(order, fixedPoint));
+            } else {
+                orders.remove(order.getOrderId());
+            }
+        }
+        List<BookOrder> pendingOrders = new ArrayList<>(orders.values());
+        pendingOrders.sort(Comparator.comparing(BookOrder::getCreateDate).thenComparing(BookOrder::getOrderId));
+        log.info("Order book snapshot of {} loaded with {} orders changed since", takenAt, changed.size());
+        return pendingOrders;
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Writing the order book snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the snapshot into the map and returns the database time it was read at.
+     */
+    private ZonedDateTime read(Map<UUID, BookOrder> orders) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16), crc))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("not an order book snapshot");
+            }
+            int scale = in.readInt();
+            if (scale != fixedPoint.getScale()) {
+                throw new IOException("written with scale " + scale + " instead of " + fixedPoint.getScale());
+            }
+            List<String> names = new ArrayList<>();
+            while (in.readBoolean()) {
+                UUID orderId = new UUID(in.readLong(), in.readLong());
+                String customerId = readName(in, names);
+                String assetName = readName(in, names);
+                SideType side = in.readBoolean() ? SideType.BUY : SideType.SELL;
+                long price = in.readLong();
+                long size = in.readLong();
+                ZonedDateTime createDate = readTime(in);
+                orders.put(orderId, new BookOrder(orderId, customerId, assetName, side, price, size, createDate));
+            }
+            ZonedDateTime takenAt = readTime(in);
+            int count = in.readInt();
+            int expectedCrc = (int) crc.getValue();
+            if (count != orders.size() || in.readInt() != expectedCrc) {
+                throw new IOException("checksum mismatch");
+            }
+            return takenAt;
+        } catch (EOFException e) {
+            throw new IOException("truncated", e);
+        }
+    }
+
+    private static String readName(DataInputStream in, List<String> names) throws IOException {
+        int index = in.readInt();
+        if (index != NEW_NAME) {
+            return names.get(index);
+        }
+        String name = in.readUTF();
+        names.add(name);
+        return name;
+    }
+
+    private static ZonedDateTime readTime(DataInputStream in) throws IOException {
+        Instant instant = Instant.ofEpochSecond(in.readLong(), in.readInt());
+        return OffsetDateTime.ofInstant(instant, ZoneOffset.ofTotalSeconds(in.readInt())).toZonedDateTime();
+    }
+
+    /**
+     * Streams orders into a snapshot file and closes it with the read time, count and checksum.
+     */
+    private final class SnapshotOutput implements Closeable {
+        private final CRC32C crc = new CRC32C();
+        private final DataOutputStream out;
+        private final Map<String, Integer> names = new HashMap<>();
+        private int count;
+
+        private SnapshotOutput(Path path) throws IOException {
+            out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16), crc));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(fixedPoint.getScale());
+        }
+
+        private void write(OrderEntity order) {
+            try {
+                out.writeBoolean(true);
+                out.writeLong(order.getOrderId().getMostSignificantBits());
+                out.writeLong(order.getOrderId().getLeastSignificantBits());
+                writeName(order.getCustomerId());
+                writeName(order.getAssetName());
+                out.writeBoolean(order.getOrderSide() == SideType.BUY);
+                out.writeLong(fixedPoint.fromDecimal(order.getPrice()));
+                out.writeLong(fixedPoint.fromDecimal(order.getSize()));
+                writeTime(order.getCreateDate());
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private int finish(ZonedDateTime readStart) throws IOException {
+            out.writeBoolean(false);
+            writeTime(readStart);
+            out.writeInt(count);
+            out.writeInt((int) crc.getValue());
+            return count;
+        }
+
+        private void writeName(String name) throws IOException {
+            Integer index = names.get(name);
+            if (index != null) {
+                out.writeInt(index);
+                return;
+            }
+            names.put(name, names.size());
+            out.writeInt(NEW_NAME);
+            out.writeUTF(name);
+        }
+
+        private void writeTime(ZonedDateTime time) throws IOException {
+            out.writeLong(time.toEpochSecond());
+            out.writeInt(time.getNano());
+            out.writeInt(time.getOffset().getTotalSeconds());
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
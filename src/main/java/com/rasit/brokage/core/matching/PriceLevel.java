@@ -0,0 +1,64 @@
+package com.rasit.brokage.core.matching;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * All resting orders of one side of a book at a single price, kept in arrival (FIFO) order.
+ * <p>
+ * Backed by a {@link LinkedHashMap} so that the head of the queue and the removal of an arbitrary
+ * order (cancel) are both O(1).
+ */
+public class PriceLevel {
+    private final long price;
+    private final Map<UUID, BookOrder> orders = new LinkedHashMap<>();
+    private long totalSize;
+
+    public PriceLevel(long price) {
+        this.price = price;
+    }
+
+    public long getPrice() {
+        return price;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public int getOrderCount() {
+        return orders.size();
+    }
+
+    public boolean isEmpty() {
+        return orders.isEmpty();
+    }
+
+    void add(BookOrder order) {
+        orders.put(order.getOrderId(), order);
+        totalSize += order.getSize();
+    }
+
+    BookOrder remove(UUID orderId) {
+        BookOrder order = orders.remove(orderId);
+        if (order != null) {
+            totalSize -= order.getSize();
+        }
+        return order;
+    }
+
+    /**
+     * @return the oldest order of this level, or null if the level is empty.
+     */
+    BookOrder peek() {
+        Iterator<BookOrder> iterator = orders.values().iterator();
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    void reduce(BookOrder order, long quantity) {
+        order.setSize(order.getSize() - quantity);
+        totalSize -= quantity;
+    }
+}
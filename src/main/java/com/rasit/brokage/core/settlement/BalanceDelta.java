@@ -0,0 +1,31 @@
+package com.rasit.brokage.core.settlement;
+
+import lombok.Getter;
+
+/**
+ * Net change of the {@code size} and {@code usableSize} of one asset of one customer, as scaled longs.
+ */
+@Getter
+public class BalanceDelta {
+    private final String customerId;
+    private final String assetKey;
+    private long size;
+    private long usableSize;
+
+    BalanceDelta(String customerId, String assetKey) {
+        this.customerId = customerId;
+        this.assetKey = assetKey;
+    }
+
+    void addToSize(long amount) {
+        size = Math.addExact(size, amount);
+    }
+
+    void addToUsableSize(long amount) {
+        usableSize = Math.addExact(usableSize, amount);
+    }
+
+    public boolean isZero() {
+        return size == 0 && usableSize == 0;
+    }
+}
@@ -0,0 +1,29 @@
+package com.rasit.brokage.core.settlement;
+
+import com.rasit.brokage.utility.StatusType;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Final state of a PENDING order touched by a match. A null status or size leaves that column as is.
+ */
+@Getter
+public class OrderUpdate {
+    private final UUID orderId;
+    private StatusType status;
+    private BigDecimal size;
+
+    OrderUpdate(UUID orderId) {
+        this.orderId = orderId;
+    }
+
+    void setStatus(StatusType status) {
+        this.status = status;
+    }
+
+    void setSize(BigDecimal size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,73 @@
+package com.rasit.brokage.core.settlement;
+
+import com.rasit.brokage.utility.AssetKey;
+import com.rasit.brokage.utility.StatusType;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Accumulates the balance and order changes of a whole match so they can be written at once.
+ * <p>
+ * Balance changes are netted per customer and asset (assets compared by their {@link AssetKey}) and
+ * only the last update of each order is kept, so the number of rows written depends on the number
+ * of distinct customers, assets and orders involved rather than on the number of fills. Balance
+ * amounts are {@link com.rasit.brokage.utility.FixedPoint} scaled longs.
+ */
+public class Settlement {
+    private final Map<List<String>, BalanceDelta> balanceDeltas = new LinkedHashMap<>();
+    private final Map<UUID, OrderUpdate> orderUpdates = new LinkedHashMap<>();
+
+    public void addToSize(String customerId, String assetName, long amount) {
+        balanceDeltaOf(customerId, assetName).addToSize(amount);
+    }
+
+    public void addToUsableSize(String customerId, String assetName, long amount) {
+        balanceDeltaOf(customerId, assetName).addToUsableSize(amount);
+    }
+
+    public void markMatched(UUID orderId) {
+        orderUpdates.computeIfAbsent(orderId, OrderUpdate::new).setStatus(StatusType.MATCHED);
+    }
+
+    public void resize(UUID orderId, BigDecimal size) {
+        orderUpdates.computeIfAbsent(orderId, OrderUpdate::new).setSize(size);
+    }
+
+    /**
+     * @return the net balance change of the customer's asset, or null if the asset was not touched.
+     */
+    public BalanceDelta getBalanceDelta(String customerId, String assetName) {
+        return balanceDeltas.get(keyOf(customerId, assetName));
+    }
+
+    /**
+     * @return net balance changes in first-touched order, without the ones that cancel out.
+     */
+    public List<BalanceDelta> getBalanceDeltas() {
+        return balanceDeltas.values().stream().filter(delta -> !delta.isZero()).toList();
+    }
+
+    /**
+     * @return the update of the order, or null if the order was not touched.
+     */
+    public OrderUpdate getOrderUpdate(UUID orderId) {
+        return orderUpdates.get(orderId);
+    }
+
+    public Collection<OrderUpdate> getOrderUpdates() {
+        return Collections.unmodifiableCollection(orderUpdates.values());
+    }
+
+    public boolean isEmpty() {
+        return getBalanceDeltas().isEmpty() && orderUpdates.isEmpty();
+    }
+
+    private BalanceDelta balanceDeltaOf(String customerId, String assetName) {
+        return balanceDeltas.computeIfAbsent(keyOf(customerId, assetName), key -> new BalanceDelta(customerId, key.get(1)));
+    }
+
+    private static List<String> keyOf(String customerId, String assetName) {
+        return List.of(customerId, AssetKey.of(assetName));
+    }
+}
@@ -17,6 +17,7 @@ import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
@@ -41,10 +42,11 @@ public class AssetController {
     }
 
     @Operation(summary = "Make requests to get all assets.", description = "Allows for query parameters to paginate the results.")
-    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Assets are retrieved.", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = AssetsRestResponseListModel.class))})})
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Assets are retrieved.", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = AssetsRestResponseListModel.class))}),
+            @ApiResponse(responseCode = "304", description = "The assets did not change since the ETag given in If-None-Match.")})
     @GetMapping(path = LIST_ENDPOINT)
-    public ResponseEntity<AssetsRestResponseListModel> getAssets(@AuthenticationPrincipal UserDetailsImpl userDetails, @Parameter(description = "Its allows Admin user to create order for customer.", example = "39aeef68-f97b-4c05-8385-cfe4c0f49b5b") @RequestHeader(value = X_CUSTOMER_ID, required = false) final String customerIdHeader, @Parameter(description = "The page number of the current results.") @RequestParam(name = BrokageConstants.PAGE_NUMBER, defaultValue = "0") @Min(value = 0, message = PAGE_NUMBER_MIN_SIZE_VIOLATION) @Max(value = 500, message = BrokageConstants.PAGE_NUMBER_MAX_SIZE_VIOLATION) Integer pageNumber, @Parameter(description = "The number of records returned with a single API call.") @RequestParam(name = BrokageConstants.PAGE_SIZE, defaultValue = "10") @Min(value = 0, message = PAGE_SIZE_MIN_SIZE_VIOLATION) @Max(value = 500, message = BrokageConstants.PAGE_SIZE_MAX_SIZE_VIOLATION) Integer pageSize) throws CustomException {
+    public ResponseEntity<AssetsRestResponseListModel> getAssets(@AuthenticationPrincipal UserDetailsImpl userDetails, @Parameter(description = "Its allows Admin user to create order for customer.", example = "39aeef68-f97b-4c05-8385-cfe4c0f49b5b") @RequestHeader(value = X_CUSTOMER_ID, required = false) final String customerIdHeader, @Parameter(description = "The page number of the current results.") @RequestParam(name = BrokageConstants.PAGE_NUMBER, defaultValue = "0") @Min(value = 0, message = PAGE_NUMBER_MIN_SIZE_VIOLATION) @Max(value = 500, message = BrokageConstants.PAGE_NUMBER_MAX_SIZE_VIOLATION) Integer pageNumber, @Parameter(description = "The number of records returned with a single API call.") @RequestParam(name = BrokageConstants.PAGE_SIZE, defaultValue = "10") @Min(value = 0, message = PAGE_SIZE_MIN_SIZE_VIOLATION) @Max(value = 500, message = BrokageConstants.PAGE_SIZE_MAX_SIZE_VIOLATION) Integer pageSize, @Parameter(description = "ETag of a previous response; the list is only sent again if it changed since.") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws CustomException {
         String targetCustomerId = resolveCustomerId(userDetails, customerIdHeader);
-        return assetService.getAssetsByCustomerId(targetCustomerId, pageNumber, pageSize);
+        return assetService.getAssetsByCustomerId(targetCustomerId, pageNumber, pageSize, ifNoneMatch);
     }
 }
\ No newline at end of file
@@ -5,13 +5,18 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rasit.brokage.rest.exception.CustomException;
 import com.rasit.brokage.rest.resource.RestErrorResponseModel;
+import com.rasit.brokage.rest.resource.order.OrderBatchRestRequestModel;
+import com.rasit.brokage.rest.resource.order.OrderBatchRestResponseModel;
 import com.rasit.brokage.rest.resource.order.OrderRestRequestModel;
 import com.rasit.brokage.rest.resource.order.OrderRestResponseModel;
+import com.rasit.brokage.rest.resource.order.OrdersCancelRestResponseModel;
 import com.rasit.brokage.rest.resource.order.OrdersRestResponseListModel;
 import com.rasit.brokage.rest.validation.AssetValidator;
-import com.rasit.brokage.rest.validation.OrderValidator;
+import com.rasit.brokage.service.OrderMatchingService;
 import com.rasit.brokage.service.OrderService;
+import com.rasit.brokage.service.OrderStream;
 import com.rasit.brokage.rest.security.UserDetailsImpl;
+import com.rasit.brokage.utility.SideType;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeIn;
@@ -30,12 +35,14 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.ZonedDateTime;
 
@@ -53,14 +60,16 @@ import static com.rasit.brokage.utility.BrokageConstants.*;
 public class OrderController {
     private static final ObjectMapper objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
     private final OrderService orderService;
+    private final OrderMatchingService orderMatchingService;
     private final AssetValidator assetValidator;
-    private final OrderValidator orderValidator;
+    private final OrderStream orderStream;
 
     @Autowired
-    public OrderController(OrderService orderService, AssetValidator assetValidator, OrderValidator orderValidator) {
+    public OrderController(OrderService orderService, OrderMatchingService orderMatchingService, AssetValidator assetValidator, OrderStream orderStream) {
         this.orderService = orderService;
+        this.orderMatchingService = orderMatchingService;
         this.assetValidator = assetValidator;
-        this.orderValidator = orderValidator;
+        this.orderStream = orderStream;
     }
 
     @Operation(summary = "Make requests to create a order.")
@@ -80,35 +89,78 @@ public class OrderController {
         return orderService.createOrder(orderRequest);
     }
 
+    @Operation(summary = "Make requests to create a basket of orders.", description = "Creates up to 500 orders of one customer in a single transaction. Orders are checked in request order and every order gets its own result, so rejected orders do not stop the others.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Per order results.", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = OrderBatchRestResponseModel.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid request payload or data.", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = RestErrorResponseModel.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized access.", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = RestErrorResponseModel.class))),
+            @ApiResponse(responseCode = "503", description = "Another request of the customer is still running.", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = RestErrorResponseModel.class)))})
+    @PostMapping(path = BATCH_ENDPOINT)
+    public ResponseEntity<OrderBatchRestResponseModel> createOrders(@AuthenticationPrincipal UserDetailsImpl userDetails, @Parameter(description = "Its allows Admin user to create orders for customer.", example = "39aeef68-f97b-4c05-8385-cfe4c0f49b5b") @RequestHeader(value = X_CUSTOMER_ID, required = false) final String customerIdHeader, @Valid @RequestBody OrderBatchRestRequestModel batchRequest) throws CustomException {
+        log.debug("Request received for CREATE {} orders", batchRequest.getOrders().size());
+
+        String targetCustomerId = resolveCustomerId(userDetails, customerIdHeader);
+        return orderService.createOrders(targetCustomerId, batchRequest.getOrders());
+    }
+
     @Operation(summary = "Make requests to get all orders by date range.", description = "Allows for query parameters to paginate the results.")
-    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Orders are retrieved.", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = OrdersRestResponseListModel.class))})})
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Orders are retrieved.", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = OrdersRestResponseListModel.class))}),
+            @ApiResponse(responseCode = "304", description = "The orders did not change since the ETag given in If-None-Match.")})
     @GetMapping(path = LIST_ENDPOINT)
     public ResponseEntity<OrdersRestResponseListModel> getOrders(@AuthenticationPrincipal UserDetailsImpl userDetails, @Parameter(description = "Its allows Admin user to list customer’s orders.", example = "39aeef68-f97b-4c05-8385-cfe4c0f49b5b") @RequestHeader(value = X_CUSTOMER_ID, required = false) final String customerIdHeader,
                                                                  @Parameter(description = "The date the order was created after (ISO 8601 format with timezone, e.g., '2025-06-01T08:24:15+0300'). " +
                                                                          "If no timezone is provided, server's default timezone will be used.", example = "2025-06-01T08:24:15+0300") @RequestParam(name = "startDate") @Pattern(regexp = "^\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}[+-]\\d{4}$", message = "Invalid startDate format. Expected: yyyy-MM-dd'T'HH:mm:ssZ") String startDate,
                                                                  @Parameter(description = "The date the order was created before (ISO 8601 format with timezone, e.g., '2025-06-08T18:00:00+0300')", example = "2025-06-08T18:00:00+0300") @RequestParam(name = "endDate") @Pattern(regexp = "^\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}[+-]\\d{4}$", message = "Invalid endDate format. Expected: yyyy-MM-dd'T'HH:mm:ssZ") String endDate,
-                                                                 @Parameter(description = "The page number of the current results.") @RequestParam(name = PAGE_NUMBER, defaultValue = "0") @Min(value = 0, message = PAGE_NUMBER_MIN_SIZE_VIOLATION) @Max(value = 500, message = PAGE_NUMBER_MAX_SIZE_VIOLATION) Integer pageNumber, @Parameter(description = "The number of records returned with a single API call.") @RequestParam(name = PAGE_SIZE, defaultValue = "10") @Min(value = 0, message = PAGE_SIZE_MIN_SIZE_VIOLATION) @Max(value = 500, message = PAGE_SIZE_MAX_SIZE_VIOLATION) Integer pageSize) throws CustomException {
+                                                                 @Parameter(description = "The page number of the current results.") @RequestParam(name = PAGE_NUMBER, defaultValue = "0") @Min(value = 0, message = PAGE_NUMBER_MIN_SIZE_VIOLATION) @Max(value = 500, message = PAGE_NUMBER_MAX_SIZE_VIOLATION) Integer pageNumber, @Parameter(description = "The number of records returned with a single API call.") @RequestParam(name = PAGE_SIZE, defaultValue = "10") @Min(value = 0, message = PAGE_SIZE_MIN_SIZE_VIOLATION) @Max(value = 500, message = PAGE_SIZE_MAX_SIZE_VIOLATION) Integer pageSize,
+                                                                 @Parameter(description = "Switches to continuation token paging, where page_number is ignored and every page costs the same. Pass an empty value for the first page and the continuation_token of the previous response for the next ones.") @RequestParam(name = CONTINUATION_TOKEN, required = false) String continuationToken,
+                                                                 @Parameter(description = "ETag of a previous response; the list is only sent again if it changed since.") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws CustomException {
         String targetCustomerId = resolveCustomerId(userDetails, customerIdHeader);
-        return orderService.getOrdersByCustomerIdAndDate(targetCustomerId, ZonedDateTime.parse(startDate, timeFormatter), ZonedDateTime.parse(endDate, timeFormatter), pageNumber, pageSize);
+        if (continuationToken != null) {
+            return orderService.getOrdersByCustomerIdAndDate(targetCustomerId, ZonedDateTime.parse(startDate, timeFormatter), ZonedDateTime.parse(endDate, timeFormatter), continuationToken, pageSize, ifNoneMatch);
+        }
+        return orderService.getOrdersByCustomerIdAndDate(targetCustomerId, ZonedDateTime.parse(startDate, timeFormatter), ZonedDateTime.parse(endDate, timeFormatter), pageNumber, pageSize, ifNoneMatch);
     }
 
+    @Operation(summary = "Make requests to stream order and balance changes.", description = "Opens a Server-Sent Events stream of the customer. Every committed change of an order is sent as an 'order' event and every change of a balance as a 'balance' event. " +
+            "A client that does not keep up either misses events, announced by a 'dropped' event with their count, or is disconnected, depending on the server configuration; it should reload its lists after either.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Stream is open.", content = {@Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)}),
+            @ApiResponse(responseCode = "401", description = "Unauthorized access.", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = RestErrorResponseModel.class)))})
+    @GetMapping(path = STREAM_ENDPOINT, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrders(@AuthenticationPrincipal UserDetailsImpl userDetails, @Parameter(description = "Its allows Admin user to stream customer’s orders.", example = "39aeef68-f97b-4c05-8385-cfe4c0f49b5b") @RequestHeader(value = X_CUSTOMER_ID, required = false) final String customerIdHeader) throws CustomException {
+        String targetCustomerId = resolveCustomerId(userDetails, customerIdHeader);
+        log.debug("Request received for streaming orders of customer {}", targetCustomerId);
+        return orderStream.subscribe(targetCustomerId);
+    }
 
     @Operation(summary = "Make requests to cancel a order.")
     @ApiResponses(value = {@ApiResponse(responseCode = "204", description = "Order is canceled."),
             @ApiResponse(responseCode = "400", description = "Invalid request payload or data.", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = RestErrorResponseModel.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized access.", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = RestErrorResponseModel.class))),
             @ApiResponse(responseCode = "403", description = "Forbidden. Insufficient permissions.", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = RestErrorResponseModel.class))),
-            @ApiResponse(responseCode = "404", description = "Order not found.", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = RestErrorResponseModel.class))})})
+            @ApiResponse(responseCode = "404", description = "Order not found.", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = RestErrorResponseModel.class))}),
+            @ApiResponse(responseCode = "503", description = "Another request of the customer is still running.", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = RestErrorResponseModel.class)))})
     @ApiResponse(responseCode = "500", description = "Internal Server Error.", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = RestErrorResponseModel.class)))
     @DeleteMapping
     public ResponseEntity<Object> deleteOrder(@AuthenticationPrincipal UserDetailsImpl userDetails, @Parameter(description = "Order identifier") @NotBlank @RequestParam(name = ORDERID) final String orderId) throws CustomException {
         log.debug("Request received for cancel order is {}", orderId);
 
-        orderValidator.validateOrderExistenceAndOwnership(orderId, isAdmin(userDetails) ? null : userDetails.getId().toString());
-        return orderService.cancelOrder(orderId);
+        return orderService.cancelOrder(orderId, isAdmin(userDetails) ? null : userDetails.getId().toString());
     }
 
 
+    @Operation(summary = "Make requests to cancel all pending orders.", description = "Cancels every PENDING order of the customer, optionally only those of one asset and/or side, and releases their usable sizes in one transaction.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Orders are canceled.", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = OrdersCancelRestResponseModel.class))}),
+            @ApiResponse(responseCode = "401", description = "Unauthorized access.", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = RestErrorResponseModel.class))),
+            @ApiResponse(responseCode = "503", description = "Another request of the customer is still running.", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = RestErrorResponseModel.class)))})
+    @DeleteMapping(path = ALL_ENDPOINT)
+    public ResponseEntity<OrdersCancelRestResponseModel> deleteOrders(@AuthenticationPrincipal UserDetailsImpl userDetails, @Parameter(description = "Its allows Admin user to cancel customer’s orders.", example = "39aeef68-f97b-4c05-8385-cfe4c0f49b5b") @RequestHeader(value = X_CUSTOMER_ID, required = false) final String customerIdHeader,
+                                                                      @Parameter(description = "Only cancel orders of this asset.", example = "GOLD") @RequestParam(name = ASSET_NAME, required = false) String assetName,
+                                                                      @Parameter(description = "Only cancel orders of this side.", example = "BUY") @RequestParam(name = ORDER_SIDE, required = false) SideType orderSide) throws CustomException {
+        log.debug("Request received for cancel all orders, asset: {}, side: {}", assetName, orderSide);
+
+        String targetCustomerId = resolveCustomerId(userDetails, customerIdHeader);
+        return orderService.cancelOrders(targetCustomerId, assetName, orderSide);
+    }
+
     @Operation(
             summary = "Admin: Match a Pending Order",
             description = "Allows an administrator to manually match a pending stock order. " +
@@ -119,11 +171,12 @@ public class OrderController {
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
-                    description = "Order successfully matched and assets updated.", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = OrdersRestResponseListModel.class), examples = {@ExampleObject(value = "")})}), @ApiResponse(responseCode = "404", description = "Asset not found.", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = RestErrorResponseModel.class))})})
+                    description = "Order successfully matched and assets updated.", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = OrdersRestResponseListModel.class), examples = {@ExampleObject(value = "")})}), @ApiResponse(responseCode = "404", description = "Asset not found.", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = RestErrorResponseModel.class))}),
+            @ApiResponse(responseCode = "503", description = "Matching engine of the asset is busy.", content = {@Content(mediaType = "application/json", schema = @Schema(implementation = RestErrorResponseModel.class))})})
     @PreAuthorize("hasAuthority('ADMIN')")
     @PostMapping(path = MATCH_ENDPOINT)
     public ResponseEntity<OrdersRestResponseListModel> matchOrders(@Parameter(description = "Order identifier that will be matched") @NotBlank @RequestParam(name = ORDERID) final String orderId) throws CustomException {
         log.debug("Received request to match order with ID: {}", orderId);
-        return orderService.matchOrders(orderId);
+        return orderMatchingService.matchOrders(orderId);
     }
 }
\ No newline at end of file
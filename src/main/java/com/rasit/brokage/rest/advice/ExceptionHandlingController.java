@@ -27,7 +27,6 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import static com.rasit.brokage.utility.ErrorMessageType.VIOLATION_ERROR;
@@ -106,13 +105,7 @@ public class ExceptionHandlingController {
     @ResponseStatus()
     public ResponseEntity<RestErrorResponseModel> handleCustomException(final CustomException ex) {
         log.error("CustomException was uncaught by application: ", ex);
-        HttpStatus statusCode = ex.getStatusCode();
-        String messageId = ex.getErrorMessageType().getMessageId();
-        String text = ex.getErrorMessageType().getText();
-        List<SubErrorResponseModel> listSubErrorResponseModels = new ArrayList<>();
-        Arrays.stream(ex.getVariables()).forEach(variables -> listSubErrorResponseModels.add(new SubErrorResponseModel(variables)));
-        final RestErrorResponseModel response = new RestErrorResponseModel(messageId, text, listSubErrorResponseModels);
-        return ResponseEntity.status(statusCode).body(response);
+        return ResponseEntity.status(ex.getStatusCode()).body(RestErrorResponseModel.of(ex));
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
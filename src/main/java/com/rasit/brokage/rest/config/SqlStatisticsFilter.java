@@ -0,0 +1,67 @@
+package com.rasit.brokage.rest.config;
+
+import com.rasit.brokage.core.data.statistics.SqlStatistics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Collects the SQL statements of every request, including those of the security filters, and logs
+ * their totals by route and DAO method once the request completes.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+    private final boolean enabled;
+
+    public SqlStatisticsFilter(@Value("${brokage.sql.statistics.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        SqlStatistics statistics = SqlStatistics.begin(() -> routeOf(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatistics.end();
+            if (statistics.getStatementCount() > 0) {
+                log.atInfo()
+                        .setMessage("{} issued {} SQL statements touching {} rows in {} ms")
+                        .addArgument(statistics::getRoute)
+                        .addArgument(statistics.getStatementCount())
+                        .addArgument(statistics.getRowCount())
+                        .addArgument(statistics.getElapsedMillis())
+                        .addKeyValue("sql.route", statistics.getRoute())
+                        .addKeyValue("sql.status", response.getStatus())
+                        .addKeyValue("sql.statements", statistics.getStatementCount())
+                        .addKeyValue("sql.rows", statistics.getRowCount())
+                        .addKeyValue("sql.elapsed_ms", statistics.getElapsedMillis())
+                        .addKeyValue("sql.dao_methods", statistics.getTotalsByDaoMethod())
+                        .log();
+            }
+        }
+    }
+
+    private static String routeOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+}
@@ -1,8 +1,10 @@
 package com.rasit.brokage.rest.resource;
 
+import com.rasit.brokage.rest.exception.CustomException;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -22,4 +24,9 @@ public class RestErrorResponseModel implements BaseRestModel {
         super();
         this.text = text;
     }
+
+    public static RestErrorResponseModel of(CustomException ex) {
+        List<SubErrorResponseModel> subErrors = Arrays.stream(ex.getVariables()).map(SubErrorResponseModel::new).toList();
+        return new RestErrorResponseModel(ex.getErrorMessageType().getMessageId(), ex.getErrorMessageType().getText(), subErrors);
+    }
 }
\ No newline at end of file
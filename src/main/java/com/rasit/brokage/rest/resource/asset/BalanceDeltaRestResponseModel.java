@@ -0,0 +1,26 @@
+package com.rasit.brokage.rest.resource.asset;
+
+import com.rasit.brokage.rest.resource.BaseRestModel;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Schema(description = "Change of the balance of one asset of a customer.")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceDeltaRestResponseModel implements BaseRestModel {
+
+    private String customerId;
+
+    private String assetName;
+
+    @Schema(description = "Amount added to the size, negative when it went down.")
+    private BigDecimal size;
+
+    @Schema(description = "Amount added to the usable size, negative when it went down.")
+    private BigDecimal usableSize;
+}
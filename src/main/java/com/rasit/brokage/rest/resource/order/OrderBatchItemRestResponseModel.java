@@ -0,0 +1,30 @@
+package com.rasit.brokage.rest.resource.order;
+
+import com.rasit.brokage.rest.resource.BaseRestModel;
+import com.rasit.brokage.rest.resource.RestErrorResponseModel;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Schema(description = "Outcome of one order of a batch.")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderBatchItemRestResponseModel implements BaseRestModel {
+
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "Position of the order in the request.", example = "0")
+    private int index;
+
+    @Schema(description = "HTTP status the order would have got as a single create request.", example = "201")
+    private int status;
+
+    @Schema(description = "The created order, set when status is 201.")
+    private OrderRestResponseModel order;
+
+    @Schema(description = "Why the order was rejected, set otherwise.")
+    private RestErrorResponseModel error;
+}
@@ -0,0 +1,27 @@
+package com.rasit.brokage.rest.resource.order;
+
+import com.rasit.brokage.rest.resource.BaseRestModel;
+import com.rasit.brokage.utility.BrokageConstants;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+@Schema(description = "Basket of new orders created in one request.")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderBatchRestRequestModel implements BaseRestModel {
+
+    @Schema(description = "Orders to create, in the order they should enter the books.")
+    @NotEmpty(message = BrokageConstants.ORDER_BATCH_EMPTY_VIOLATION)
+    @Size(max = 500, message = BrokageConstants.ORDER_BATCH_SIZE_VIOLATION)
+    @Valid
+    private List<OrderRestRequestModel> orders;
+}
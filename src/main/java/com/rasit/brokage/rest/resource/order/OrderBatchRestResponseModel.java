@@ -0,0 +1,28 @@
+package com.rasit.brokage.rest.resource.order;
+
+import com.rasit.brokage.rest.resource.BaseRestModel;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+
+@Schema(description = "Per order results of a batch, in request order.")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderBatchRestResponseModel implements BaseRestModel {
+
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "Number of orders created.")
+    private int createdCount;
+
+    @Schema(description = "Number of orders rejected.")
+    private int rejectedCount;
+
+    @Schema(description = "One result per requested order.")
+    private List<OrderBatchItemRestResponseModel> results;
+}
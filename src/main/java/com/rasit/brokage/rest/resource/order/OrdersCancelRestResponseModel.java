@@ -0,0 +1,20 @@
+package com.rasit.brokage.rest.resource.order;
+
+import com.rasit.brokage.rest.resource.BaseRestModel;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+
+@Schema(description = "Result of a bulk cancel.")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrdersCancelRestResponseModel implements BaseRestModel {
+
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "Number of PENDING orders that were canceled.", example = "12")
+    private int canceledCount;
+}
@@ -2,6 +2,8 @@ package com.rasit.brokage.rest.resource.order;
 
 import com.rasit.brokage.rest.resource.BaseListRestResponseModel;
 import com.rasit.brokage.rest.resource.BaseRestModel;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 
@@ -16,6 +18,11 @@ public class OrdersRestResponseListModel extends BaseListRestResponseModel imple
     @Schema(description = "Orders information.")
     private List<OrderRestResponseModel> orderRestResponseModels;
 
+    @Schema(description = "Token to pass as continuation_token for the next page. Only set for continuation token requests when more orders follow.")
+    @JsonProperty("continuation_token")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String continuationToken;
+
     public OrdersRestResponseListModel() {
         orderRestResponseModels = new ArrayList<>();
     }
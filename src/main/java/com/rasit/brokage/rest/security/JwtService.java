@@ -4,21 +4,24 @@ import com.rasit.brokage.core.data.entity.CustomerEntity;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
+import javax.crypto.SecretKey;
+import java.util.*;
 import java.util.function.Function;
 
 @Service
 @Slf4j
 public class JwtService {
+    public static final String CUSTOMER_ID_CLAIM = "customerId";
+    public static final String ROLES_CLAIM = "roles";
+
     @Value("${token.signing.key}")
     private String jwtSigningKey;
 
@@ -31,57 +34,106 @@ public class JwtService {
     @Value("${token.refresh.token.expiration}")
     private long refreshTokenExpiration;
 
+    private SecretKey accessKey;
+    private SecretKey refreshKey;
+    private JwtParser accessParser;
+    private JwtParser refreshParser;
+
+    /**
+     * Decodes the signing keys and builds their parsers once. Both are immutable and thread-safe.
+     */
+    @PostConstruct
+    void init() {
+        accessKey = getSignInKey(jwtSigningKey);
+        refreshKey = getSignInKey(jwtRefreshSigningKey);
+        accessParser = Jwts.parser().verifyWith(accessKey).build();
+        refreshParser = Jwts.parser().verifyWith(refreshKey).build();
+    }
 
-    private String extractUserName(String token, String signingKey) {
-        return extractClaim(token, Claims::getSubject, signingKey);
+    private String extractUserName(String token, JwtParser parser) {
+        return extractClaim(token, Claims::getSubject, parser);
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver, String signingKey) {
-        final Claims claims = extractAllClaims(token, signingKey);
+    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver, JwtParser parser) {
+        final Claims claims = extractAllClaims(token, parser);
         return claimsResolver.apply(claims);
     }
 
     public String generateToken(CustomerEntity customer) {
-        return Jwts.builder().setSubject(customer.getUsername()).claim("roles", customer.getAuthorities()).setIssuedAt(new Date(System.currentTimeMillis())).setExpiration(new Date(System.currentTimeMillis() + accessTokenExpiration)).signWith(getSignInKey(jwtSigningKey), SignatureAlgorithm.HS256).compact();
+        return Jwts.builder().setSubject(customer.getUsername()).claim(CUSTOMER_ID_CLAIM, String.valueOf(customer.getId())).claim(ROLES_CLAIM, customer.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList()).setIssuedAt(new Date(System.currentTimeMillis())).setExpiration(new Date(System.currentTimeMillis() + accessTokenExpiration)).signWith(accessKey, SignatureAlgorithm.HS256).compact();
     }
 
-    private Claims extractAllClaims(String token, String signingKey) {
-        return Jwts.parser().setSigningKey(getSignInKey(signingKey)).build().parseClaimsJws(token).getBody();
+    private Claims extractAllClaims(String token, JwtParser parser) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
-    private Key getSignInKey(String signingKey) {
+    private SecretKey getSignInKey(String signingKey) {
         byte[] keyBytes = Decoders.BASE64.decode(signingKey);
         return Keys.hmacShaKeyFor(keyBytes);
     }
 
     public String generateRefresh(Map<String, Objects> extraClaims, UserDetails userDetails) {
-        return Jwts.builder().setClaims(extraClaims).setSubject(userDetails.getUsername()).setIssuedAt(new Date(System.currentTimeMillis())).setExpiration(new Date(System.currentTimeMillis() + refreshTokenExpiration)).signWith(getSignInKey(jwtRefreshSigningKey), SignatureAlgorithm.HS256).compact();
+        return Jwts.builder().setClaims(extraClaims).setSubject(userDetails.getUsername()).setIssuedAt(new Date(System.currentTimeMillis())).setExpiration(new Date(System.currentTimeMillis() + refreshTokenExpiration)).signWith(refreshKey, SignatureAlgorithm.HS256).compact();
     }
 
     public String getUsernameFromToken(String token) {
-        return getUsernameFromToken(token, jwtSigningKey);
+        return extractUserName(token, accessParser);
     }
 
     public String getUsernameFromRefreshToken(String token) {
-        return getUsernameFromToken(token, jwtRefreshSigningKey);
-    }
-
-    private String getUsernameFromToken(String token, String signingKey) {
-        return extractUserName(token, signingKey);
+        return extractUserName(token, refreshParser);
     }
 
     public boolean validateToken(String token) {
-        return validateToken(token, jwtSigningKey);
+        return validateAndExtractClaims(token, accessParser) != null;
     }
 
     public boolean validateRefreshToken(String token) {
-        return validateToken(token, jwtRefreshSigningKey);
+        return validateAndExtractClaims(token, refreshParser) != null;
+    }
+
+    /**
+     * Verifies an access token and returns its claims with a single parse.
+     *
+     * @param token the compact access token.
+     * @return the verified claims, or null if the token is invalid or expired.
+     */
+    public Claims validateAndExtractClaims(String token) {
+        return validateAndExtractClaims(token, accessParser);
+    }
+
+    /**
+     * Builds the principal straight from the claims of a verified access token, without loading the
+     * customer. Tokens issued before the customer id and role names were embedded yield null.
+     *
+     * @param claims verified access token claims.
+     * @return the principal, or null if the claims do not carry a customer id and roles.
+     */
+    public UserDetailsImpl extractUserDetails(Claims claims) {
+        String customerId = claims.get(CUSTOMER_ID_CLAIM, String.class);
+        Object roles = claims.get(ROLES_CLAIM);
+        if (customerId == null || !(roles instanceof Collection<?> roleNames)) {
+            return null;
+        }
+
+        List<GrantedAuthority> authorities = new ArrayList<>(roleNames.size());
+        for (Object role : roleNames) {
+            if (!(role instanceof String roleName)) {
+                return null;
+            }
+            authorities.add(new SimpleGrantedAuthority(roleName));
+        }
+        try {
+            return new UserDetailsImpl(UUID.fromString(customerId), claims.getSubject(), null, authorities);
+        } catch (IllegalArgumentException e) {
+            log.error("JWT customer id claim is invalid: {}", e.getMessage());
+            return null;
+        }
     }
 
-    private boolean validateToken(String token, String signingKey) {
+    private Claims validateAndExtractClaims(String token, JwtParser parser) {
         try {
-            Jwts.parser().setSigningKey(getSignInKey(signingKey)).build().parse(token);
-            return true;
+            return extractAllClaims(token, parser);
         } catch (SignatureException e) {
             log.error("JWT signature does not match locally computed signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -94,6 +146,6 @@ public class JwtService {
             log.error("JWT claims string is empty: {}", e.getMessage());
         }
 
-        return false;
+        return null;
     }
 }
@@ -1,26 +1,82 @@
 package com.rasit.brokage.rest.security;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.rasit.brokage.core.data.CustomerDao;
 import com.rasit.brokage.core.data.entity.CustomerEntity;
+import com.rasit.brokage.core.data.event.CustomerChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Loads principals by username through a size bounded cache whose entries expire after a fixed
+ * time. Concurrent lookups of the same username load the customer once. Entries are dropped as
+ * soon as a change of their customer is committed.
+ */
 @Service
+@Slf4j
 public class UserDetailsServiceImpl implements UserDetailsService {
     private final CustomerDao customerDao;
+    private final Cache<String, UserDetailsImpl> cache;
 
-    public UserDetailsServiceImpl(CustomerDao customerDao) {
+    public UserDetailsServiceImpl(CustomerDao customerDao,
+                                  @Value("${token.user-cache.maximum-size:10000}") long maximumSize,
+                                  @Value("${token.user-cache.ttl:60s}") Duration ttl,
+                                  MeterRegistry meterRegistry) {
         this.customerDao = customerDao;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "brokage.user-details");
     }
 
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        try {
+            return cache.get(username, () -> load(username));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof UsernameNotFoundException notFound) {
+                throw notFound;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Drops the cached principal of a changed customer, including entries cached under a previous
+     * username, or every entry when all customers were removed.
+     *
+     * @param event the committed customer change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        if (event.getCustomerId() == null) {
+            cache.invalidateAll();
+            return;
+        }
+        cache.invalidate(event.getUsername());
+        cache.asMap().values().removeIf(userDetails -> event.getCustomerId().equals(userDetails.getId()));
+    }
+
+    private UserDetailsImpl load(String username) {
         CustomerEntity user = customerDao.findByUsername(username).orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
 
         return UserDetailsImpl.build(user);
     }
-}
\ No newline at end of file
+}
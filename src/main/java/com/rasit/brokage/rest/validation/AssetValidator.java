@@ -4,6 +4,7 @@ import com.rasit.brokage.core.data.AssetDao;
 import com.rasit.brokage.core.data.entity.AssetEntity;
 import com.rasit.brokage.rest.exception.CustomException;
 import com.rasit.brokage.utility.ErrorMessageType;
+import com.rasit.brokage.utility.FixedPoint;
 import com.rasit.brokage.utility.SideType;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,8 +14,6 @@ import org.springframework.validation.annotation.Validated;
 
 import java.math.BigDecimal;
 
-import static com.rasit.brokage.utility.BrokageConstants.TRY_ASSET_NAME;
-
 
 /**
  * Validator for asset details,
@@ -24,10 +23,12 @@ import static com.rasit.brokage.utility.BrokageConstants.TRY_ASSET_NAME;
 @Validated
 public class AssetValidator {
     private final AssetDao assetDao;
+    private final FixedPoint fixedPoint;
 
     @Autowired
-    public AssetValidator(final AssetDao assetDao) {
+    public AssetValidator(final AssetDao assetDao, final FixedPoint fixedPoint) {
         this.assetDao = assetDao;
+        this.fixedPoint = fixedPoint;
     }
 
     /**
@@ -49,39 +50,60 @@ public class AssetValidator {
     }
 
     /**
-     * Validates if a customer has enough usable assets for a given order.
-     * This method handles both BUY (checking TRY balance) and SELL (checking stock balance) sides.
+     * Calculates the usable amount an order has to reserve: the TRY cost for BUY orders and the size
+     * of the traded asset for SELL orders.
      *
-     * @param customerId The unique ID of the customer.
      * @param orderSize  The quantity of shares/units in the order.
      * @param orderPrice The price per share/unit (relevant for BUY orders).
      * @param orderSide  The side of the order (BUY or SELL).
-     * @param assetName  The name of the asset being traded (e.g., "AAPL", "XU100").
-     * @throws CustomException if the customer does not have enough usable assets.
+     * @return the amount as a {@link FixedPoint} scaled long.
+     * @throws CustomException if size or price cannot be represented with the configured number of decimals.
      */
-    public void checkCustomerHaveEnoughAsset(String customerId, BigDecimal orderSize, BigDecimal orderPrice, SideType orderSide, String assetName) throws CustomException {
-        String assetToCheckName;
-        BigDecimal requiredAmount;
-
+    public long requiredUsableAmount(BigDecimal orderSize, BigDecimal orderPrice, SideType orderSide) throws CustomException {
         if (orderSide.equals(SideType.BUY)) {
-            assetToCheckName = TRY_ASSET_NAME;
-            requiredAmount = orderSize.multiply(orderPrice);
-        } else {
-            assetToCheckName = assetName;
-            requiredAmount = orderSize;
+            return multiply(orderSize, orderPrice);
         }
+        return toFixedPoint(orderSize);
+    }
 
-        AssetEntity asset = assetDao.findAssetByCustomerIdAndName(customerId, assetToCheckName);
+    /**
+     * Builds the error for an order whose reservation was refused, reporting the usable size the
+     * customer has left.
+     *
+     * @param customerId The unique ID of the customer.
+     * @param assetName  The asset the order tried to reserve from (TRY for BUY orders).
+     * @return ASSET_USABLE_SIZE_NOT_ENOUGH error.
+     */
+    public CustomException usableSizeNotEnough(String customerId, String assetName) {
+        AssetEntity asset = assetDao.findAssetByCustomerIdAndName(customerId, assetName);
+        BigDecimal usableSize = asset == null ? BigDecimal.ZERO : asset.getUsableSize();
+        log.debug("Customer {} does NOT have enough usable {}. Usable: {}", customerId, assetName, usableSize);
+        return new CustomException(ErrorMessageType.ASSET_USABLE_SIZE_NOT_ENOUGH,
+                new String[]{assetName, String.valueOf(usableSize)},
+                HttpStatus.BAD_REQUEST);
+    }
+
+    private long toFixedPoint(BigDecimal amount) throws CustomException {
+        try {
+            return fixedPoint.fromDecimal(amount);
+        } catch (ArithmeticException e) {
+            throw notRepresentable(amount);
+        }
+    }
 
-        if (requiredAmount.compareTo(asset.getUsableSize()) > 0) {
-            log.debug("Customer {} does NOT have enough usable {}. Required: {}, Usable: {}",
-                    customerId, assetToCheckName, requiredAmount, asset.getUsableSize());
-            throw new CustomException(ErrorMessageType.ASSET_USABLE_SIZE_NOT_ENOUGH,
-                    new String[]{assetToCheckName, String.valueOf(asset.getUsableSize())},
-                    HttpStatus.BAD_REQUEST);
+    private long multiply(BigDecimal orderSize, BigDecimal orderPrice) throws CustomException {
+        long size = toFixedPoint(orderSize);
+        long price = toFixedPoint(orderPrice);
+        try {
+            return fixedPoint.multiply(size, price);
+        } catch (ArithmeticException e) {
+            throw notRepresentable(orderSize.multiply(orderPrice));
         }
+    }
 
-        log.debug("Customer {} has enough usable {}. Required: {}, Usable: {}",
-                customerId, assetToCheckName, requiredAmount, asset.getUsableSize());
+    private CustomException notRepresentable(BigDecimal amount) {
+        return new CustomException(ErrorMessageType.AMOUNT_NOT_REPRESENTABLE,
+                new String[]{amount.toPlainString(), String.valueOf(fixedPoint.getScale())},
+                HttpStatus.BAD_REQUEST);
     }
 }
@@ -1,51 +1,135 @@
 package com.rasit.brokage.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.rasit.brokage.rest.converter.AssetConverter;
 import com.rasit.brokage.core.data.AssetDao;
 import com.rasit.brokage.core.data.entity.AssetEntity;
+import com.rasit.brokage.core.data.event.AssetsChangedEvent;
 import com.rasit.brokage.rest.resource.asset.AssetRestResponseModel;
 import com.rasit.brokage.rest.resource.asset.AssetsRestResponseListModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
 
+/**
+ * Serves asset lists from a size bounded cache of customer portfolios whose entries expire after
+ * a fixed time. A portfolio is loaded with one query and paged in memory, and dropped as soon as a
+ * change of the customer's assets is committed.
+ */
 @Service
 @Slf4j
 public class AssetService {
+    private static final int VERSION_STRIPES = 1024;
 
     private final AssetDao assetDao;
     private final AssetConverter assetConverter;
+    private final CustomerVersions customerVersions;
+    private final Cache<String, List<AssetRestResponseModel>> portfolios;
+    /**
+     * Invalidations per customer stripe, so a portfolio read before a commit is not cached after
+     * the commit dropped it.
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
 
     @Autowired
-    public AssetService(AssetDao assetDao, AssetConverter assetConverter) {
+    public AssetService(AssetDao assetDao, AssetConverter assetConverter, CustomerVersions customerVersions,
+                        @Value("${brokage.portfolio-cache.maximum-size:10000}") long maximumSize,
+                        @Value("${brokage.portfolio-cache.ttl:300s}") Duration ttl,
+                        MeterRegistry meterRegistry) {
         this.assetDao = assetDao;
         this.assetConverter = assetConverter;
+        this.customerVersions = customerVersions;
+        this.portfolios = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, portfolios, "brokage.portfolio");
     }
 
-    public ResponseEntity<AssetsRestResponseListModel> getAssetsByCustomerId(String customerId, Integer pageNumber, Integer pageSize) {
+    /**
+     * Lists a page of the customer's assets. Answers 304 without loading anything when the client
+     * already holds the current page.
+     *
+     * @param ifNoneMatch value of the If-None-Match header, may be null.
+     */
+    public ResponseEntity<AssetsRestResponseListModel> getAssetsByCustomerId(String customerId, Integer pageNumber, Integer pageSize, String ifNoneMatch) {
 
         log.debug("getAssetsByCustomerId method starting for pageNumber: {}, pageSize: {}, customerId: {}",
                 pageNumber, pageSize, customerId);
 
-        Pageable paging = PageRequest.of(pageNumber, pageSize);
+        String eTag = customerVersions.getAssetsETag(customerId, pageNumber, pageSize);
+        if (CustomerVersions.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
 
-        Page<AssetEntity> pagedResult = assetDao.findAssetsByCustomerId(customerId, paging);
+        List<AssetRestResponseModel> portfolio = getPortfolio(customerId);
+        long from = (long) pageNumber * pageSize;
 
-        if (pagedResult.hasContent()) {
-            List<AssetEntity> assets = pagedResult.getContent();
-            List<AssetRestResponseModel> assetRestResponseModels = assetConverter.toResourceList(assets);
-            AssetsRestResponseListModel resourceList = new AssetsRestResponseListModel(assetRestResponseModels, pagedResult.getTotalPages(), pageNumber,
-                    pageSize, pagedResult.getTotalElements());
-            return new ResponseEntity<>(resourceList, HttpStatus.OK);
+        if (from < portfolio.size()) {
+            List<AssetRestResponseModel> assetRestResponseModels = portfolio.subList((int) from, (int) Math.min(from + pageSize, portfolio.size()));
+            int totalPages = (portfolio.size() + pageSize - 1) / pageSize;
+            AssetsRestResponseListModel resourceList = new AssetsRestResponseListModel(assetRestResponseModels, totalPages, pageNumber,
+                    pageSize, portfolio.size());
+            return ResponseEntity.ok().eTag(eTag).body(resourceList);
         } else {
-            return new ResponseEntity<>(new AssetsRestResponseListModel(), HttpStatus.OK);
+            return ResponseEntity.ok().eTag(eTag).body(new AssetsRestResponseListModel());
+        }
+    }
+
+    /**
+     * Drops the cached portfolios of the customers whose assets changed, or every portfolio when
+     * all assets were removed.
+     *
+     * @param event the committed asset change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetsChanged(AssetsChangedEvent event) {
+        if (event.getCustomerIds() == null) {
+            for (int stripe = 0; stripe < VERSION_STRIPES; stripe++) {
+                versions.incrementAndGet(stripe);
+            }
+            portfolios.invalidateAll();
+            return;
+        }
+        for (String customerId : event.getCustomerIds()) {
+            versions.incrementAndGet(stripeOf(customerId));
+            portfolios.invalidate(customerId);
+        }
+    }
+
+    private List<AssetRestResponseModel> getPortfolio(String customerId) {
+        List<AssetRestResponseModel> portfolio = portfolios.getIfPresent(customerId);
+        if (portfolio != null) {
+            return portfolio;
+        }
+
+        int stripe = stripeOf(customerId);
+        long version = versions.get(stripe);
+        List<AssetEntity> assets = assetDao.findAssetsByCustomerId(customerId);
+        portfolio = assets.isEmpty() ? List.of() : List.copyOf(assetConverter.toResourceList(assets));
+        if (versions.get(stripe) == version) {
+            portfolios.put(customerId, portfolio);
+            // An invalidation between the check and the put may have missed the new entry
+            if (versions.get(stripe) != version) {
+                portfolios.invalidate(customerId);
+            }
         }
+        return portfolio;
+    }
+
+    private static int stripeOf(String customerId) {
+        return Math.floorMod(customerId.hashCode(), VERSION_STRIPES);
     }
-}
\ No newline at end of file
+}
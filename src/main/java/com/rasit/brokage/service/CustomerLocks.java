@@ -0,0 +1,120 @@
+package com.rasit.brokage.service;
+
+import com.google.common.util.concurrent.Striped;
+import com.rasit.brokage.rest.exception.CustomException;
+import com.rasit.brokage.utility.ErrorMessageType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Serializes the balance changing work of a customer in memory.
+ * <p>
+ * Customer ids are hashed onto a fixed set of striped locks, so requests of the same customer wait
+ * for each other here instead of on the row locks of their {@code assets} rows, while requests of
+ * different customers almost always get different stripes and run in parallel. Inside a transaction
+ * the lock is held until it commits or rolls back, so the next request of the customer never meets
+ * uncommitted balance updates.
+ */
+@Component
+@Slf4j
+public class CustomerLocks {
+
+    private final Striped<Lock> locks;
+    private final long timeoutMillis;
+    private final Timer waitTimer;
+    private final Timer holdTimer;
+
+    public CustomerLocks(@Value("${brokage.customer-lock.stripes:1024}") int stripes,
+                         @Value("${brokage.customer-lock.timeout-ms:5000}") long timeoutMillis,
+                         MeterRegistry meterRegistry) {
+        this.locks = Striped.lock(stripes);
+        this.timeoutMillis = timeoutMillis;
+        this.waitTimer = Timer.builder("brokage.customer.lock.wait")
+                .description("Time spent waiting for the lock of a customer")
+                .register(meterRegistry);
+        this.holdTimer = Timer.builder("brokage.customer.lock.hold")
+                .description("Time the lock of a customer was held, up to the end of its transaction")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the work while holding the lock of the customer. When a transaction is active the lock
+     * is released once it commits or rolls back, ahead of any after-commit listener such as
+     * auto-matching, otherwise as soon as the work returns.
+     *
+     * @param customerId customer whose lock is taken.
+     * @param work       the work to run.
+     * @return result of the work.
+     * @throws CustomException if the lock is not free within the timeout or the work throws it.
+     */
+    public <T> T withLock(String customerId, LockedWork<T> work) throws CustomException {
+        Lock lock = locks.get(customerId);
+        long waitStart = System.nanoTime();
+        if (!tryLock(lock)) {
+            waitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+            log.warn("Lock of customer {} not acquired within {} ms", customerId, timeoutMillis);
+            throw new CustomException(ErrorMessageType.CUSTOMER_BUSY, new String[]{customerId}, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        long holdStart = System.nanoTime();
+        waitTimer.record(holdStart - waitStart, TimeUnit.NANOSECONDS);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                return work.run();
+            } finally {
+                unlock(lock, holdStart);
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void afterCommit() {
+                unlock(lock, holdStart);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    unlock(lock, holdStart);
+                }
+            }
+        });
+        return work.run();
+    }
+
+    private boolean tryLock(Lock lock) {
+        try {
+            return lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void unlock(Lock lock, long holdStart) {
+        lock.unlock();
+        holdTimer.record(System.nanoTime() - holdStart, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Work run under the lock of a customer.
+     */
+    @FunctionalInterface
+    public interface LockedWork<T> {
+        T run() throws CustomException;
+    }
+}
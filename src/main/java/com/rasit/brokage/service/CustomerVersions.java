@@ -0,0 +1,111 @@
+package com.rasit.brokage.service;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.rasit.brokage.core.data.event.AssetsChangedEvent;
+import com.rasit.brokage.core.data.event.OrdersChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Monotonic version counters of the assets and of the orders of every customer, bumped once a
+ * change of them is committed, and the strong ETags of the list responses derived from them.
+ * <p>
+ * Customer ids are hashed onto a fixed set of stripes, so memory stays bounded however many
+ * customers there are; a change also bumps the other customers of its stripe, which costs them one
+ * full response. The ETag covers the customer and the request parameters as well as the version,
+ * and carries an epoch chosen at startup, so ETags handed out before a restart never match. The
+ * version is read before the list is loaded, so a response never carries a version newer than its
+ * content.
+ */
+@Component
+public class CustomerVersions {
+    private final AtomicLongArray assetVersions;
+    private final AtomicLongArray orderVersions;
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+    public CustomerVersions(@Value("${brokage.customer-version.stripes:4096}") int stripes) {
+        this.assetVersions = new AtomicLongArray(stripes);
+        this.orderVersions = new AtomicLongArray(stripes);
+    }
+
+    /**
+     * @param customerId owner of the assets.
+     * @param parameters request parameters the response depends on.
+     * @return ETag of the asset list of the customer as it is now.
+     */
+    public String getAssetsETag(String customerId, Object... parameters) {
+        return eTag("assets", customerId, assetVersions.get(stripeOf(customerId)), parameters);
+    }
+
+    /**
+     * @param customerId owner of the orders.
+     * @param parameters request parameters the response depends on.
+     * @return ETag of the order list of the customer as it is now.
+     */
+    public String getOrdersETag(String customerId, Object... parameters) {
+        return eTag("orders", customerId, orderVersions.get(stripeOf(customerId)), parameters);
+    }
+
+    /**
+     * @param ifNoneMatch value of the If-None-Match header, may be null.
+     * @param eTag        current ETag of the requested list.
+     * @return true if the client already holds the current list.
+     */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match uses the weak comparison, so a W/ prefix added by a proxy still matches
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssetsChanged(AssetsChangedEvent event) {
+        bump(assetVersions, event.getCustomerIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrdersChanged(OrdersChangedEvent event) {
+        bump(orderVersions, event.getCustomerIds());
+    }
+
+    private void bump(AtomicLongArray versions, Collection<String> customerIds) {
+        if (customerIds == null) {
+            for (int stripe = 0; stripe < versions.length(); stripe++) {
+                versions.incrementAndGet(stripe);
+            }
+            return;
+        }
+        for (String customerId : customerIds) {
+            versions.incrementAndGet(stripeOf(customerId));
+        }
+    }
+
+    private String eTag(String list, String customerId, long version, Object... parameters) {
+        Hasher hasher = Hashing.murmur3_128().newHasher()
+                .putString(list, StandardCharsets.UTF_8)
+                .putString(customerId, StandardCharsets.UTF_8);
+        for (Object parameter : parameters) {
+            hasher.putByte((byte) 0).putString(Objects.toString(parameter), StandardCharsets.UTF_8);
+        }
+        return "\"" + epoch + "-" + version + "-" + hasher.hash() + "\"";
+    }
+
+    private int stripeOf(String customerId) {
+        return Math.floorMod(customerId.hashCode(), assetVersions.length());
+    }
+}
@@ -0,0 +1,119 @@
+package com.rasit.brokage.service;
+
+import com.rasit.brokage.core.data.OrderDao;
+import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.core.matching.AutoMatchMode;
+import com.rasit.brokage.core.matching.MatchingScheduler;
+import com.rasit.brokage.rest.exception.CustomException;
+import com.rasit.brokage.rest.resource.order.OrderRestResponseModel;
+import com.rasit.brokage.rest.resource.order.OrdersRestResponseListModel;
+import com.rasit.brokage.service.event.OrderCreatedEvent;
+import com.rasit.brokage.utility.AssetKey;
+import com.rasit.brokage.utility.StatusType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Entry point of order matching. Hands every match over to the {@link MatchingScheduler} shard of
+ * the order's asset, so matches of the same asset never run concurrently while matches of
+ * different assets run in parallel.
+ * <p>
+ * With {@code brokage.matching.auto-match.enabled} every new order is matched as soon as it is
+ * committed, either before the create request returns or asynchronously on its shard.
+ */
+@Service
+@Slf4j
+public class OrderMatchingService {
+
+    private final OrderDao orderDao;
+    private final OrderService orderService;
+    private final MatchingScheduler matchingScheduler;
+    private final boolean autoMatchEnabled;
+    private final AutoMatchMode autoMatchMode;
+
+    @Autowired
+    public OrderMatchingService(OrderDao orderDao, OrderService orderService, MatchingScheduler matchingScheduler,
+                                @Value("${brokage.matching.auto-match.enabled:false}") boolean autoMatchEnabled,
+                                @Value("${brokage.matching.auto-match.mode:SYNC}") AutoMatchMode autoMatchMode) {
+        this.orderDao = orderDao;
+        this.orderService = orderService;
+        this.matchingScheduler = matchingScheduler;
+        this.autoMatchEnabled = autoMatchEnabled;
+        this.autoMatchMode = autoMatchMode;
+    }
+
+    public ResponseEntity<OrdersRestResponseListModel> matchOrders(String orderIdToMatch) throws CustomException {
+        OrderEntity orderToMatch = orderDao.getOrderByOrderIdAndStatus(orderIdToMatch, StatusType.PENDING);
+        if (orderToMatch == null) {
+            log.warn("Order with ID {} not found or not in PENDING status for matching.", orderIdToMatch);
+            return ResponseEntity.notFound().build();
+        }
+
+        log.debug("Scheduling match of order {} on shard {}", orderIdToMatch, matchingScheduler.shardOf(AssetKey.of(orderToMatch.getAssetName())));
+        return matchingScheduler.call(AssetKey.of(orderToMatch.getAssetName()), () -> orderService.matchOrders(orderToMatch));
+    }
+
+    /**
+     * Matches a new order once its creation is committed, if continuous matching is enabled. An
+     * order that cannot be matched right away simply keeps resting in the book.
+     *
+     * @param event the created order.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        if (!autoMatchEnabled) {
+            return;
+        }
+        OrderEntity order = event.getOrder();
+        String orderId = order.getOrderId().toString();
+
+        if (autoMatchMode == AutoMatchMode.ASYNC) {
+            matchingScheduler.execute(AssetKey.of(order.getAssetName()), () -> matchQuietly(order));
+            return;
+        }
+
+        try {
+            ResponseEntity<OrdersRestResponseListModel> result = matchingScheduler.call(AssetKey.of(order.getAssetName()), () -> orderService.matchOrders(order));
+            applyMatchResult(order, event.getResponse(), result.getBody());
+        } catch (CustomException e) {
+            log.warn("Order {} could not be matched on entry and stays PENDING: {}", orderId, e.getErrorMessageType().getMessageId());
+        }
+    }
+
+    private void matchQuietly(OrderEntity order) {
+        try {
+            orderService.matchOrders(order);
+        } catch (Exception e) {
+            log.warn("Asynchronous match of order {} failed, it stays PENDING: {}", order.getOrderId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Reflects the outcome of a synchronous match on the create response. The new order is listed
+     * in the result when it was fully filled; when only counter-orders are listed it was partially
+     * filled and its remaining size is read back.
+     */
+    private void applyMatchResult(OrderEntity order, OrderRestResponseModel response, OrdersRestResponseListModel result) {
+        List<OrderRestResponseModel> matchedOrders = result == null ? null : result.getOrderRestResponseModels();
+        if (matchedOrders == null || matchedOrders.isEmpty()) {
+            return;
+        }
+        String orderId = order.getOrderId().toString();
+        if (matchedOrders.stream().anyMatch(matched -> orderId.equals(matched.getIdentifier()))) {
+            response.setStatus(StatusType.MATCHED.name());
+            response.setSize(BigDecimal.ZERO);
+            return;
+        }
+        OrderEntity remaining = orderDao.getOrderByOrderIdAndStatus(orderId, StatusType.PENDING);
+        if (remaining != null) {
+            response.setSize(remaining.getSize());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.rasit.brokage.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Meters of the order hot path: latency of creating, canceling and matching orders, the size of
+ * every match and its settlement, and orders rejected by the balance check.
+ * <p>
+ * Latencies are published with percentile histograms, so quantiles can be aggregated across
+ * instances on the Prometheus side.
+ */
+@Component
+public class OrderMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Timer createTimer;
+    private final Timer cancelTimer;
+    private final Timer matchTimer;
+    private final DistributionSummary fillsPerMatch;
+    private final DistributionSummary settlementStatementsPerMatch;
+    private final Counter balanceRejections;
+
+    public OrderMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.createTimer = latencyTimer("brokage.order.create", "Time to create an order, up to the end of its transaction", meterRegistry);
+        this.cancelTimer = latencyTimer("brokage.order.cancel", "Time to cancel an order, up to the end of its transaction", meterRegistry);
+        this.matchTimer = latencyTimer("brokage.order.match", "Time to match an order, up to the end of its transaction", meterRegistry);
+        this.fillsPerMatch = DistributionSummary.builder("brokage.matching.fills")
+                .description("Counter-orders filled by one match")
+                .register(meterRegistry);
+        this.settlementStatementsPerMatch = DistributionSummary.builder("brokage.settlement.statements")
+                .description("Asset and order update statements issued to settle one match")
+                .register(meterRegistry);
+        this.balanceRejections = Counter.builder("brokage.order.balance.rejected")
+                .description("Orders rejected because the usable size of the asset was not enough")
+                .register(meterRegistry);
+    }
+
+    public void timeCreate() {
+        timeUntilCompletion(createTimer);
+    }
+
+    public void timeCancel() {
+        timeUntilCompletion(cancelTimer);
+    }
+
+    public void timeMatch() {
+        timeUntilCompletion(matchTimer);
+    }
+
+    /**
+     * @param fills                number of counter-orders the match filled.
+     * @param settlementStatements number of asset and order updates written for the match.
+     */
+    public void recordMatch(int fills, int settlementStatements) {
+        fillsPerMatch.record(fills);
+        settlementStatementsPerMatch.record(settlementStatements);
+    }
+
+    public void recordBalanceRejection() {
+        balanceRejections.increment();
+    }
+
+    /**
+     * Starts timing the current transaction; the sample is recorded once it commits or rolls back.
+     * Outside a transaction nothing is recorded.
+     */
+    private void timeUntilCompletion(Timer timer) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                sample.stop(timer);
+            }
+        });
+    }
+
+    private static Timer latencyTimer(String name, String description, MeterRegistry meterRegistry) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
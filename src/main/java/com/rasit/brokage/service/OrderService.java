@@ -3,19 +3,38 @@ package com.rasit.brokage.service;
 import com.rasit.brokage.rest.converter.OrderConverter;
 import com.rasit.brokage.core.data.AssetDao;
 import com.rasit.brokage.core.data.OrderDao;
+import com.rasit.brokage.core.data.entity.AssetEntity;
 import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.core.journal.SettlementJournal;
+import com.rasit.brokage.core.matching.BookOrder;
+import com.rasit.brokage.core.matching.Fill;
+import com.rasit.brokage.core.matching.OrderBookRegistry;
+import com.rasit.brokage.core.settlement.Settlement;
 import com.rasit.brokage.rest.exception.CustomException;
+import com.rasit.brokage.rest.resource.RestErrorResponseModel;
+import com.rasit.brokage.rest.resource.asset.BalanceDeltaRestResponseModel;
+import com.rasit.brokage.rest.resource.order.OrderBatchItemRestResponseModel;
+import com.rasit.brokage.rest.resource.order.OrderBatchRestResponseModel;
 import com.rasit.brokage.rest.resource.order.OrderRestRequestModel;
 import com.rasit.brokage.rest.resource.order.OrderRestResponseModel;
+import com.rasit.brokage.rest.resource.order.OrdersCancelRestResponseModel;
 import com.rasit.brokage.rest.resource.order.OrdersRestResponseListModel;
 import com.rasit.brokage.rest.validation.AssetValidator;
+import com.rasit.brokage.service.event.OrderCreatedEvent;
+import com.rasit.brokage.service.event.OrderUpdatesEvent;
+import com.rasit.brokage.utility.AssetKey;
+import com.rasit.brokage.utility.ContinuationToken;
+import com.rasit.brokage.utility.ErrorMessageType;
+import com.rasit.brokage.utility.FixedPoint;
 import com.rasit.brokage.utility.SideType;
 import com.rasit.brokage.utility.StatusType;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -35,45 +54,141 @@ public class OrderService {
 
     private final OrderDao orderDao;
     private final AssetDao assetDao;
+    private final SettlementJournal settlementJournal;
     private final OrderConverter orderConverter;
 
     private final AssetValidator assetValidator;
+    private final OrderBookRegistry orderBookRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FixedPoint fixedPoint;
+    private final CustomerLocks customerLocks;
+    private final OrderMetrics orderMetrics;
+    private final CustomerVersions customerVersions;
 
     @Autowired
-    public OrderService(OrderDao orderDao, AssetDao assetDao, OrderConverter orderConverter, AssetValidator assetValidator) {
+    public OrderService(OrderDao orderDao, AssetDao assetDao, SettlementJournal settlementJournal, OrderConverter orderConverter, AssetValidator assetValidator, OrderBookRegistry orderBookRegistry,
+                        ApplicationEventPublisher eventPublisher, FixedPoint fixedPoint, CustomerLocks customerLocks, OrderMetrics orderMetrics,
+                        CustomerVersions customerVersions) {
         this.orderDao = orderDao;
         this.assetDao = assetDao;
+        this.settlementJournal = settlementJournal;
         this.orderConverter = orderConverter;
         this.assetValidator = assetValidator;
+        this.orderBookRegistry = orderBookRegistry;
+        this.eventPublisher = eventPublisher;
+        this.fixedPoint = fixedPoint;
+        this.customerLocks = customerLocks;
+        this.orderMetrics = orderMetrics;
+        this.customerVersions = customerVersions;
     }
 
     @Transactional(rollbackFor = Exception.class)
     public ResponseEntity<OrderRestResponseModel> createOrder(final OrderRestRequestModel order) throws CustomException {
 
         log.debug("createOrder method starting for new order: {}", order);
-        assetValidator.checkCustomerHaveEnoughAsset(order.getCustomerId(), order.getSize(), order.getPrice(), order.getOrderSide(), order.getAssetName());
+        orderMetrics.timeCreate();
+        BigDecimal transactionAmount = fixedPoint.toDecimal(assetValidator.requiredUsableAmount(order.getSize(), order.getPrice(), order.getOrderSide()));
 
         OrderEntity orderEntity = orderConverter.toDomain(order);
-        String assetToUpdateUsableSize;
-        BigDecimal transactionAmount;
-        if (order.getOrderSide().equals(SideType.BUY)) {
-            assetToUpdateUsableSize = TRY_ASSET_NAME;
-            transactionAmount = orderEntity.getSize().multiply(orderEntity.getPrice());
-        } else {
-            assetToUpdateUsableSize = order.getAssetName();
-            transactionAmount = orderEntity.getSize();
-        }
+        String assetToUpdateUsableSize = order.getOrderSide().equals(SideType.BUY) ? TRY_ASSET_NAME : order.getAssetName();
 
-        orderDao.saveOrderAndReduceUsableSizeofAsset(orderEntity, assetToUpdateUsableSize, transactionAmount);
+        boolean reserved = customerLocks.withLock(order.getCustomerId(),
+                () -> orderDao.saveOrderAndReserveUsableSizeofAsset(orderEntity, assetToUpdateUsableSize, transactionAmount));
+        if (!reserved) {
+            orderMetrics.recordBalanceRejection();
+            throw assetValidator.usableSizeNotEnough(order.getCustomerId(), assetToUpdateUsableSize);
+        }
+        orderBookRegistry.add(orderEntity);
+        // Published first, so a stream gets the new order before the matches it may cause
+        eventPublisher.publishEvent(new OrderUpdatesEvent(List.of(orderConverter.toResource(orderEntity)),
+                List.of(new BalanceDeltaRestResponseModel(order.getCustomerId(), assetToUpdateUsableSize, BigDecimal.ZERO, transactionAmount.negate()))));
         OrderRestResponseModel newOrder = orderConverter.toResource(orderEntity);
+        eventPublisher.publishEvent(new OrderCreatedEvent(orderEntity, newOrder));
         log.debug("Request completed for creating new order : {}", newOrder);
         return new ResponseEntity<>(newOrder, HttpStatus.CREATED);
     }
 
-    public ResponseEntity<OrdersRestResponseListModel> getOrdersByCustomerIdAndDate(String customerId, ZonedDateTime startDate, ZonedDateTime endDate, Integer pageNumber, Integer pageSize) {
+    /**
+     * Creates a basket of orders of one customer in a single transaction. The assets of the whole
+     * basket are read with one query, orders are checked in request order against the usable size
+     * left by the orders before them, and the accepted ones are reserved per asset and inserted as
+     * one JDBC batch. Orders that fail their checks are reported per item and do not stop the others.
+     *
+     * @param customerId customer all orders are created for.
+     * @param orders     the orders, at least one.
+     * @return one result per order in request order.
+     * @throws CustomException if the customer lock is not free or the balances changed under the batch.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public ResponseEntity<OrderBatchRestResponseModel> createOrders(final String customerId, final List<OrderRestRequestModel> orders) throws CustomException {
+        log.debug("createOrders method starting for {} orders of customer {}", orders.size(), customerId);
+        Set<String> assetNames = orders.stream().map(OrderRestRequestModel::getAssetName).collect(Collectors.toCollection(HashSet::new));
+        assetNames.add(TRY_ASSET_NAME);
+
+        return customerLocks.withLock(customerId, () -> {
+            Map<String, AssetEntity> assets = assetDao.findAssetsByCustomerIdAndNames(customerId, assetNames).stream()
+                    .collect(Collectors.toMap(AssetEntity::getAssetKey, Function.identity()));
+            Map<String, Long> usableLeft = new HashMap<>();
+            Map<String, Long> reservations = new LinkedHashMap<>();
+            OrderBatchItemRestResponseModel[] results = new OrderBatchItemRestResponseModel[orders.size()];
+            Map<Integer, OrderEntity> accepted = new LinkedHashMap<>();
+
+            for (int index = 0; index < orders.size(); index++) {
+                OrderRestRequestModel order = orders.get(index);
+                order.setCustomerId(customerId);
+                try {
+                    if (!assets.containsKey(AssetKey.of(order.getAssetName()))) {
+                        throw new CustomException(ErrorMessageType.ASSET_NOT_FOUND, new String[]{order.getAssetName()}, HttpStatus.NOT_FOUND);
+                    }
+                    long amount = assetValidator.requiredUsableAmount(order.getSize(), order.getPrice(), order.getOrderSide());
+                    String assetToReserve = order.getOrderSide().equals(SideType.BUY) ? TRY_ASSET_NAME : order.getAssetName();
+                    String assetKey = AssetKey.of(assetToReserve);
+                    long usable = usableLeft.computeIfAbsent(assetKey, key -> assets.containsKey(key) ? fixedPoint.fromDecimal(assets.get(key).getUsableSize()) : 0L);
+                    if (amount > usable) {
+                        orderMetrics.recordBalanceRejection();
+                        throw new CustomException(ErrorMessageType.ASSET_USABLE_SIZE_NOT_ENOUGH,
+                                new String[]{assetToReserve, String.valueOf(fixedPoint.toDecimal(usable))}, HttpStatus.BAD_REQUEST);
+                    }
+                    usableLeft.put(assetKey, usable - amount);
+                    reservations.merge(assetKey, amount, Long::sum);
+                    accepted.put(index, orderConverter.toDomain(order));
+                } catch (CustomException e) {
+                    results[index] = new OrderBatchItemRestResponseModel(index, e.getStatusCode().value(), null, RestErrorResponseModel.of(e));
+                }
+            }
+
+            Map<String, BigDecimal> reservationAmounts = new LinkedHashMap<>();
+            reservations.forEach((assetKey, amount) -> reservationAmounts.put(assetKey, fixedPoint.toDecimal(amount)));
+            if (!orderDao.saveOrdersAndReserveUsableSizes(customerId, new ArrayList<>(accepted.values()), reservationAmounts)) {
+                throw new CustomException(ErrorMessageType.CUSTOMER_BUSY, new String[]{customerId}, HttpStatus.SERVICE_UNAVAILABLE);
+            }
+
+            if (!accepted.isEmpty()) {
+                List<BalanceDeltaRestResponseModel> balances = new ArrayList<>();
+                reservationAmounts.forEach((assetKey, amount) ->
+                        balances.add(new BalanceDeltaRestResponseModel(customerId, assets.get(assetKey).getAssetName(), BigDecimal.ZERO, amount.negate())));
+                eventPublisher.publishEvent(new OrderUpdatesEvent(orderConverter.toResourceList(new ArrayList<>(accepted.values())), balances));
+            }
+            accepted.forEach((index, orderEntity) -> {
+                orderBookRegistry.add(orderEntity);
+                OrderRestResponseModel newOrder = orderConverter.toResource(orderEntity);
+                eventPublisher.publishEvent(new OrderCreatedEvent(orderEntity, newOrder));
+                results[index] = new OrderBatchItemRestResponseModel(index, HttpStatus.CREATED.value(), newOrder, null);
+            });
+            log.debug("Request completed for creating {} of {} orders", accepted.size(), orders.size());
+            return new ResponseEntity<>(new OrderBatchRestResponseModel(accepted.size(), orders.size() - accepted.size(), Arrays.asList(results)), HttpStatus.OK);
+        });
+    }
+
+    public ResponseEntity<OrdersRestResponseListModel> getOrdersByCustomerIdAndDate(String customerId, ZonedDateTime startDate, ZonedDateTime endDate, Integer pageNumber, Integer pageSize, String ifNoneMatch) {
 
         log.debug("HandleGetAllScheduledRooms method starting for pageNumber: {}, pageSize: {}, customerId: {}", pageNumber, pageSize, customerId);
 
+        String eTag = customerVersions.getOrdersETag(customerId, startDate.toInstant(), endDate.toInstant(), "page", pageNumber, pageSize);
+        if (CustomerVersions.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+
         Pageable paging = PageRequest.of(pageNumber, pageSize);
 
         Page<OrderEntity> pagedResult = orderDao.getOrdersByCustomerIdAndDate(customerId, startDate, endDate, paging);
@@ -82,126 +197,238 @@ public class OrderService {
             List<OrderEntity> orders = pagedResult.getContent();
             List<OrderRestResponseModel> orderRestResponseModels = orderConverter.toResourceList(orders);
             OrdersRestResponseListModel resourceList = new OrdersRestResponseListModel(orderRestResponseModels, pagedResult.getTotalPages(), pageNumber, pageSize, pagedResult.getTotalElements());
-            return new ResponseEntity<>(resourceList, HttpStatus.OK);
+            return ResponseEntity.ok().eTag(eTag).body(resourceList);
         } else {
-            return new ResponseEntity<>(new OrdersRestResponseListModel(), HttpStatus.OK);
+            return ResponseEntity.ok().eTag(eTag).body(new OrdersRestResponseListModel());
         }
     }
 
-    @Transactional(rollbackFor = Exception.class)
-    public ResponseEntity<Object> cancelOrder(String orderId) {
-        log.debug("cancelOrder method starting for orderId: {}", orderId);
+    /**
+     * Lists orders in (createDate, orderId) order, continuing after the position in the given token.
+     * Every page costs the same regardless of how deep it is and no total count is calculated.
+     *
+     * @param continuationToken token returned with the previous page, empty for the first page.
+     * @param ifNoneMatch       value of the If-None-Match header, may be null.
+     * @throws CustomException if the token cannot be decoded.
+     */
+    public ResponseEntity<OrdersRestResponseListModel> getOrdersByCustomerIdAndDate(String customerId, ZonedDateTime startDate, ZonedDateTime endDate, String continuationToken, Integer pageSize, String ifNoneMatch) throws CustomException {
+        log.debug("getOrdersByCustomerIdAndDate starting for continuationToken: {}, pageSize: {}, customerId: {}", continuationToken, pageSize, customerId);
 
-        OrderEntity order = orderDao.getOrderByOrderIdAndStatus(orderId, StatusType.PENDING);
+        String eTag = customerVersions.getOrdersETag(customerId, startDate.toInstant(), endDate.toInstant(), "after", continuationToken, pageSize);
+        if (CustomerVersions.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
 
-        if (order == null) return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        ContinuationToken after = null;
+        if (!continuationToken.isEmpty()) {
+            try {
+                after = ContinuationToken.decode(continuationToken);
+            } catch (IllegalArgumentException e) {
+                throw new CustomException(ErrorMessageType.INVALID_CONTINUATION_TOKEN, new String[]{continuationToken}, HttpStatus.BAD_REQUEST);
+            }
+        }
 
-        String assetToUpdateUsableSize;
-        BigDecimal transactionAmount;
+        Slice<OrderEntity> slice = orderDao.getOrdersByCustomerIdAndDate(customerId, startDate, endDate, after, pageSize);
 
-        if (order.getOrderSide().equals(SideType.BUY)) {
-            assetToUpdateUsableSize = TRY_ASSET_NAME;
-            transactionAmount = order.getSize().multiply(order.getPrice());
-        } else {
-            assetToUpdateUsableSize = order.getAssetName();
-            transactionAmount = order.getSize();
+        OrdersRestResponseListModel resourceList = new OrdersRestResponseListModel(orderConverter.toResourceList(slice.getContent()));
+        resourceList.setPageSize(pageSize);
+        if (slice.hasNext()) {
+            OrderEntity last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            resourceList.setContinuationToken(new ContinuationToken(last.getCreateDate(), last.getOrderId()).encode());
         }
-
-        orderDao.cancelOrderAndIncreaseUsableSizeofAsset(orderId, assetToUpdateUsableSize, transactionAmount);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        return ResponseEntity.ok().eTag(eTag).body(resourceList);
     }
 
-    @Transactional
-    public ResponseEntity<OrdersRestResponseListModel> matchOrders(String orderIdToMatch) {
-        log.info("Attempting to match order with ID: {}", orderIdToMatch);
-        OrderEntity orderToMatch = orderDao.getOrderByOrderIdAndStatus(orderIdToMatch, StatusType.PENDING);
-        if (orderToMatch == null) {
-            log.warn("Order with ID {} not found or not in PENDING status for matching.", orderIdToMatch);
-            return ResponseEntity.notFound().build();
+    /**
+     * Cancels a PENDING order and releases its usable size. The order is read once, together with
+     * its ownership and status checks and a row lock, under the lock of its customer; the status
+     * transition and the release then need no further read.
+     * <p>
+     * With the settlement journal enabled the table may still show an order PENDING that has
+     * already matched, so the order is taken out of its book first and is canceled with the size it
+     * still rested with, which also sets the amount released. The journal does not resize an order
+     * once it is no longer PENDING, so that size is stored by the cancel itself.
+     *
+     * @param customerId owner the order must belong to, null for admins who may cancel any order.
+     * @throws CustomException if the order does not exist or is not owned by the customer, or the
+     *                         customer lock is not free.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public ResponseEntity<Object> cancelOrder(String orderId, String customerId) throws CustomException {
+        log.debug("cancelOrder method starting for orderId: {}", orderId);
+        orderMetrics.timeCancel();
+
+        String ownerId = customerId != null ? customerId : orderDao.getCustomerIdOfOrder(orderId);
+        if (ownerId == null) {
+            throw new CustomException(ErrorMessageType.ORDER_NOT_FOUND, new String[]{orderId}, HttpStatus.NOT_FOUND);
         }
 
-        SideType orderSide = orderToMatch.getOrderSide();
-        SideType counterSide = (orderSide == SideType.BUY) ? SideType.SELL : SideType.BUY;
+        return customerLocks.withLock(ownerId, () -> {
+            OrderEntity order = orderDao.getPendingOrderForUpdate(orderId, ownerId);
+            if (order == null) {
+                if (!orderDao.isOrderExistsWithOrderIdAndCustomerId(orderId, ownerId)) {
+                    throw new CustomException(ErrorMessageType.ORDER_NOT_FOUND, new String[]{orderId}, HttpStatus.NOT_FOUND);
+                }
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
 
-        List<OrderEntity> potentialCounterOrders = new ArrayList<>(orderDao.getAllByStatusAndAssetNameAndSide(StatusType.PENDING, orderToMatch.getAssetName(), counterSide));
+            BigDecimal remainingSize = order.getSize();
+            if (settlementJournal.isEnabled()) {
+                BookOrder resting = orderBookRegistry.take(order);
+                if (resting == null) {
+                    return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+                }
+                remainingSize = fixedPoint.toDecimal(resting.getSize());
+            }
 
-        if (potentialCounterOrders.isEmpty()) {
-            log.debug("No pending counter-orders found for asset {} with side {}. Order {} remains PENDING.", orderToMatch.getAssetName(), counterSide, orderToMatch.getOrderId());
+            String assetToUpdateUsableSize = order.getOrderSide().equals(SideType.BUY) ? TRY_ASSET_NAME : order.getAssetName();
+            BigDecimal transactionAmount = fixedPoint.toDecimal(releasedAmount(order, remainingSize));
+
+            if (orderDao.cancelOrderAndIncreaseUsableSizeofAsset(order, remainingSize, assetToUpdateUsableSize, transactionAmount)) {
+                if (!settlementJournal.isEnabled()) {
+                    orderBookRegistry.remove(order);
+                }
+                OrderRestResponseModel canceledOrder = orderConverter.toResource(order);
+                canceledOrder.setSize(remainingSize);
+                canceledOrder.setStatus(StatusType.CANCELED.name());
+                eventPublisher.publishEvent(new OrderUpdatesEvent(List.of(canceledOrder),
+                        List.of(new BalanceDeltaRestResponseModel(ownerId, assetToUpdateUsableSize, BigDecimal.ZERO, transactionAmount))));
+            }
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        });
+    }
 
-            return ResponseEntity.ok(new OrdersRestResponseListModel());
+    /**
+     * Cancels all PENDING orders of a customer, optionally only those of one asset and/or side, and
+     * releases their usable sizes, with a fixed number of statements however many orders there are.
+     *
+     * @param assetName only cancel orders of this asset, null for all assets.
+     * @param orderSide only cancel orders of this side, null for both sides.
+     * @throws CustomException if the customer lock is not free.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public ResponseEntity<OrdersCancelRestResponseModel> cancelOrders(String customerId, String assetName, SideType orderSide) throws CustomException {
+        log.debug("cancelOrders method starting for customer: {}, asset: {}, side: {}", customerId, assetName, orderSide);
+
+        List<OrderEntity> canceledOrders = customerLocks.withLock(customerId, () -> {
+            List<OrderEntity> orders = orderDao.getPendingOrdersForUpdate(customerId, assetName, orderSide);
+            if (settlementJournal.isEnabled() && !orders.isEmpty()) {
+                // Only orders still resting are canceled, with the size they rest with
+                orders = orderBookRegistry.take(orders).stream().map(order -> order.toEntity(StatusType.PENDING, fixedPoint)).toList();
+            }
+            Map<String, Long> releases = new LinkedHashMap<>();
+            for (OrderEntity order : orders) {
+                String assetToRelease = order.getOrderSide().equals(SideType.BUY) ? TRY_ASSET_NAME : order.getAssetName();
+                releases.merge(AssetKey.of(assetToRelease), releasedAmount(order, order.getSize()), Long::sum);
+            }
+            Map<String, BigDecimal> releaseAmounts = new LinkedHashMap<>();
+            releases.forEach((assetKey, amount) -> releaseAmounts.put(assetKey, fixedPoint.toDecimal(amount)));
+            if (settlementJournal.isEnabled()) {
+                orderDao.cancelOrdersAndIncreaseUsableSizes(customerId, orders, releaseAmounts);
+            } else {
+                orderDao.cancelPendingOrdersAndIncreaseUsableSizes(customerId, assetName, orderSide, orders, releaseAmounts);
+            }
+            return orders;
+        });
+        if (!settlementJournal.isEnabled()) {
+            canceledOrders.forEach(orderBookRegistry::remove);
         }
+        if (!canceledOrders.isEmpty()) {
+            publishCancellations(customerId, canceledOrders);
+        }
+        log.debug("Request completed for canceling {} orders of customer {}", canceledOrders.size(), customerId);
+        return ResponseEntity.ok(new OrdersCancelRestResponseModel(canceledOrders.size()));
+    }
 
-        log.debug("Found {} potential counter-orders for order {}", potentialCounterOrders.size(), orderToMatch.getOrderId());
-
-        Comparator<OrderEntity> comparator;
+    /**
+     * Matches a PENDING order against the book of its asset and settles the fills. The order may
+     * have been read before it got to the shard of its asset; its size and whether it is still
+     * PENDING are taken from the book, or from the table if it is not resting there.
+     *
+     * @param orderToMatch the order as read by the caller.
+     * @throws CustomException if the shard of the asset cannot take the work, or an order the match
+     *                         filled was canceled before the settlement was written; the match is
+     *                         rolled back then.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public ResponseEntity<OrdersRestResponseListModel> matchOrders(OrderEntity orderToMatch) throws CustomException {
+        String orderIdToMatch = orderToMatch.getOrderId().toString();
+        log.info("Attempting to match order with ID: {}", orderIdToMatch);
+        orderMetrics.timeMatch();
 
-        if (orderSide == SideType.BUY) {
-            // For BUY orders, match with lowest SELL price first
-            comparator = Comparator.comparing(OrderEntity::getPrice).thenComparing(OrderEntity::getCreateDate);
-        } else {
-            // For SELL orders, match with highest BUY price first
-            comparator = Comparator.comparing(OrderEntity::getPrice, Comparator.reverseOrder()).thenComparing(OrderEntity::getCreateDate);
+        BookOrder incomingOrder = BookOrder.from(orderToMatch, fixedPoint);
+        List<Fill> fills = orderBookRegistry.match(incomingOrder);
+        if (fills == null) {
+            log.warn("Order with ID {} is no longer PENDING.", orderIdToMatch);
+            return ResponseEntity.notFound().build();
         }
 
-        potentialCounterOrders.sort(comparator);
+        if (fills.isEmpty()) {
+            log.debug("No crossing counter-orders found for asset {}. Order {} remains PENDING.", orderToMatch.getAssetName(), orderToMatch.getOrderId());
+            orderMetrics.recordMatch(0, 0);
 
-        Iterator<OrderEntity> iterator = potentialCounterOrders.iterator();
-        List<OrderRestResponseModel> matchedOrdersList = new ArrayList<>();
+            return ResponseEntity.ok(new OrdersRestResponseListModel());
+        }
 
-        while (orderToMatch.getSize().compareTo(BigDecimal.ZERO) > 0 && iterator.hasNext()) {
-            OrderEntity counterOrder = iterator.next();
+        log.debug("Order {} crossed {} counter-orders", orderToMatch.getOrderId(), fills.size());
 
-            if (!isPriceMatch(orderToMatch, counterOrder)) {
-                break;
-            }
+        List<OrderRestResponseModel> matchedOrdersList = new ArrayList<>();
+        List<OrderRestResponseModel> resizedOrdersList = new ArrayList<>();
+        Settlement settlement = new Settlement();
 
-            BigDecimal fillQuantity = orderToMatch.getSize().min(counterOrder.getSize());
+        for (Fill fill : fills) {
+            BookOrder counterOrder = fill.getCounterOrder();
+            long fillQuantity = fill.getQuantity();
 
-            orderToMatch.setSize(orderToMatch.getSize().subtract(fillQuantity));
-            counterOrder.setSize(counterOrder.getSize().subtract(fillQuantity));
+            incomingOrder.setSize(incomingOrder.getSize() - fillQuantity);
 
-            log.debug("Matched Order: {} @ {}", fillQuantity, counterOrder.getPrice());
+            log.debug("Matched Order: {} @ {} (scale {})", fillQuantity, counterOrder.getPrice(), fixedPoint.getScale());
 
             //opposite order transactions
-            BigDecimal transactionAmount = fillQuantity.multiply(orderToMatch.getPrice());
+            long transactionAmount = fixedPoint.multiply(fillQuantity, incomingOrder.getPrice());
             if (counterOrder.getOrderSide().equals(SideType.SELL)) {
-                assetDao.increaseUsableSizeofAsset(counterOrder.getCustomerId(), TRY_ASSET_NAME, transactionAmount);
-                assetDao.increaseSizeofAsset(counterOrder.getCustomerId(), TRY_ASSET_NAME, transactionAmount);
-                assetDao.reduceSizeofAsset(counterOrder.getCustomerId(), orderToMatch.getAssetName(), fillQuantity);
+                settlement.addToUsableSize(counterOrder.getCustomerId(), TRY_ASSET_NAME, transactionAmount);
+                settlement.addToSize(counterOrder.getCustomerId(), TRY_ASSET_NAME, transactionAmount);
+                settlement.addToSize(counterOrder.getCustomerId(), incomingOrder.getAssetName(), -fillQuantity);
             } else {
-                assetDao.increaseUsableSizeofAsset(counterOrder.getCustomerId(), orderToMatch.getAssetName(), fillQuantity);
-                assetDao.increaseSizeofAsset(counterOrder.getCustomerId(), orderToMatch.getAssetName(), fillQuantity);
-                assetDao.reduceSizeofAsset(counterOrder.getCustomerId(), TRY_ASSET_NAME, transactionAmount);
+                settlement.addToUsableSize(counterOrder.getCustomerId(), incomingOrder.getAssetName(), fillQuantity);
+                settlement.addToSize(counterOrder.getCustomerId(), incomingOrder.getAssetName(), fillQuantity);
+                settlement.addToSize(counterOrder.getCustomerId(), TRY_ASSET_NAME, -transactionAmount);
             }
 
             // order transactions
-            transactionAmount = fillQuantity.multiply(counterOrder.getPrice());
-            if (orderToMatch.getOrderSide().equals(SideType.SELL)) {
-                assetDao.increaseUsableSizeofAsset(counterOrder.getCustomerId(), TRY_ASSET_NAME, transactionAmount);
-                assetDao.increaseSizeofAsset(orderToMatch.getCustomerId(), TRY_ASSET_NAME, transactionAmount);
-                assetDao.reduceSizeofAsset(orderToMatch.getCustomerId(), orderToMatch.getAssetName(), fillQuantity);
+            transactionAmount = fixedPoint.multiply(fillQuantity, counterOrder.getPrice());
+            if (incomingOrder.getOrderSide().equals(SideType.SELL)) {
+                settlement.addToUsableSize(counterOrder.getCustomerId(), TRY_ASSET_NAME, transactionAmount);
+                settlement.addToSize(incomingOrder.getCustomerId(), TRY_ASSET_NAME, transactionAmount);
+                settlement.addToSize(incomingOrder.getCustomerId(), incomingOrder.getAssetName(), -fillQuantity);
             } else {
-                assetDao.increaseUsableSizeofAsset(counterOrder.getCustomerId(), orderToMatch.getAssetName(), fillQuantity);
-                assetDao.increaseSizeofAsset(orderToMatch.getCustomerId(), orderToMatch.getAssetName(), fillQuantity);
-                assetDao.reduceSizeofAsset(orderToMatch.getCustomerId(), TRY_ASSET_NAME, transactionAmount);
+                settlement.addToUsableSize(counterOrder.getCustomerId(), incomingOrder.getAssetName(), fillQuantity);
+                settlement.addToSize(incomingOrder.getCustomerId(), incomingOrder.getAssetName(), fillQuantity);
+                settlement.addToSize(incomingOrder.getCustomerId(), TRY_ASSET_NAME, -transactionAmount);
             }
 
-            if (counterOrder.getSize().compareTo(BigDecimal.ZERO) == 0) {
-                iterator.remove();
-                counterOrder.setStatus(StatusType.MATCHED);
-                orderDao.updateOrderStatusWithMatched(counterOrder.getOrderId());
-                matchedOrdersList.add(orderConverter.toResource(counterOrder));
+            if (fill.isCounterOrderFilled()) {
+                settlement.markMatched(counterOrder.getOrderId());
+                matchedOrdersList.add(orderConverter.toResource(counterOrder.toEntity(StatusType.MATCHED, fixedPoint)));
             } else {
-                orderDao.updateOrderSize(counterOrder.getOrderId(), counterOrder.getSize());
+                settlement.resize(counterOrder.getOrderId(), fixedPoint.toDecimal(counterOrder.getSize()));
+                resizedOrdersList.add(orderConverter.toResource(counterOrder.toEntity(StatusType.PENDING, fixedPoint)));
             }
         }
-        if (orderToMatch.getSize().compareTo(BigDecimal.ZERO) == 0) {
-            orderToMatch.setStatus(StatusType.MATCHED);
-            orderDao.updateOrderStatusWithMatched(orderToMatch.getOrderId());
-            matchedOrdersList.add(orderConverter.toResource(orderToMatch));
+        if (incomingOrder.getSize() == 0) {
+            settlement.markMatched(incomingOrder.getOrderId());
+            matchedOrdersList.add(orderConverter.toResource(incomingOrder.toEntity(StatusType.MATCHED, fixedPoint)));
         } else {
-            orderDao.updateOrderSize(orderToMatch.getOrderId(), orderToMatch.getSize());
+            settlement.resize(incomingOrder.getOrderId(), fixedPoint.toDecimal(incomingOrder.getSize()));
+            resizedOrdersList.add(orderConverter.toResource(incomingOrder.toEntity(StatusType.PENDING, fixedPoint)));
+        }
+        if (!settlementJournal.settle(settlement)) {
+            // A cancel committed while its order was still in the book; the book is reloaded on its next use
+            throw new CustomException(ErrorMessageType.MATCH_CONFLICT, new String[]{orderToMatch.getAssetName()}, HttpStatus.CONFLICT);
         }
+        publishSettlement(settlement, incomingOrder.getAssetName(), matchedOrdersList, resizedOrdersList);
+        orderMetrics.recordMatch(fills.size(), settlement.getBalanceDeltas().size() + settlement.getOrderUpdates().size());
 
         log.debug("Order matching process for order {} completed. {} orders fully or partially matched.", orderIdToMatch, matchedOrdersList.size());
 
@@ -210,21 +437,52 @@ public class OrderService {
     }
 
     /**
-     * Determines if an order's price is a match for an opposite order based on their side and price.
-     * <p>
-     * For a BUY order, its price must be greater than or equal to the SELL order's price.
-     * For a SELL order, its price must be less than or equal to the BUY order's price.
+     * Usable size a canceled order gives back for the given size: size x price of a BUY order,
+     * rounded per order the same way it was reserved at creation, or the size of a SELL order.
      *
-     * @param orderEntity   The primary order to evaluate (e.g., the one being considered for matching).
-     * @param oppositeOrder The order on the opposite side being compared against.
-     * @return True if the prices match the conditions for a trade, false otherwise.
+     * @return the amount as a {@link FixedPoint} scaled long.
      */
-    private boolean isPriceMatch(final OrderEntity orderEntity, final OrderEntity oppositeOrder) {
-        if (orderEntity.getOrderSide() == SideType.BUY) {
-            return orderEntity.getPrice().compareTo(oppositeOrder.getPrice()) >= 0;
-        } else if (orderEntity.getOrderSide() == SideType.SELL) {
-            return orderEntity.getPrice().compareTo(oppositeOrder.getPrice()) <= 0;
+    private long releasedAmount(OrderEntity order, BigDecimal size) {
+        if (order.getOrderSide().equals(SideType.BUY)) {
+            return fixedPoint.multiply(fixedPoint.fromDecimal(size), fixedPoint.fromDecimal(order.getPrice()));
         }
-        return false;
+        return fixedPoint.fromDecimal(size);
+    }
+
+    /**
+     * Publishes the canceled orders with the usable sizes they released, summed up per asset.
+     */
+    private void publishCancellations(String customerId, List<OrderEntity> canceledOrders) {
+        List<OrderRestResponseModel> orders = new ArrayList<>(canceledOrders.size());
+        Map<String, BalanceDeltaRestResponseModel> balances = new LinkedHashMap<>();
+        for (OrderEntity order : canceledOrders) {
+            OrderRestResponseModel canceledOrder = orderConverter.toResource(order);
+            canceledOrder.setStatus(StatusType.CANCELED.name());
+            orders.add(canceledOrder);
+
+            String assetName = order.getOrderSide().equals(SideType.BUY) ? TRY_ASSET_NAME : order.getAssetName();
+            BigDecimal released = fixedPoint.toDecimal(releasedAmount(order, order.getSize()));
+            BalanceDeltaRestResponseModel balance = balances.computeIfAbsent(AssetKey.of(assetName),
+                    key -> new BalanceDeltaRestResponseModel(customerId, assetName, BigDecimal.ZERO, BigDecimal.ZERO));
+            balance.setUsableSize(balance.getUsableSize().add(released));
+        }
+        eventPublisher.publishEvent(new OrderUpdatesEvent(orders, new ArrayList<>(balances.values())));
+    }
+
+    /**
+     * Publishes the orders a match filled or resized with the balance changes of its settlement.
+     */
+    private void publishSettlement(Settlement settlement, String assetName, List<OrderRestResponseModel> matchedOrders,
+                                   List<OrderRestResponseModel> resizedOrders) {
+        Map<String, String> assetNames = new HashMap<>();
+        assetNames.put(AssetKey.of(TRY_ASSET_NAME), TRY_ASSET_NAME);
+        assetNames.put(AssetKey.of(assetName), assetName);
+        List<OrderRestResponseModel> orders = new ArrayList<>(matchedOrders);
+        orders.addAll(resizedOrders);
+        List<BalanceDeltaRestResponseModel> balances = settlement.getBalanceDeltas().stream()
+                .map(delta -> new BalanceDeltaRestResponseModel(delta.getCustomerId(), assetNames.getOrDefault(delta.getAssetKey(), delta.getAssetKey()),
+                        fixedPoint.toDecimal(delta.getSize()), fixedPoint.toDecimal(delta.getUsableSize())))
+                .toList();
+        eventPublisher.publishEvent(new OrderUpdatesEvent(orders, balances));
     }
 }
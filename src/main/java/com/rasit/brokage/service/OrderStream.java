@@ -0,0 +1,252 @@
+package com.rasit.brokage.service;
+
+import com.rasit.brokage.rest.resource.asset.BalanceDeltaRestResponseModel;
+import com.rasit.brokage.rest.resource.order.OrderRestResponseModel;
+import com.rasit.brokage.service.event.OrderUpdatesEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes the committed order and balance changes of a customer to its open event streams.
+ * <p>
+ * Publishing never waits for a client: every subscriber has a bounded buffer that the committing
+ * thread only offers to, and a small pool of sender threads drains the buffers onto the
+ * connections. A subscriber is drained by at most one sender at a time, so its events stay in
+ * order and the pool queue never holds more tasks than there are subscribers. When a buffer is
+ * full the {@link OverflowPolicy} decides whether the event is dropped or the slow subscriber is
+ * disconnected.
+ */
+@Component
+@Slf4j
+public class OrderStream {
+
+    /**
+     * What happens to an event that does not fit into the buffer of a subscriber.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the event and tell the subscriber how many it missed before the next one.
+         */
+        DROP,
+        /**
+         * Close the stream, the client reconnects and reloads its lists.
+         */
+        DISCONNECT
+    }
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+    private final long timeoutMillis;
+    private final Executor sender;
+    private final Counter dropped;
+    private final Counter disconnected;
+
+    @Autowired
+    public OrderStream(@Value("${brokage.stream.buffer-size:256}") int bufferSize,
+                       @Value("${brokage.stream.overflow-policy:DISCONNECT}") OverflowPolicy overflowPolicy,
+                       @Value("${brokage.stream.timeout-ms:1800000}") long timeoutMillis,
+                       @Value("${brokage.stream.sender-threads:4}") int senderThreads,
+                       MeterRegistry meterRegistry) {
+        this(bufferSize, overflowPolicy, timeoutMillis, Executors.newFixedThreadPool(senderThreads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "order-stream-" + count.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }), meterRegistry);
+    }
+
+    OrderStream(int bufferSize, OverflowPolicy overflowPolicy, long timeoutMillis, Executor sender, MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = overflowPolicy;
+        this.timeoutMillis = timeoutMillis;
+        this.sender = sender;
+        Gauge.builder("brokage.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open order event streams")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("brokage.stream.dropped")
+                .description("Events dropped because the buffer of the subscriber was full")
+                .register(meterRegistry);
+        this.disconnected = Counter.builder("brokage.stream.disconnected")
+                .description("Subscribers disconnected because their buffer was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream of the order and balance changes of the customer.
+     *
+     * @param customerId owner of the orders.
+     * @return the emitter the changes are sent to.
+     */
+    public SseEmitter subscribe(String customerId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(customerId, emitter);
+        subscribers.compute(customerId, (id, customerSubscribers) -> {
+            Set<Subscriber> result = customerSubscribers == null ? ConcurrentHashMap.newKeySet() : customerSubscribers;
+            result.add(subscriber);
+            return result;
+        });
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        log.debug("Customer {} subscribed to order stream", customerId);
+        return emitter;
+    }
+
+    /**
+     * Buffers the committed changes for the subscribers of the customers they belong to.
+     *
+     * @param event the committed order and balance changes.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderUpdates(OrderUpdatesEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (OrderRestResponseModel order : event.getOrders()) {
+            publish(order.getCustomerId(), new Update("order", order));
+        }
+        for (BalanceDeltaRestResponseModel balance : event.getBalances()) {
+            publish(balance.getCustomerId(), new Update("balance", balance));
+        }
+    }
+
+    /**
+     * Closes every open stream, clients reconnect to another instance.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Set<Subscriber> customerSubscribers : List.copyOf(subscribers.values())) {
+            for (Subscriber subscriber : customerSubscribers) {
+                remove(subscriber);
+                subscriber.emitter.complete();
+            }
+        }
+        if (sender instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    private void publish(String customerId, Update update) {
+        Set<Subscriber> customerSubscribers = subscribers.get(customerId);
+        if (customerSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : customerSubscribers) {
+            subscriber.offer(update);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscribers.computeIfPresent(subscriber.customerId, (id, customerSubscribers) -> {
+            customerSubscribers.remove(subscriber);
+            return customerSubscribers.isEmpty() ? null : customerSubscribers;
+        });
+        subscriberCount.decrementAndGet();
+        log.debug("Customer {} unsubscribed from order stream", subscriber.customerId);
+    }
+
+    private record Update(String name, Object data) {
+    }
+
+    private final class Subscriber implements Runnable {
+        private final String customerId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Update> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicLong missed = new AtomicLong();
+        private volatile boolean overflowed;
+
+        private Subscriber(String customerId, SseEmitter emitter) {
+            this.customerId = customerId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private void offer(Update update) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(update)) {
+                if (overflowPolicy == OverflowPolicy.DROP) {
+                    missed.incrementAndGet();
+                    dropped.increment();
+                    return;
+                }
+                // The emitter is completed by the sender, completing it here could wait on a send
+                overflowed = true;
+                remove(this);
+                disconnected.increment();
+                log.warn("Customer {} did not keep up with its order stream, disconnecting it", customerId);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                sender.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (overflowed) {
+                    overflowed = false;
+                    buffer.clear();
+                    emitter.complete();
+                    return;
+                }
+                long skipped = missed.getAndSet(0);
+                if (skipped > 0) {
+                    emitter.send(SseEmitter.event().name("dropped").data(skipped));
+                }
+                // Bounded so a busy subscriber hands its sender over to the others now and then
+                Update update;
+                for (int sent = 0; sent < bufferSize && !overflowed && (update = buffer.poll()) != null; sent++) {
+                    emitter.send(SseEmitter.event().name(update.name()).data(update.data()));
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Order stream of customer {} is gone: {}", customerId, e.getMessage());
+                remove(this);
+                buffer.clear();
+            } finally {
+                scheduled.set(false);
+                if (overflowed || (!closed.get() && (!buffer.isEmpty() || missed.get() > 0))) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
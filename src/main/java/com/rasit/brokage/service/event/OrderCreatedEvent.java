@@ -0,0 +1,22 @@
+package com.rasit.brokage.service.event;
+
+import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.rest.resource.order.OrderRestResponseModel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by {@code OrderService.createOrder} right after a new order and its usable size
+ * reservation are saved.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderCreatedEvent {
+    private final OrderEntity order;
+
+    /**
+     * Response returned for the new order. Listeners running before the response is written, e.g.
+     * a synchronous match, may update it in place.
+     */
+    private final OrderRestResponseModel response;
+}
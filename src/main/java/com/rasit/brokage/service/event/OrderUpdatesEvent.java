@@ -0,0 +1,23 @@
+package com.rasit.brokage.service.event;
+
+import com.rasit.brokage.rest.resource.asset.BalanceDeltaRestResponseModel;
+import com.rasit.brokage.rest.resource.order.OrderRestResponseModel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Published by {@code OrderService} with the order and balance changes its transaction writes, so
+ * they can be pushed to the streams of the customers involved once it commits.
+ */
+@Getter
+@AllArgsConstructor
+public class OrderUpdatesEvent {
+    /**
+     * Orders as they are after the change: new, canceled, matched or with their remaining size.
+     */
+    private final List<OrderRestResponseModel> orders;
+
+    private final List<BalanceDeltaRestResponseModel> balances;
+}
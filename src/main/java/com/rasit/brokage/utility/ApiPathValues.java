@@ -39,6 +39,21 @@ public class ApiPathValues {
      */
     public static final String LIST_ENDPOINT = "/list";
 
+    /**
+     * batch as path key
+     */
+    public static final String BATCH_ENDPOINT = "/batch";
+
+    /**
+     * all as path key
+     */
+    public static final String ALL_ENDPOINT = "/all";
+
+    /**
+     * stream as path key
+     */
+    public static final String STREAM_ENDPOINT = "/stream";
+
     /**
      * login as path key
      */
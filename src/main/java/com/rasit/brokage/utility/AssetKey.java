@@ -0,0 +1,21 @@
+package com.rasit.brokage.utility;
+
+import java.util.Locale;
+
+/**
+ * Canonical form of an asset name. Asset names are compared case-insensitively, so "GOLD" and
+ * "Gold" are the same asset; the key is what gets stored, indexed and compared.
+ */
+public final class AssetKey {
+
+    private AssetKey() {
+    }
+
+    /**
+     * @param assetName asset name as entered.
+     * @return the lowercase key of the asset, or null for a null name.
+     */
+    public static String of(String assetName) {
+        return assetName == null ? null : assetName.toLowerCase(Locale.ROOT);
+    }
+}
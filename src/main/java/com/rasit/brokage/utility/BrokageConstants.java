@@ -14,6 +14,8 @@ public class BrokageConstants {
     public static final String ORDER_PRICE_MAX_VIOLATION = "The order price must not be greater than 1000000.00.";
     public static final String ORDER_PRICE_NULL_VIOLATION = "The order price must not be blank.";
     public static final String ORDER_SIDE_NULL_VIOLATION = "The order side must not be blank.";
+    public static final String ORDER_BATCH_EMPTY_VIOLATION = "The batch must contain at least one order.";
+    public static final String ORDER_BATCH_SIZE_VIOLATION = "The batch must not contain more than 500 orders.";
     public static final String PAGE_NUMBER_MIN_SIZE_VIOLATION = "page_number must not be less than 0";
     public static final String PAGE_NUMBER_MAX_SIZE_VIOLATION = "page_number must be less than or equal to 500";
     public static final String PAGE_SIZE_MIN_SIZE_VIOLATION = "page_size must not be less than 1";
@@ -22,6 +24,9 @@ public class BrokageConstants {
     // Rest Request Params
     public static final String PAGE_NUMBER = "page_number";
     public static final String PAGE_SIZE = "page_size";
+    public static final String CONTINUATION_TOKEN = "continuation_token";
+    public static final String ASSET_NAME = "asset_name";
+    public static final String ORDER_SIDE = "order_side";
 
     // Rest Headers
     public static final String X_CUSTOMER_ID = "x-customer-id";
@@ -0,0 +1,48 @@
+package com.rasit.brokage.utility;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last order of a page in the (createDate, orderId) order of the order list. It
+ * is handed to clients as an opaque URL safe string and the next page starts right after it.
+ */
+@Getter
+@AllArgsConstructor
+public class ContinuationToken {
+    private static final String SEPARATOR = "|";
+
+    private final ZonedDateTime createDate;
+    private final UUID orderId;
+
+    public String encode() {
+        String position = createDate.toInstant() + SEPARATOR + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token a value produced by {@link #encode()}.
+     * @return the decoded position.
+     * @throws IllegalArgumentException if the token is not a valid continuation token.
+     */
+    public static ContinuationToken decode(String token) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = position.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Missing separator");
+            }
+            ZonedDateTime createDate = Instant.parse(position.substring(0, separator)).atZone(ZoneOffset.UTC);
+            return new ContinuationToken(createDate, UUID.fromString(position.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+    }
+}
@@ -15,7 +15,17 @@ public enum ErrorMessageType {
 
     INVALID_CREDENTIAL_ERROR("SVC1107", "Invalid username or password!"),
 
-    X_CUSTOMER_HEADER_NOT_FOUND("SVC1108", "X-Customer-Header is required for ADMIN users.");
+    X_CUSTOMER_HEADER_NOT_FOUND("SVC1108", "X-Customer-Header is required for ADMIN users."),
+
+    MATCHING_UNAVAILABLE("SVC1109", "Matching engine is busy for asset %1, please retry later."),
+
+    AMOUNT_NOT_REPRESENTABLE("SVC1110", "Amount %1 must have at most %2 decimals and be within the supported range."),
+
+    INVALID_CONTINUATION_TOKEN("SVC1111", "Continuation token is invalid: %1"),
+
+    CUSTOMER_BUSY("SVC1112", "Another request of customer %1 is still running, please retry later."),
+
+    MATCH_CONFLICT("SVC1113", "An order matched for asset %1 was canceled meanwhile, please retry.");
 
     private final String messageId;
     private final String text;
@@ -0,0 +1,62 @@
+package com.rasit.brokage.utility;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Scaled {@code long} arithmetic for sizes, prices and amounts.
+ * <p>
+ * A value {@code v} is represented by the long {@code v * 10^scale}, so comparisons, sums and
+ * differences are plain long operations and do not allocate. Conversions from {@link BigDecimal}
+ * are exact and fail if the value has more decimals than the scale or does not fit into a long;
+ * they are only meant to be done where values enter or leave the matching and validation paths.
+ */
+@Component
+public class FixedPoint {
+    private final int scale;
+    private final long factor;
+
+    public FixedPoint(@Value("${brokage.money.scale:2}") int scale) {
+        if (scale < 0 || scale > 9) {
+            throw new IllegalArgumentException("brokage.money.scale must be between 0 and 9, was " + scale);
+        }
+        this.scale = scale;
+        this.factor = BigDecimal.TEN.pow(scale).longValueExact();
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * @param value decimal value.
+     * @return the scaled long representation of the value.
+     * @throws ArithmeticException if the value has more decimals than the scale or is out of range.
+     */
+    public long fromDecimal(BigDecimal value) {
+        return value.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public BigDecimal toDecimal(long value) {
+        return BigDecimal.valueOf(value, scale);
+    }
+
+    /**
+     * Multiplies two scaled values, e.g. a size and a price, rounding the product half up to the
+     * scale the same way the {@code NUMERIC} columns do.
+     *
+     * @throws ArithmeticException if the product does not fit into a long.
+     */
+    public long multiply(long first, long second) {
+        long product = Math.multiplyExact(first, second);
+        long quotient = product / factor;
+        long remainder = product % factor;
+        if (Math.abs(remainder) * 2 >= factor) {
+            quotient += Long.signum(product);
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,38 @@
+CREATE TABLE customer (
+    id         UUID NOT NULL,
+    first_name VARCHAR(255),
+    last_name  VARCHAR(255),
+    username   VARCHAR(255),
+    password   VARCHAR(255),
+    role       ENUM ('ADMIN','CUSTOMER'),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE assets (
+    asset_id    UUID NOT NULL,
+    customer_id VARCHAR(255),
+    asset_name  VARCHAR(255),
+    size        NUMERIC(38,2),
+    usable_size NUMERIC(38,2),
+    PRIMARY KEY (asset_id)
+);
+
+CREATE TABLE orders (
+    order_id    UUID NOT NULL,
+    customer_id VARCHAR(255),
+    asset_name  VARCHAR(255),
+    order_side  ENUM ('BUY','SELL'),
+    size        NUMERIC(38,2),
+    price       NUMERIC(38,2),
+    status      ENUM ('CANCELED','MATCHED','PENDING'),
+    create_date TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (order_id)
+);
+
+-- Order book rebuilds and matching: pending orders of an asset and side, in price and time order
+CREATE INDEX idx_orders_book ON orders (status, asset_name, order_side, price, create_date);
+-- Order list by customer and date range, including continuation token paging
+CREATE INDEX idx_orders_customer_create_date ON orders (customer_id, create_date, order_id);
+-- Asset lookups and balance updates by customer and asset name
+CREATE INDEX idx_assets_customer_asset_name ON assets (customer_id, asset_name);
+CREATE INDEX idx_customer_username ON customer (username);
@@ -0,0 +1,14 @@
+-- Lowercase asset keys, so lookups compare a plain indexed column instead of lower(asset_name) per row
+ALTER TABLE assets ADD COLUMN asset_key VARCHAR(255);
+UPDATE assets SET asset_key = LOWER(asset_name);
+ALTER TABLE assets ALTER COLUMN asset_key SET NOT NULL;
+
+ALTER TABLE orders ADD COLUMN asset_key VARCHAR(255);
+UPDATE orders SET asset_key = LOWER(asset_name);
+ALTER TABLE orders ALTER COLUMN asset_key SET NOT NULL;
+
+DROP INDEX idx_assets_customer_asset_name;
+CREATE INDEX idx_assets_customer_asset_key ON assets (customer_id, asset_key);
+
+DROP INDEX idx_orders_book;
+CREATE INDEX idx_orders_book ON orders (status, asset_key, order_side, price, create_date);
@@ -0,0 +1,3 @@
+-- One asset row per customer and asset key, so a conditional balance UPDATE touches at most one row
+DROP INDEX idx_assets_customer_asset_key;
+CREATE UNIQUE INDEX idx_assets_customer_asset_key ON assets (customer_id, asset_key);
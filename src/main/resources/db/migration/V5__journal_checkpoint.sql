@@ -0,0 +1,7 @@
+-- Sequence of the last settlement journal record written to the tables, advanced in the same transaction as the record
+CREATE TABLE journal_checkpoint (
+    id                 INT    NOT NULL PRIMARY KEY,
+    projected_sequence BIGINT NOT NULL
+);
+
+INSERT INTO journal_checkpoint (id, projected_sequence) VALUES (1, 0);
@@ -0,0 +1,7 @@
+-- Time of the last change of an order, kept by the database on every insert and update, so an order book
+-- snapshot can be brought up to date with only the orders changed after it was taken
+ALTER TABLE orders ADD COLUMN modified_date TIMESTAMP(6) WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP;
+UPDATE orders SET modified_date = create_date;
+ALTER TABLE orders ALTER COLUMN modified_date SET NOT NULL;
+
+CREATE INDEX idx_orders_modified_date ON orders (modified_date);
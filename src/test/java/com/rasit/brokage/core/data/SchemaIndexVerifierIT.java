@@ -0,0 +1,36 @@
+package com.rasit.brokage.core.data;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class SchemaIndexVerifierIT {
+
+    @Autowired
+    private SchemaIndexVerifier schemaIndexVerifier;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void verify_shouldPass_whenMigrationsApplied() {
+        assertDoesNotThrow(() -> schemaIndexVerifier.verify());
+    }
+
+    @Test
+    void verify_shouldFail_whenDeclaredIndexIsMissing() {
+        jdbcTemplate.execute("DROP INDEX idx_orders_book");
+        try {
+            IllegalStateException exception = assertThrows(IllegalStateException.class, () -> schemaIndexVerifier.verify());
+            assertTrue(exception.getMessage().contains("orders.idx_orders_book"));
+        } finally {
+            jdbcTemplate.execute("CREATE INDEX idx_orders_book ON orders (status, asset_name, order_side, price, create_date)");
+        }
+    }
+}
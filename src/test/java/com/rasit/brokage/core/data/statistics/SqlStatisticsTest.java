@@ -0,0 +1,82 @@
+package com.rasit.brokage.core.data.statistics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatisticsTest {
+
+    private final SqlStatisticsListener listener = new SqlStatisticsListener(1000);
+
+    @AfterEach
+    void tearDown() {
+        SqlStatistics.end();
+    }
+
+    @Test
+    void afterQuery_shouldAttributeStatementsToDaoMethod() {
+        SqlStatistics statistics = SqlStatistics.begin(() -> "DELETE /v1/order");
+
+        String previous = SqlStatistics.enterDaoMethod("OrderDao.cancelOrderAndIncreaseUsableSizeofAsset");
+        execute(1, 3);
+        execute(1, 5);
+        SqlStatistics.exitDaoMethod(previous);
+        execute(1, 0);
+
+        assertEquals(3, statistics.getStatementCount());
+        assertEquals(3, statistics.getRowCount());
+        assertEquals(8, statistics.getElapsedMillis());
+        assertEquals(Map.of("statements", 2L, "rows", 2L, "elapsed_ms", 8L), statistics.getTotalsByDaoMethod().get("OrderDao.cancelOrderAndIncreaseUsableSizeofAsset"));
+        assertEquals(Map.of("statements", 1L, "rows", 1L, "elapsed_ms", 0L), statistics.getTotalsByDaoMethod().get(SqlStatistics.NO_DAO_METHOD));
+        assertEquals("DELETE /v1/order", statistics.getRoute());
+    }
+
+    @Test
+    void afterQuery_shouldNotRecord_whenNoRequestIsActive() {
+        execute(1, 1);
+
+        assertNull(SqlStatistics.current());
+    }
+
+    @Test
+    void propagate_shouldRecordIntoStatisticsOfCallingRequest_whenRunOnAnotherThread() throws Exception {
+        SqlStatistics statistics = SqlStatistics.begin(() -> "POST /v1/order/match");
+        ExecutorService shard = Executors.newSingleThreadExecutor();
+        try {
+            shard.submit(SqlStatistics.propagate(() -> {
+                execute(1, 1);
+                return null;
+            })).get();
+            assertNull(shard.submit(SqlStatistics::current).get());
+        } finally {
+            shard.shutdownNow();
+        }
+
+        assertEquals(1, statistics.getStatementCount());
+    }
+
+    @Test
+    void rowsOf_shouldSumBatchUpdateCounts_andIgnoreUnknownCounts() {
+        assertEquals(5, SqlStatisticsListener.rowsOf(new int[]{2, 3, Statement.SUCCESS_NO_INFO}));
+        assertEquals(4, SqlStatisticsListener.rowsOf(4));
+        assertEquals(0, SqlStatisticsListener.rowsOf(Boolean.TRUE));
+        assertEquals(0, SqlStatisticsListener.rowsOf(null));
+    }
+
+    private void execute(Object result, long elapsedMillis) {
+        ExecutionInfo execInfo = new ExecutionInfo();
+        execInfo.setResult(result);
+        execInfo.setElapsedTime(elapsedMillis);
+        execInfo.setSuccess(true);
+        listener.afterQuery(execInfo, List.of(new QueryInfo("UPDATE orders SET status = ?")));
+    }
+}
@@ -0,0 +1,135 @@
+package com.rasit.brokage.core.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedJournalTest {
+
+    private static final int SEGMENT_SIZE = 256;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void append_shouldNumberRecordsAndReplayThemAfterReopen() throws IOException {
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_SIZE, 0)) {
+            assertEquals(1, journal.append(bytes("one")));
+            assertEquals(2, journal.append(bytes("two")));
+            assertEquals(3, journal.append(bytes("three")));
+        }
+
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_SIZE, 0)) {
+            assertEquals(3, journal.getLastSequence());
+            assertEquals(List.of("2:two", "3:three"), replay(journal, 1));
+            assertEquals(4, journal.append(bytes("four")));
+        }
+    }
+
+    @Test
+    void open_shouldContinueAfterGivenSequence_whenItIsAheadOfTheRecords() throws IOException {
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_SIZE, 0)) {
+            journal.append(bytes("one"));
+        }
+
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_SIZE, 5)) {
+            assertEquals(6, journal.append(bytes("six")));
+            assertEquals(List.of("6:six"), replay(journal, 5));
+        }
+    }
+
+    @Test
+    void open_shouldDiscardTornRecordAtTheEnd() throws IOException {
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_SIZE, 0)) {
+            journal.append(bytes("one"));
+            journal.append(bytes("two"));
+        }
+        // Corrupt one payload byte of the second record, as if the write was interrupted
+        int secondPayload = MappedJournal.HEADER_SIZE + 3 + MappedJournal.HEADER_SIZE;
+        try (FileChannel channel = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'x'}), secondPayload);
+        }
+
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_SIZE, 0)) {
+            assertEquals(1, journal.getLastSequence());
+            assertEquals(2, journal.append(bytes("new")));
+            assertEquals(List.of("1:one", "2:new"), replay(journal, 0));
+        }
+    }
+
+    @Test
+    void append_shouldRollSegments_andDeleteProjectedOnes() throws IOException {
+        byte[] payload = new byte[100];
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_SIZE, 0)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(payload);
+            }
+            assertEquals(3, segments().size());
+
+            journal.deleteSegmentsUpTo(3);
+
+            assertEquals(2, segments().size());
+            assertEquals(3, replay(journal, 0).size());
+        }
+    }
+
+    @Test
+    void append_shouldRejectRecordLargerThanSegment() throws IOException {
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_SIZE, 0)) {
+            assertThrows(IllegalArgumentException.class, () -> journal.append(new byte[SEGMENT_SIZE]));
+        }
+    }
+
+    @Test
+    void append_shouldGiveEveryConcurrentRecordItsOwnSequence() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (MappedJournal journal = MappedJournal.open(directory, 64 * 1024, 0)) {
+            List<Future<Long>> sequences = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String text = "record-" + i;
+                sequences.add(executor.submit(() -> journal.append(bytes(text))));
+            }
+            List<Long> appended = new ArrayList<>();
+            for (Future<Long> sequence : sequences) {
+                appended.add(sequence.get());
+            }
+
+            assertEquals(200, appended.stream().distinct().count());
+            assertEquals(200, journal.getLastSequence());
+            assertEquals(200, replay(journal, 0).size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<String> replay(MappedJournal journal, long afterSequence) throws IOException {
+        List<String> records = new ArrayList<>();
+        journal.replay(afterSequence, (sequence, payload) -> records.add(sequence + ":" + StandardCharsets.UTF_8.decode(payload)));
+        return records;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,45 @@
+package com.rasit.brokage.core.journal;
+
+import com.rasit.brokage.core.settlement.BalanceDelta;
+import com.rasit.brokage.core.settlement.Settlement;
+import com.rasit.brokage.utility.StatusType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SettlementCodecTest {
+
+    @Test
+    void decode_shouldReturnEncodedSettlement() throws IOException {
+        UUID matched = UUID.randomUUID();
+        UUID resized = UUID.randomUUID();
+        Settlement settlement = new Settlement();
+        settlement.addToSize("buyer", "GOLD", 500);
+        settlement.addToUsableSize("buyer", "GOLD", 500);
+        settlement.addToSize("buyer", "TRY", -50_000);
+        settlement.markMatched(matched);
+        settlement.resize(resized, new BigDecimal("2.50"));
+
+        Settlement decoded = SettlementCodec.decode(ByteBuffer.wrap(SettlementCodec.encode(settlement)));
+
+        BalanceDelta gold = decoded.getBalanceDelta("buyer", "gold");
+        assertEquals(500, gold.getSize());
+        assertEquals(500, gold.getUsableSize());
+        assertEquals(-50_000, decoded.getBalanceDelta("buyer", "TRY").getSize());
+        assertEquals(2, decoded.getBalanceDeltas().size());
+        assertEquals(StatusType.MATCHED, decoded.getOrderUpdate(matched).getStatus());
+        assertNull(decoded.getOrderUpdate(matched).getSize());
+        assertNull(decoded.getOrderUpdate(resized).getStatus());
+        assertEquals(new BigDecimal("2.50"), decoded.getOrderUpdate(resized).getSize());
+    }
+
+    @Test
+    void decode_shouldRejectUnknownVersion() {
+        assertThrows(IOException.class, () -> SettlementCodec.decode(ByteBuffer.wrap(new byte[]{9, 0, 0, 0, 0})));
+    }
+}
@@ -0,0 +1,120 @@
+package com.rasit.brokage.core.journal;
+
+import com.rasit.brokage.core.data.SettlementDao;
+import com.rasit.brokage.core.settlement.Settlement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SettlementJournalTest {
+
+    @Mock
+    private SettlementDao settlementDao;
+
+    @TempDir
+    Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SettlementJournal settlementJournal;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (settlementJournal != null) {
+            settlementJournal.shutdown();
+        }
+    }
+
+    @Test
+    void settle_shouldWriteToTablesRightAway_whenJournalIsDisabled() throws Exception {
+        settlementJournal = journal(false);
+        settlementJournal.recover();
+        Settlement settlement = settlement();
+
+        settlementJournal.settle(settlement);
+
+        verify(settlementDao).settle(settlement);
+        verify(settlementDao, never()).getProjectedSequence();
+    }
+
+    @Test
+    void settle_shouldProjectJournaledSettlementInSequenceOrder_whenJournalIsEnabled() throws Exception {
+        settlementJournal = journal(true);
+        settlementJournal.recover();
+        Settlement first = settlement();
+        Settlement second = settlement();
+
+        settlementJournal.settle(first);
+        settlementJournal.settle(second);
+        settlementJournal.awaitProjected();
+
+        verify(settlementDao).settle(1L, first);
+        verify(settlementDao).settle(2L, second);
+        verify(settlementDao, never()).settle(any());
+        assertEquals(0.0, meterRegistry.get("brokage.journal.projection.lag").gauge().value());
+        assertEquals(2, meterRegistry.get("brokage.journal.append").timer().count());
+    }
+
+    @Test
+    void recover_shouldProjectRecordsAfterCheckpoint() throws Exception {
+        Settlement settlement = settlement();
+        try (MappedJournal journal = MappedJournal.open(directory, 64 * 1024, 0)) {
+            journal.append(SettlementCodec.encode(settlement()));
+            journal.append(SettlementCodec.encode(settlement));
+        }
+        when(settlementDao.getProjectedSequence()).thenReturn(1L);
+
+        settlementJournal = journal(true);
+        settlementJournal.recover();
+
+        ArgumentCaptor<Settlement> projected = ArgumentCaptor.forClass(Settlement.class);
+        verify(settlementDao).settle(eq(2L), projected.capture());
+        verify(settlementDao, never()).settle(eq(1L), any());
+        assertEquals(settlement.getBalanceDeltas().size(), projected.getValue().getBalanceDeltas().size());
+        assertEquals(settlement.getOrderUpdates().size(), projected.getValue().getOrderUpdates().size());
+    }
+
+    @Test
+    void awaitProjected_shouldThrow_whenProjectionDoesNotCatchUp() throws Exception {
+        when(settlementDao.settle(anyLong(), any())).thenThrow(new IllegalStateException("database down"));
+        settlementJournal = journal(true);
+        settlementJournal.recover();
+
+        settlementJournal.settle(settlement());
+
+        assertThrows(IllegalStateException.class, settlementJournal::awaitProjected);
+        assertEquals(1.0, meterRegistry.get("brokage.journal.projection.lag").gauge().value());
+    }
+
+    private SettlementJournal journal(boolean enabled) {
+        return new SettlementJournal(settlementDao, enabled, directory.toString(), 1, 200, meterRegistry);
+    }
+
+    private static Settlement settlement() {
+        Settlement settlement = new Settlement();
+        settlement.addToSize("buyer", "GOLD", 100);
+        settlement.addToUsableSize("buyer", "GOLD", 100);
+        settlement.markMatched(UUID.randomUUID());
+        return settlement;
+    }
+}
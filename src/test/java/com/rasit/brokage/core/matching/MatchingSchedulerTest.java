@@ -0,0 +1,115 @@
+package com.rasit.brokage.core.matching;
+
+import com.rasit.brokage.rest.exception.CustomException;
+import com.rasit.brokage.utility.ErrorMessageType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchingSchedulerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private MatchingScheduler matchingScheduler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        matchingScheduler = new MatchingScheduler(4, 1, 5000, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        matchingScheduler.shutdown();
+    }
+
+    @Test
+    void call_shouldRunTasksOfSameAssetOnSameShardThread() throws CustomException {
+        String first = matchingScheduler.call("GOLD", () -> Thread.currentThread().getName());
+        String second = matchingScheduler.call("GOLD", () -> Thread.currentThread().getName());
+
+        assertEquals(first, second);
+        assertEquals("matching-shard-" + matchingScheduler.shardOf("GOLD"), first);
+    }
+
+    @Test
+    void call_shouldRunInline_whenAlreadyOnShard() throws CustomException {
+        String nested = matchingScheduler.call("GOLD", () -> matchingScheduler.call("GOLD", () -> Thread.currentThread().getName()));
+
+        assertEquals("matching-shard-" + matchingScheduler.shardOf("GOLD"), nested);
+    }
+
+    @Test
+    void call_shouldRejectWithServiceUnavailable_whenShardQueueIsFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        assertTrue(matchingScheduler.execute("GOLD", () -> {
+            started.countDown();
+            awaitQuietly(release);
+        }));
+        started.await();
+        assertTrue(matchingScheduler.execute("GOLD", () -> { }));
+
+        CustomException exception = assertThrows(CustomException.class, () -> matchingScheduler.call("GOLD", () -> "rejected"));
+        release.countDown();
+
+        assertEquals(ErrorMessageType.MATCHING_UNAVAILABLE, exception.getErrorMessageType());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+        assertEquals(1.0, meterRegistry.get("brokage.matching.shard.rejected").tag("shard", String.valueOf(matchingScheduler.shardOf("GOLD"))).counter().count());
+    }
+
+    @Test
+    void call_shouldCancelTask_whenItDidNotStartWithinTimeout() throws InterruptedException {
+        MatchingScheduler shortTimeout = new MatchingScheduler(1, 4, 100, new SimpleMeterRegistry());
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            assertTrue(shortTimeout.execute("GOLD", () -> {
+                started.countDown();
+                awaitQuietly(release);
+            }));
+            started.await();
+            AtomicBoolean ran = new AtomicBoolean();
+
+            CustomException exception = assertThrows(CustomException.class, () -> shortTimeout.call("GOLD", () -> ran.getAndSet(true)));
+            release.countDown();
+            CountDownLatch drained = new CountDownLatch(1);
+            assertTrue(shortTimeout.execute("GOLD", drained::countDown));
+            drained.await();
+
+            assertEquals(ErrorMessageType.MATCHING_UNAVAILABLE, exception.getErrorMessageType());
+            assertFalse(ran.get());
+        } finally {
+            shortTimeout.shutdown();
+        }
+    }
+
+    @Test
+    void call_shouldWaitForResult_whenTaskStartedButOutlivesTimeout() throws Exception {
+        MatchingScheduler shortTimeout = new MatchingScheduler(1, 4, 100, new SimpleMeterRegistry());
+        try {
+            String result = shortTimeout.call("GOLD", () -> {
+                Thread.sleep(300);
+                return "committed";
+            });
+
+            assertEquals("committed", result);
+        } finally {
+            shortTimeout.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
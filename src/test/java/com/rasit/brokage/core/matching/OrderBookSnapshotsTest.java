@@ -0,0 +1,121 @@
+package com.rasit.brokage.core.matching;
+
+import com.rasit.brokage.core.data.OrderDao;
+import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.utility.FixedPoint;
+import com.rasit.brokage.utility.SideType;
+import com.rasit.brokage.utility.StatusType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBookSnapshotsTest {
+
+    @Mock
+    private OrderDao orderDao;
+
+    @TempDir
+    Path directory;
+
+    private final ZonedDateTime takenAt = ZonedDateTime.parse("2026-01-02T10:00:00Z");
+    private OrderEntity first;
+    private OrderEntity second;
+
+    @BeforeEach
+    void setUp() {
+        first = order("alice", "GOLD", SideType.SELL, "1.50", takenAt.minusMinutes(2));
+        second = order("bob", "GOLD", SideType.BUY, "3", takenAt.minusMinutes(1));
+    }
+
+    @Test
+    void loadPendingOrders_shouldReturnSnapshotWithChangesApplied() throws IOException {
+        OrderBookSnapshots snapshots = snapshots(directory.resolve("books.snapshot"), 2);
+        writeSnapshot(snapshots, first, second);
+        OrderEntity third = order("alice", "SILVER", SideType.BUY, "7", takenAt.plusSeconds(1));
+        OrderEntity canceled = order("alice", "GOLD", SideType.SELL, "1.50", first.getCreateDate());
+        canceled.setOrderId(first.getOrderId());
+        canceled.setStatus(StatusType.CANCELED);
+        when(orderDao.getOrdersModifiedSince(takenAt.minusSeconds(60))).thenReturn(List.of(canceled, third));
+
+        List<BookOrder> pendingOrders = snapshots.loadPendingOrders();
+
+        assertEquals(List.of(second.getOrderId(), third.getOrderId()), pendingOrders.stream().map(BookOrder::getOrderId).toList());
+        BookOrder restored = pendingOrders.get(0);
+        assertEquals("bob", restored.getCustomerId());
+        assertEquals("GOLD", restored.getAssetName());
+        assertEquals(SideType.BUY, restored.getOrderSide());
+        assertEquals(300, restored.getSize());
+        assertEquals(10_000, restored.getPrice());
+        assertEquals(second.getCreateDate().toInstant(), restored.getCreateDate().toInstant());
+    }
+
+    @Test
+    void loadPendingOrders_shouldReturnNull_whenSnapshotIsDamaged() throws IOException {
+        Path file = directory.resolve("books.snapshot");
+        OrderBookSnapshots snapshots = snapshots(file, 2);
+        writeSnapshot(snapshots, first, second);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+
+        assertNull(snapshots.loadPendingOrders());
+        verify(orderDao, never()).getOrdersModifiedSince(any());
+    }
+
+    @Test
+    void loadPendingOrders_shouldReturnNull_whenSnapshotHasAnotherScale() throws IOException {
+        Path file = directory.resolve("books.snapshot");
+        writeSnapshot(snapshots(file, 2), first);
+
+        assertNull(new OrderBookSnapshots(orderDao, new FixedPoint(4), true, file.toString(), 1000, 60000, new SimpleMeterRegistry()).loadPendingOrders());
+    }
+
+    @Test
+    void loadPendingOrders_shouldReturnNull_whenThereIsNoSnapshot() {
+        assertNull(snapshots(directory.resolve("missing.snapshot"), 2).loadPendingOrders());
+    }
+
+    private void writeSnapshot(OrderBookSnapshots snapshots, OrderEntity... orders) throws IOException {
+        when(orderDao.forEachPendingOrder(any())).thenAnswer(invocation -> {
+            Consumer<OrderEntity> action = invocation.getArgument(0);
+            List.of(orders).forEach(action);
+            return takenAt;
+        });
+        assertEquals(orders.length, snapshots.write());
+    }
+
+    private OrderBookSnapshots snapshots(Path file, int scale) {
+        return new OrderBookSnapshots(orderDao, new FixedPoint(scale), true, file.toString(), 1000, 60000, new SimpleMeterRegistry());
+    }
+
+    private static OrderEntity order(String customerId, String assetName, SideType side, String size, ZonedDateTime createDate) {
+        OrderEntity order = new OrderEntity();
+        order.setOrderId(UUID.randomUUID());
+        order.setCustomerId(customerId);
+        order.setAssetName(assetName);
+        order.setOrderSide(side);
+        order.setSize(new BigDecimal(size));
+        order.setPrice(BigDecimal.valueOf(100));
+        order.setStatus(StatusType.PENDING);
+        order.setCreateDate(createDate);
+        return order;
+    }
+}
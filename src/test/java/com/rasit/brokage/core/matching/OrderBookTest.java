@@ -0,0 +1,92 @@
+package com.rasit.brokage.core.matching;
+
+import com.rasit.brokage.utility.SideType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    private OrderBook orderBook;
+
+    @BeforeEach
+    void setUp() {
+        orderBook = new OrderBook("STOCK");
+    }
+
+    private BookOrder order(SideType side, long size, long price) {
+        return new BookOrder(UUID.randomUUID(), "cust", "STOCK", side, price, size, ZonedDateTime.now());
+    }
+
+    @Test
+    void add_shouldKeepBestBidAndAsk() {
+        orderBook.add(order(SideType.BUY, 1, 99));
+        orderBook.add(order(SideType.BUY, 1, 101));
+        orderBook.add(order(SideType.SELL, 1, 105));
+        orderBook.add(order(SideType.SELL, 1, 103));
+
+        assertEquals(101L, orderBook.getBestBid().getPrice());
+        assertEquals(103L, orderBook.getBestAsk().getPrice());
+        assertEquals(4, orderBook.getOrderCount());
+    }
+
+    @Test
+    void remove_shouldDropEmptyLevelAndRefreshBest() {
+        BookOrder best = orderBook.add(order(SideType.SELL, 1, 100));
+        orderBook.add(order(SideType.SELL, 1, 110));
+
+        assertNotNull(orderBook.remove(best.getOrderId()));
+
+        assertEquals(110L, orderBook.getBestAsk().getPrice());
+        assertNull(orderBook.remove(best.getOrderId()));
+    }
+
+    @Test
+    void match_shouldFillInPriceThenTimePriority() {
+        BookOrder expensive = orderBook.add(order(SideType.SELL, 5, 101));
+        BookOrder first = orderBook.add(order(SideType.SELL, 5, 100));
+        BookOrder second = orderBook.add(order(SideType.SELL, 5, 100));
+
+        List<Fill> fills = orderBook.match(order(SideType.BUY, 12, 101));
+
+        assertEquals(3, fills.size());
+        assertEquals(first.getOrderId(), fills.get(0).getCounterOrder().getOrderId());
+        assertEquals(second.getOrderId(), fills.get(1).getCounterOrder().getOrderId());
+        assertEquals(expensive.getOrderId(), fills.get(2).getCounterOrder().getOrderId());
+        assertEquals(2L, fills.get(2).getQuantity());
+        assertFalse(fills.get(2).isCounterOrderFilled());
+        assertEquals(3L, orderBook.getBestAsk().getTotalSize());
+        assertNull(orderBook.getBestBid());
+    }
+
+    @Test
+    void match_shouldStopAtFirstLevelThatDoesNotCross() {
+        orderBook.add(order(SideType.BUY, 5, 100));
+        orderBook.add(order(SideType.BUY, 5, 90));
+
+        BookOrder incoming = order(SideType.SELL, 20, 95);
+        List<Fill> fills = orderBook.match(incoming);
+
+        assertEquals(1, fills.size());
+        assertTrue(fills.get(0).isCounterOrderFilled());
+        assertEquals(15L, orderBook.getOrder(incoming.getOrderId()).getSize());
+        assertEquals(95L, orderBook.getBestAsk().getPrice());
+        assertEquals(90L, orderBook.getBestBid().getPrice());
+    }
+
+    @Test
+    void match_shouldRestOrder_whenBookDoesNotCross() {
+        orderBook.add(order(SideType.SELL, 5, 110));
+
+        BookOrder incoming = order(SideType.BUY, 5, 100);
+        List<Fill> fills = orderBook.match(incoming);
+
+        assertTrue(fills.isEmpty());
+        assertSame(incoming, orderBook.getOrder(incoming.getOrderId()));
+    }
+}
@@ -0,0 +1,43 @@
+package com.rasit.brokage.core.settlement;
+
+import com.rasit.brokage.utility.StatusType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SettlementTest {
+
+    @Test
+    void addToSize_shouldNetDeltasPerCustomerAndAsset_ignoringCase() {
+        Settlement settlement = new Settlement();
+        settlement.addToSize("custA", "STOCK", 10L);
+        settlement.addToSize("custA", "stock", 5L);
+        settlement.addToUsableSize("custA", "Stock", 3L);
+        settlement.addToSize("custB", "STOCK", -15L);
+        settlement.addToSize("custB", "TRY", 100L);
+        settlement.addToSize("custB", "TRY", -100L);
+
+        assertEquals(2, settlement.getBalanceDeltas().size());
+        BalanceDelta delta = settlement.getBalanceDelta("custA", "STOCK");
+        assertEquals("stock", delta.getAssetKey());
+        assertEquals(15L, delta.getSize());
+        assertEquals(3L, delta.getUsableSize());
+        assertTrue(settlement.getBalanceDelta("custB", "TRY").isZero());
+    }
+
+    @Test
+    void markMatched_shouldKeepOneUpdatePerOrder() {
+        Settlement settlement = new Settlement();
+        UUID orderId = UUID.randomUUID();
+        settlement.resize(orderId, BigDecimal.valueOf(5));
+        settlement.markMatched(orderId);
+
+        assertEquals(1, settlement.getOrderUpdates().size());
+        assertEquals(StatusType.MATCHED, settlement.getOrderUpdate(orderId).getStatus());
+        assertEquals(BigDecimal.valueOf(5), settlement.getOrderUpdate(orderId).getSize());
+        assertFalse(settlement.isEmpty());
+    }
+}
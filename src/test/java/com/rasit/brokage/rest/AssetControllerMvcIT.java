@@ -130,6 +130,16 @@ class AssetControllerMvcIT {
         mockMvc.perform(get(BASE_URL).with(user(userDetailsNonExistent)).param(BrokageConstants.PAGE_NUMBER, "0").param(BrokageConstants.PAGE_SIZE, "10").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk()).andExpect(jsonPath("$.assetRestResponseModels", hasSize(0))).andExpect(jsonPath("$.page_count", is(0))).andExpect(jsonPath("$.page_number", is(0))).andExpect(jsonPath("$.page_size", is(0))).andExpect(jsonPath("$.total_records", is(0)));
     }
 
+    @Test
+    @WithMockUser
+    void getAssets_shouldReturnChangedBalance_whenAssetChangedAfterItWasListed() throws Exception {
+        mockMvc.perform(get(BASE_URL).with(user(userDetailsCustomer1)).param(BrokageConstants.PAGE_NUMBER, "0").param(BrokageConstants.PAGE_SIZE, "10").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk()).andExpect(jsonPath("$.assetRestResponseModels[?(@.assetName == \"Customer1's Stock A\")].size", contains(10.0)));
+
+        assetDao.reduceSizeofAsset(customerId1.toString(), "Customer1's Stock A", BigDecimal.valueOf(4));
+
+        mockMvc.perform(get(BASE_URL).with(user(userDetailsCustomer1)).param(BrokageConstants.PAGE_NUMBER, "0").param(BrokageConstants.PAGE_SIZE, "10").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk()).andExpect(jsonPath("$.assetRestResponseModels[?(@.assetName == \"Customer1's Stock A\")].size", contains(6.0)));
+    }
+
     @Test
     void getAssets_shouldReturnUnauthorized_whenNotAuthenticated() throws Exception {
         mockMvc.perform(get(BASE_URL).param(BrokageConstants.PAGE_NUMBER, "0").param(BrokageConstants.PAGE_SIZE, "10").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isUnauthorized());
@@ -150,7 +160,7 @@ class AssetControllerMvcIT {
     @Test
     @WithMockUser(roles = "CUSTOMER")
     void getAssets_shouldReturnOwnList_whenCustomerAttemptsToUseCustomerIdHeader() throws Exception {
-        mockMvc.perform(get(BASE_URL).with(user(userDetailsCustomer1)).header(BrokageConstants.X_CUSTOMER_ID, customerId2).param(BrokageConstants.PAGE_NUMBER, "0").param(BrokageConstants.PAGE_SIZE, "10").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk()).andExpect(jsonPath("$.assetRestResponseModels", hasSize(2))).andExpect(jsonPath("$.assetRestResponseModels[0].assetName", is("Customer1's Stock A")));
+        mockMvc.perform(get(BASE_URL).with(user(userDetailsCustomer1)).header(BrokageConstants.X_CUSTOMER_ID, customerId2).param(BrokageConstants.PAGE_NUMBER, "0").param(BrokageConstants.PAGE_SIZE, "10").contentType(MediaType.APPLICATION_JSON)).andExpect(status().isOk()).andExpect(jsonPath("$.assetRestResponseModels", hasSize(2))).andExpect(jsonPath("$.assetRestResponseModels[*].assetName", containsInAnyOrder("Customer1's Stock A", "Customer1's Bond B")));
     }
 
     @Test
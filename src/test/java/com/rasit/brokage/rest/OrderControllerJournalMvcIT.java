@@ -0,0 +1,225 @@
+package com.rasit.brokage.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rasit.brokage.core.data.AssetDao;
+import com.rasit.brokage.core.data.CustomerDao;
+import com.rasit.brokage.core.data.OrderDao;
+import com.rasit.brokage.core.data.entity.AssetEntity;
+import com.rasit.brokage.core.data.entity.CustomerEntity;
+import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.core.journal.SettlementJournal;
+import com.rasit.brokage.core.matching.OrderBookRegistry;
+import com.rasit.brokage.rest.resource.order.OrderRestRequestModel;
+import com.rasit.brokage.rest.security.UserDetailsImpl;
+import com.rasit.brokage.utility.ApiPathValues;
+import com.rasit.brokage.utility.RoleType;
+import com.rasit.brokage.utility.SideType;
+import com.rasit.brokage.utility.StatusType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs orders through the API with settlements going through the {@link SettlementJournal}, and
+ * checks the tables once the journal is projected.
+ */
+@SpringBootTest(properties = {"brokage.journal.enabled=true", "brokage.journal.directory=target/journal-it/${random.uuid}"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderControllerJournalMvcIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CustomerDao customerDao;
+
+    @Autowired
+    private AssetDao assetDao;
+
+    @Autowired
+    private OrderDao orderDao;
+
+    @Autowired
+    private OrderBookRegistry orderBookRegistry;
+
+    @Autowired
+    private SettlementJournal settlementJournal;
+
+    private final String BASE_ORDER_URL = ApiPathValues.BASE_V1 + ApiPathValues.ORDER_ENDPOINT;
+    private final String MATCH_ORDER_URL = BASE_ORDER_URL + ApiPathValues.MATCH_ENDPOINT;
+
+    private String customer1Id;
+    private String customer2Id;
+    private UserDetailsImpl userDetailsCustomer1;
+    private UserDetailsImpl userDetailsCustomer2;
+    private UserDetailsImpl userDetailsAdmin;
+
+    @BeforeEach
+    void setUp() {
+        // Settlements of the previous test must not land in the tables after they are cleared
+        settlementJournal.awaitProjected();
+        customerDao.deleteAll();
+        assetDao.deleteAll();
+        orderDao.deleteAll();
+        orderBookRegistry.rebuild();
+
+        CustomerEntity customer1 = saveCustomer("customer1", RoleType.CUSTOMER);
+        CustomerEntity customer2 = saveCustomer("customer2", RoleType.CUSTOMER);
+        CustomerEntity admin = saveCustomer("admin", RoleType.ADMIN);
+        customer1Id = customer1.getId().toString();
+        customer2Id = customer2.getId().toString();
+        userDetailsCustomer1 = new UserDetailsImpl(customer1.getId(), "customer1", "pass", Collections.singleton(new SimpleGrantedAuthority("CUSTOMER")));
+        userDetailsCustomer2 = new UserDetailsImpl(customer2.getId(), "customer2", "pass", Collections.singleton(new SimpleGrantedAuthority("CUSTOMER")));
+        userDetailsAdmin = new UserDetailsImpl(admin.getId(), "admin", "pass", Collections.singleton(new SimpleGrantedAuthority("ADMIN")));
+
+        saveAsset(customer1Id, "GOLD", 100);
+        saveAsset(customer1Id, "TRY", 500000);
+        saveAsset(customer2Id, "GOLD", 50);
+        saveAsset(customer2Id, "TRY", 500000);
+    }
+
+    @Test
+    void deleteOrder_shouldCancelPartlyFilledOrderWithRestingSize_onceSettlementIsProjected() throws Exception {
+        String sellOrderId = createOrder(userDetailsCustomer2, SideType.SELL, 4, 100);
+        String buyOrderId = createOrder(userDetailsCustomer1, SideType.BUY, 10, 100);
+
+        match(buyOrderId)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderRestResponseModels", hasSize(1)));
+        cancel(buyOrderId);
+        settlementJournal.awaitProjected();
+
+        OrderEntity canceled = orderDao.getOrderByOrderIdAndStatus(buyOrderId, StatusType.CANCELED);
+        assertThat(canceled.getSize(), comparesEqualTo(BigDecimal.valueOf(6)));
+        assertThat(orderDao.getOrderByOrderIdAndStatus(sellOrderId, StatusType.MATCHED), notNullValue());
+        // 1000 reserved, 400 paid for the fill of 4 and 600 released by the cancel
+        assertBalance(customer1Id, "TRY", 499600, 499600);
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id, "GOLD").getSize(), comparesEqualTo(BigDecimal.valueOf(104)));
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer2Id, "GOLD").getSize(), comparesEqualTo(BigDecimal.valueOf(46)));
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer2Id, "TRY").getSize(), comparesEqualTo(BigDecimal.valueOf(500400)));
+    }
+
+    @Test
+    void deleteOrders_shouldCancelRestingOrdersWithRestingSizes_onceSettlementIsProjected() throws Exception {
+        createOrder(userDetailsCustomer2, SideType.SELL, 4, 100);
+        String partlyFilledOrderId = createOrder(userDetailsCustomer1, SideType.BUY, 10, 100);
+        String restingOrderId = createOrder(userDetailsCustomer1, SideType.BUY, 2, 50);
+        match(partlyFilledOrderId).andExpect(status().isOk());
+
+        mockMvc.perform(delete(BASE_ORDER_URL + ApiPathValues.ALL_ENDPOINT)
+                        .with(user(userDetailsCustomer1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.canceledCount", is(2)));
+        settlementJournal.awaitProjected();
+
+        assertThat(orderDao.getOrderByOrderIdAndStatus(partlyFilledOrderId, StatusType.CANCELED).getSize(), comparesEqualTo(BigDecimal.valueOf(6)));
+        assertThat(orderDao.getOrderByOrderIdAndStatus(restingOrderId, StatusType.CANCELED).getSize(), comparesEqualTo(BigDecimal.valueOf(2)));
+        assertBalance(customer1Id, "TRY", 499600, 499600);
+    }
+
+    @Test
+    void matchAndDeleteOrder_shouldLeaveFilledOrder_whenItIsNoLongerInTheBook() throws Exception {
+        String sellOrderId = createOrder(userDetailsCustomer2, SideType.SELL, 4, 100);
+        String buyOrderId = createOrder(userDetailsCustomer1, SideType.BUY, 4, 100);
+        match(buyOrderId)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderRestResponseModels", hasSize(2)));
+
+        // Both orders are filled whether or not the table shows it yet
+        match(sellOrderId).andExpect(status().isNotFound());
+        cancel(sellOrderId);
+        settlementJournal.awaitProjected();
+
+        assertThat(orderDao.getOrderByOrderIdAndStatus(sellOrderId, StatusType.MATCHED), notNullValue());
+        assertThat(orderDao.getOrderByOrderIdAndStatus(buyOrderId, StatusType.MATCHED), notNullValue());
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer2Id, "TRY").getSize(), comparesEqualTo(BigDecimal.valueOf(500400)));
+    }
+
+    @Test
+    void deleteOrder_shouldReleaseProjectedSize_whenBooksAreRebuiltAfterPartialFill() throws Exception {
+        createOrder(userDetailsCustomer2, SideType.SELL, 4, 100);
+        String buyOrderId = createOrder(userDetailsCustomer1, SideType.BUY, 10, 100);
+        match(buyOrderId).andExpect(status().isOk());
+
+        // Loading the books waits for the projection, so the order is loaded with its remaining size of 6
+        orderBookRegistry.rebuild();
+        cancel(buyOrderId);
+
+        assertThat(orderDao.getOrderByOrderIdAndStatus(buyOrderId, StatusType.CANCELED).getSize(), comparesEqualTo(BigDecimal.valueOf(6)));
+        assertBalance(customer1Id, "TRY", 499600, 499600);
+    }
+
+    private String createOrder(UserDetailsImpl userDetails, SideType orderSide, long size, long price) throws Exception {
+        OrderRestRequestModel request = new OrderRestRequestModel(null, "GOLD", orderSide, BigDecimal.valueOf(size), BigDecimal.valueOf(price));
+        String response = mockMvc.perform(post(BASE_ORDER_URL)
+                        .with(user(userDetails))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("identifier").asText();
+    }
+
+    private ResultActions match(String orderId) throws Exception {
+        return mockMvc.perform(post(MATCH_ORDER_URL)
+                .with(user(userDetailsAdmin))
+                .param(ApiPathValues.ORDERID, orderId));
+    }
+
+    private void cancel(String orderId) throws Exception {
+        mockMvc.perform(delete(BASE_ORDER_URL)
+                        .with(user(userDetailsAdmin))
+                        .param(ApiPathValues.ORDERID, orderId))
+                .andExpect(status().isNoContent());
+    }
+
+    private void assertBalance(String customerId, String assetName, long size, long usableSize) {
+        AssetEntity asset = assetDao.findAssetByCustomerIdAndName(customerId, assetName);
+        assertThat(asset.getSize(), comparesEqualTo(BigDecimal.valueOf(size)));
+        assertThat(asset.getUsableSize(), comparesEqualTo(BigDecimal.valueOf(usableSize)));
+    }
+
+    private CustomerEntity saveCustomer(String username, RoleType role) {
+        CustomerEntity customer = new CustomerEntity();
+        customer.setFirstName(username);
+        customer.setLastName(username);
+        customer.setUsername(username);
+        customer.setPassword("pass");
+        customer.setRole(role);
+        return customerDao.save(customer);
+    }
+
+    private void saveAsset(String customerId, String assetName, long size) {
+        AssetEntity asset = new AssetEntity();
+        asset.setCustomerId(customerId);
+        asset.setAssetName(assetName);
+        asset.setSize(BigDecimal.valueOf(size));
+        asset.setUsableSize(BigDecimal.valueOf(size));
+        assetDao.save(asset);
+    }
+}
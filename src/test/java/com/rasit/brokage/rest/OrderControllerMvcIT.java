@@ -7,36 +7,69 @@ import com.rasit.brokage.core.data.OrderDao;
 import com.rasit.brokage.core.data.entity.AssetEntity;
 import com.rasit.brokage.core.data.entity.CustomerEntity;
 import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.core.matching.BookOrder;
+import com.rasit.brokage.core.matching.MatchingScheduler;
+import com.rasit.brokage.core.matching.OrderBookRegistry;
+import com.rasit.brokage.core.matching.OrderBookSnapshots;
 import com.rasit.brokage.rest.resource.auth.AuthRestRequestModel;
 import com.rasit.brokage.rest.resource.auth.AuthRestResponseModel;
+import com.rasit.brokage.rest.resource.order.OrderBatchRestRequestModel;
 import com.rasit.brokage.rest.resource.order.OrderRestRequestModel;
+import com.rasit.brokage.rest.resource.order.OrdersRestResponseListModel;
 import com.rasit.brokage.rest.security.UserDetailsImpl;
 import com.rasit.brokage.utility.*;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
-import java.util.Collections;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
 @ActiveProfiles("test")
 class OrderControllerMvcIT {
 
@@ -55,9 +88,24 @@ class OrderControllerMvcIT {
     @Autowired
     private OrderDao orderDao;
 
+    @Autowired
+    private OrderBookRegistry orderBookRegistry;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private FixedPoint fixedPoint;
+
+    @Autowired
+    private MatchingScheduler matchingScheduler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private final String BASE_ORDER_URL = ApiPathValues.BASE_V1 + ApiPathValues.ORDER_ENDPOINT;
     private final String LIST_ORDER_URL = BASE_ORDER_URL + ApiPathValues.LIST_ENDPOINT;
     private final String MATCH_ORDER_URL = BASE_ORDER_URL + ApiPathValues.MATCH_ENDPOINT;
@@ -176,6 +224,47 @@ class OrderControllerMvcIT {
                 .andExpect(jsonPath("$.status", is("PENDING")));
     }
 
+    @Test
+    void createOrder_shouldBeExportedToPrometheus() throws Exception {
+        OrderRestRequestModel request = new OrderRestRequestModel();
+        request.setAssetName("GOLD");
+        request.setOrderSide(SideType.BUY);
+        request.setSize(BigDecimal.valueOf(10));
+        request.setPrice(BigDecimal.valueOf(100));
+
+        mockMvc.perform(post(BASE_ORDER_URL)
+                        .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + customer1Jwt)
+                        .with(user(userDetailsCustomer1))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/actuator/prometheus")
+                        .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + customer1Jwt)
+                        .with(user(userDetailsCustomer1)))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("brokage_order_create_seconds_bucket")))
+                .andExpect(content().string(containsString("brokage_order_balance_rejected_total")))
+                .andExpect(content().string(containsString("brokage_orderbook_depth{asset=\"gold\"}")));
+    }
+
+    @Test
+    void createOrder_shouldReturnBadRequest_whenSizeHasMoreDecimalsThanSupported() throws Exception {
+        OrderRestRequestModel request = new OrderRestRequestModel();
+        request.setAssetName("GOLD");
+        request.setOrderSide(SideType.SELL);
+        request.setSize(new BigDecimal("1.005"));
+        request.setPrice(BigDecimal.valueOf(100));
+
+        mockMvc.perform(post(BASE_ORDER_URL)
+                        .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + customer1Jwt)
+                        .with(user(userDetailsCustomer1))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.subErrors[*].subText", notNullValue()));
+    }
+
     @Test
     void createOrder_shouldReturnNotFound_forNonExistentAsset() throws Exception {
         OrderRestRequestModel request = new OrderRestRequestModel();
@@ -231,6 +320,167 @@ class OrderControllerMvcIT {
                 .andExpect(jsonPath("$.assetName", is("SILVER")));
     }
 
+    @Test
+    void createOrder_shouldNeverOverdrawUsableSize_whenOrdersArriveConcurrently() throws Exception {
+        AssetEntity customer1Try = assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "TRY");
+        customer1Try.setUsableSize(BigDecimal.valueOf(1000L));
+        assetDao.save(customer1Try);
+
+        OrderRestRequestModel request = new OrderRestRequestModel();
+        request.setAssetName("GOLD");
+        request.setOrderSide(SideType.BUY);
+        request.setSize(BigDecimal.ONE);
+        request.setPrice(BigDecimal.valueOf(100));
+        String content = objectMapper.writeValueAsString(request);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Integer>> requests = Collections.nCopies(20, () -> mockMvc.perform(post(BASE_ORDER_URL)
+                            .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + customer1Jwt)
+                            .with(user(userDetailsCustomer1))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(content))
+                    .andReturn().getResponse().getStatus());
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> response : executor.invokeAll(requests)) {
+                statuses.add(response.get());
+            }
+
+            assertEquals(10, Collections.frequency(statuses, 201));
+            assertEquals(10, Collections.frequency(statuses, 400));
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "TRY").getUsableSize(), comparesEqualTo(BigDecimal.ZERO));
+    }
+
+    @Test
+    void createOrders_shouldCreateValidOrdersAndRejectOthersPerItem() throws Exception {
+        OrderBatchRestRequestModel batch = new OrderBatchRestRequestModel(List.of(
+                new OrderRestRequestModel(null, "GOLD", SideType.SELL, BigDecimal.valueOf(60), BigDecimal.valueOf(100)),
+                new OrderRestRequestModel(null, "gold", SideType.SELL, BigDecimal.valueOf(60), BigDecimal.valueOf(100)),
+                new OrderRestRequestModel(null, "SILVER", SideType.BUY, BigDecimal.ONE, BigDecimal.valueOf(100)),
+                new OrderRestRequestModel(null, "GOLD", SideType.BUY, BigDecimal.valueOf(10), BigDecimal.valueOf(100))));
+
+        MvcResult result = mockMvc.perform(post(BASE_ORDER_URL + ApiPathValues.BATCH_ENDPOINT)
+                        .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + customer1Jwt)
+                        .with(user(userDetailsCustomer1))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.createdCount", is(2)))
+                .andExpect(jsonPath("$.rejectedCount", is(2)))
+                .andExpect(jsonPath("$.results[*].status", contains(201, 400, 404, 201)))
+                .andExpect(jsonPath("$.results[0].order.customerId", is(customer1Id.toString())))
+                .andExpect(jsonPath("$.results[1].error.messageId", is(ErrorMessageType.ASSET_USABLE_SIZE_NOT_ENOUGH.getMessageId())))
+                .andExpect(jsonPath("$.results[2].error.messageId", is(ErrorMessageType.ASSET_NOT_FOUND.getMessageId())))
+                .andReturn();
+
+        String createdOrderId = objectMapper.readTree(result.getResponse().getContentAsString()).at("/results/3/order/identifier").asText();
+        assertEquals(StatusType.PENDING, orderDao.getOrderByOrderIdAndStatus(createdOrderId, StatusType.PENDING).getStatus());
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "GOLD").getUsableSize(), comparesEqualTo(BigDecimal.valueOf(40L)));
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "TRY").getUsableSize(), comparesEqualTo(BigDecimal.valueOf(499000L)));
+    }
+
+    @Test
+    void createOrders_shouldReturnBadRequest_forEmptyBatch() throws Exception {
+        mockMvc.perform(post(BASE_ORDER_URL + ApiPathValues.BATCH_ENDPOINT)
+                        .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + customer1Jwt)
+                        .with(user(userDetailsCustomer1))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new OrderBatchRestRequestModel(List.of()))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.subErrors[*].subText", hasItem(containsString(BrokageConstants.ORDER_BATCH_EMPTY_VIOLATION))));
+    }
+
+    @Test
+    void deleteOrders_shouldCancelPendingOrdersOfFilterAndReleaseUsableSizes() throws Exception {
+        createBatch(customer1Jwt, userDetailsCustomer1, null, List.of(
+                new OrderRestRequestModel(null, "GOLD", SideType.SELL, BigDecimal.valueOf(10), BigDecimal.valueOf(100)),
+                new OrderRestRequestModel(null, "GOLD", SideType.SELL, BigDecimal.valueOf(20), BigDecimal.valueOf(110)),
+                new OrderRestRequestModel(null, "GOLD", SideType.BUY, BigDecimal.valueOf(5), BigDecimal.valueOf(90))));
+        createBatch(adminJwt, userDetailsAdmin, customer2Id, List.of(
+                new OrderRestRequestModel(null, "SILVER", SideType.SELL, BigDecimal.valueOf(5), BigDecimal.valueOf(100))));
+
+        mockMvc.perform(delete(BASE_ORDER_URL + ApiPathValues.ALL_ENDPOINT)
+                        .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + customer1Jwt)
+                        .with(user(userDetailsCustomer1))
+                        .param(BrokageConstants.ASSET_NAME, "gold")
+                        .param(BrokageConstants.ORDER_SIDE, SideType.SELL.name()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.canceledCount", is(2)));
+
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "GOLD").getUsableSize(), comparesEqualTo(BigDecimal.valueOf(100L)));
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "TRY").getUsableSize(), comparesEqualTo(BigDecimal.valueOf(499550L)));
+
+        mockMvc.perform(delete(BASE_ORDER_URL + ApiPathValues.ALL_ENDPOINT)
+                        .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + customer1Jwt)
+                        .with(user(userDetailsCustomer1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.canceledCount", is(1)));
+
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "TRY").getUsableSize(), comparesEqualTo(BigDecimal.valueOf(500000L)));
+        assertTrue(orderDao.getAllByStatus(StatusType.PENDING).stream().allMatch(order -> order.getCustomerId().equals(customer2Id.toString())));
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer2Id.toString(), "SILVER").getUsableSize(), comparesEqualTo(BigDecimal.valueOf(45L)));
+    }
+
+    @Test
+    void deleteOrders_shouldReleaseWhatEachOrderReserved_whenProductsAreRounded() throws Exception {
+        // 0.50 x 0.03 = 0.015 is reserved as 0.02 per order
+        createBatch(customer1Jwt, userDetailsCustomer1, null, List.of(
+                new OrderRestRequestModel(null, "GOLD", SideType.BUY, new BigDecimal("0.50"), new BigDecimal("0.03")),
+                new OrderRestRequestModel(null, "GOLD", SideType.BUY, new BigDecimal("0.50"), new BigDecimal("0.03")),
+                new OrderRestRequestModel(null, "GOLD", SideType.BUY, new BigDecimal("0.50"), new BigDecimal("0.03"))));
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "TRY").getUsableSize(), comparesEqualTo(new BigDecimal("499999.94")));
+
+        mockMvc.perform(delete(BASE_ORDER_URL + ApiPathValues.ALL_ENDPOINT)
+                        .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + customer1Jwt)
+                        .with(user(userDetailsCustomer1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.canceledCount", is(3)));
+
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "TRY").getUsableSize(), comparesEqualTo(BigDecimal.valueOf(500000L)));
+    }
+
+    @Test
+    void loadPendingOrders_shouldApplyOrdersChangedAfterSnapshot(@TempDir Path directory) throws Exception {
+        createBatch(customer1Jwt, userDetailsCustomer1, null, List.of(
+                new OrderRestRequestModel(null, "GOLD", SideType.SELL, BigDecimal.valueOf(10), BigDecimal.valueOf(100)),
+                new OrderRestRequestModel(null, "GOLD", SideType.SELL, BigDecimal.valueOf(20), BigDecimal.valueOf(110))));
+        OrderBookSnapshots snapshots = new OrderBookSnapshots(orderDao, fixedPoint, true, directory.resolve("orderbooks.snapshot").toString(), 60000, 0, new SimpleMeterRegistry());
+        assertEquals(2, snapshots.write());
+
+        OrderEntity canceled = orderDao.getAllByStatus(StatusType.PENDING).stream()
+                .filter(order -> order.getSize().compareTo(BigDecimal.TEN) == 0).findFirst().orElseThrow();
+        mockMvc.perform(delete(BASE_ORDER_URL)
+                        .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + customer1Jwt)
+                        .with(user(userDetailsCustomer1))
+                        .param(ApiPathValues.ORDERID, canceled.getOrderId().toString()))
+                .andExpect(status().isNoContent());
+        createBatch(customer1Jwt, userDetailsCustomer1, null, List.of(
+                new OrderRestRequestModel(null, "GOLD", SideType.BUY, BigDecimal.valueOf(5), BigDecimal.valueOf(90))));
+
+        List<BookOrder> pendingOrders = snapshots.loadPendingOrders();
+
+        assertEquals(List.of(SideType.SELL, SideType.BUY), pendingOrders.stream().map(BookOrder::getOrderSide).toList());
+        assertEquals(orderDao.getAllByStatus(StatusType.PENDING).stream().map(OrderEntity::getOrderId).collect(Collectors.toSet()),
+                pendingOrders.stream().map(BookOrder::getOrderId).collect(Collectors.toSet()));
+    }
+
+    private void createBatch(String jwt, UserDetailsImpl userDetails, UUID customerId, List<OrderRestRequestModel> orders) throws Exception {
+        MockHttpServletRequestBuilder request = post(BASE_ORDER_URL + ApiPathValues.BATCH_ENDPOINT)
+                .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + jwt)
+                .with(user(userDetails))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new OrderBatchRestRequestModel(orders)));
+        if (customerId != null) {
+            request.header(BrokageConstants.X_CUSTOMER_ID, customerId);
+        }
+        mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.createdCount", is(orders.size())));
+    }
+
     @Test
     void getOrders_shouldReturnOrdersForAuthenticatedCustomer() throws Exception {
         OrderEntity order1 = new OrderEntity();
@@ -270,6 +520,131 @@ class OrderControllerMvcIT {
                 .andExpect(jsonPath("$.orderRestResponseModels[1].customerId", is(customer1Id.toString())));
     }
 
+    @Test
+    void getOrders_shouldReturnNotModified_untilAnOrderOfCustomerIsCreated() throws Exception {
+        String startDate = ZonedDateTime.now().minusDays(7).format(BrokageUtil.timeFormatter);
+        String endDate = ZonedDateTime.now().plusDays(1).format(BrokageUtil.timeFormatter);
+        MvcResult first = mockMvc.perform(get(LIST_ORDER_URL)
+                        .with(user(userDetailsCustomer1))
+                        .param("startDate", startDate)
+                        .param("endDate", endDate))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(LIST_ORDER_URL)
+                        .with(user(userDetailsCustomer1))
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .param("startDate", startDate)
+                        .param("endDate", endDate))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        OrderRestRequestModel request = new OrderRestRequestModel();
+        request.setAssetName("GOLD");
+        request.setOrderSide(SideType.BUY);
+        request.setSize(BigDecimal.valueOf(10));
+        request.setPrice(BigDecimal.valueOf(100));
+        mockMvc.perform(post(BASE_ORDER_URL)
+                        .with(user(userDetailsCustomer1))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get(LIST_ORDER_URL)
+                        .with(user(userDetailsCustomer1))
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                        .param("startDate", startDate)
+                        .param("endDate", endDate))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+                .andExpect(jsonPath("$.orderRestResponseModels", hasSize(1)));
+    }
+
+    @Test
+    void streamOrders_shouldSendCreatedOrderAndReservedBalance_toSubscribedCustomer() throws Exception {
+        MvcResult stream = mockMvc.perform(get(BASE_ORDER_URL + ApiPathValues.STREAM_ENDPOINT)
+                        .with(user(userDetailsCustomer1))
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        OrderRestRequestModel request = new OrderRestRequestModel();
+        request.setAssetName("GOLD");
+        request.setOrderSide(SideType.BUY);
+        request.setSize(BigDecimal.valueOf(10));
+        request.setPrice(BigDecimal.valueOf(100));
+        mockMvc.perform(post(BASE_ORDER_URL)
+                        .with(user(userDetailsCustomer1))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        // Events are sent by the stream threads after the commit; the data of an event may come in a later write than its name
+        String events = "";
+        for (long deadline = System.currentTimeMillis() + 5000; !events.contains("\"usableSize\":-1000") && System.currentTimeMillis() < deadline; Thread.sleep(20)) {
+            events = stream.getResponse().getContentAsString();
+        }
+        assertThat(events, containsString("event:order"));
+        assertThat(events, containsString("\"status\":\"PENDING\""));
+        assertThat(events, containsString("event:balance"));
+        assertThat(events, containsString("\"assetName\":\"TRY\""));
+        assertThat(events, containsString("\"usableSize\":-1000"));
+    }
+
+    @Test
+    void getOrders_shouldWalkAllOrdersOnce_whenPagingWithContinuationToken() throws Exception {
+        ZonedDateTime sameInstant = ZonedDateTime.now().minusDays(2);
+        for (int i = 0; i < 5; i++) {
+            OrderEntity order = new OrderEntity();
+            order.setCustomerId(customer1Id.toString());
+            order.setAssetName("GOLD");
+            order.setOrderSide(SideType.BUY);
+            order.setSize(BigDecimal.ONE);
+            order.setPrice(BigDecimal.TEN);
+            order.setStatus(StatusType.PENDING);
+            order.setCreateDate(i < 3 ? sameInstant : sameInstant.plusHours(i));
+            orderDao.save(order);
+        }
+
+        String startDate = ZonedDateTime.now().minusDays(7).format(BrokageUtil.timeFormatter);
+        String endDate = ZonedDateTime.now().plusDays(1).format(BrokageUtil.timeFormatter);
+        Set<String> seen = new HashSet<>();
+        String continuationToken = "";
+        int pages = 0;
+        do {
+            String body = mockMvc.perform(get(LIST_ORDER_URL)
+                            .with(user(userDetailsCustomer1))
+                            .param("startDate", startDate)
+                            .param("endDate", endDate)
+                            .param(BrokageConstants.PAGE_SIZE, "2")
+                            .param(BrokageConstants.CONTINUATION_TOKEN, continuationToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.orderRestResponseModels", hasSize(lessThanOrEqualTo(2))))
+                    .andReturn().getResponse().getContentAsString();
+            OrdersRestResponseListModel page = objectMapper.readValue(body, OrdersRestResponseListModel.class);
+            page.getOrderRestResponseModels().forEach(order -> assertTrue(seen.add(order.getIdentifier())));
+            continuationToken = page.getContinuationToken();
+            pages++;
+        } while (continuationToken != null);
+
+        assertEquals(5, seen.size());
+        assertEquals(3, pages);
+    }
+
+    @Test
+    void getOrders_shouldReturnBadRequest_forInvalidContinuationToken() throws Exception {
+        mockMvc.perform(get(LIST_ORDER_URL)
+                        .with(user(userDetailsCustomer1))
+                        .param("startDate", ZonedDateTime.now().minusDays(7).format(BrokageUtil.timeFormatter))
+                        .param("endDate", ZonedDateTime.now().plusDays(1).format(BrokageUtil.timeFormatter))
+                        .param(BrokageConstants.CONTINUATION_TOKEN, "bogus"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.messageId", is(ErrorMessageType.INVALID_CONTINUATION_TOKEN.getMessageId())));
+    }
+
     @Test
     void getOrders_shouldReturnBadRequest_forInvalidDateFormat() throws Exception {
         String invalidStartDate = "2025-06-01";
@@ -334,6 +709,58 @@ class OrderControllerMvcIT {
                 .andExpect(jsonPath("$.orderRestResponseModels[0].status", is("CANCELED")));;
     }
 
+    @Test
+    void deleteOrder_shouldCancelWithOneLockedReadAndTwoUpdates() throws Exception {
+        OrderEntity orderToCancel = new OrderEntity();
+        orderToCancel.setCustomerId(customer1Id.toString());
+        orderToCancel.setAssetName("GOLD");
+        orderToCancel.setOrderSide(SideType.SELL);
+        orderToCancel.setSize(BigDecimal.valueOf(10L));
+        orderToCancel.setPrice(BigDecimal.valueOf(100));
+        orderToCancel.setStatus(StatusType.PENDING);
+        orderToCancel.setCreateDate(ZonedDateTime.now());
+        orderToCancel = orderDao.save(orderToCancel);
+        // Loads the book of GOLD up front, so only the statements of the cancel itself are counted
+        orderBookRegistry.rebuild();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(delete(BASE_ORDER_URL)
+                        .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + customer1Jwt)
+                        .with(user(userDetailsCustomer1))
+                        .param(ApiPathValues.ORDERID, orderToCancel.getOrderId().toString()))
+                .andExpect(status().isNoContent());
+
+        // 5 before the single locked read: the existence and ownership check, two reads by id and
+        // status, and the status and usable size updates
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(StatusType.CANCELED, orderDao.getOrderByOrderIdAndStatus(orderToCancel.getOrderId().toString(), StatusType.CANCELED).getStatus());
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "GOLD").getUsableSize(), comparesEqualTo(BigDecimal.valueOf(110L)));
+    }
+
+    @Test
+    @ExtendWith(OutputCaptureExtension.class)
+    void deleteOrder_shouldLogSqlStatementsByRouteAndDaoMethod(CapturedOutput output) throws Exception {
+        OrderEntity orderToCancel = new OrderEntity();
+        orderToCancel.setCustomerId(customer1Id.toString());
+        orderToCancel.setAssetName("GOLD");
+        orderToCancel.setOrderSide(SideType.SELL);
+        orderToCancel.setSize(BigDecimal.valueOf(10L));
+        orderToCancel.setPrice(BigDecimal.valueOf(100));
+        orderToCancel.setStatus(StatusType.PENDING);
+        orderToCancel.setCreateDate(ZonedDateTime.now());
+        orderToCancel = orderDao.save(orderToCancel);
+        orderBookRegistry.rebuild();
+
+        mockMvc.perform(delete(BASE_ORDER_URL)
+                        .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + customer1Jwt)
+                        .with(user(userDetailsCustomer1))
+                        .param(ApiPathValues.ORDERID, orderToCancel.getOrderId().toString()))
+                .andExpect(status().isNoContent());
+
+        assertThat(output.getOut(), containsString("DELETE " + BASE_ORDER_URL + " issued 3 SQL statements touching 2 rows"));
+    }
+
     @Test
     void deleteOrder_shouldReturnNotFound_whenCustomerDeletesAnotherCustomersOrder() throws Exception {
         OrderEntity orderToCancel = new OrderEntity();
@@ -364,12 +791,19 @@ class OrderControllerMvcIT {
         orderToCancel.setStatus(StatusType.PENDING);
         orderToCancel.setCreateDate(ZonedDateTime.now());
         orderToCancel = orderDao.save(orderToCancel);
+        orderBookRegistry.rebuild();
 
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
         mockMvc.perform(delete(BASE_ORDER_URL)
                         .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + adminJwt)
                         .with(user(userDetailsAdmin))
                         .param(ApiPathValues.ORDERID, String.valueOf(orderToCancel.getOrderId())))
                 .andExpect(status().isNoContent());
+
+        // The owner is read first, then the same locked read and two updates as a customer cancel
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer2Id.toString(), "TRY").getUsableSize(), comparesEqualTo(BigDecimal.valueOf(500010L)));
     }
 
     @Test
@@ -384,11 +818,16 @@ class OrderControllerMvcIT {
         orderToCancel.setCreateDate(ZonedDateTime.now());
         orderToCancel = orderDao.save(orderToCancel);
 
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
         mockMvc.perform(delete(BASE_ORDER_URL)
                         .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + customer1Jwt)
                         .with(user(userDetailsCustomer1))
                         .param(ApiPathValues.ORDERID, orderToCancel.getOrderId().toString()))
                 .andExpect(status().isNoContent());
+
+        // The locked read finds nothing and the existence check tells it from a foreign order
+        assertEquals(2, statistics.getPrepareStatementCount());
     }
 
     @Test
@@ -428,4 +867,173 @@ class OrderControllerMvcIT {
                         .param(ApiPathValues.ORDERID, matchedOrder.getOrderId().toString()))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    void matchOrders_shouldSettleBalancesAndStatuses_whenOrdersCross() throws Exception {
+        AssetEntity customer1Silver = new AssetEntity();
+        customer1Silver.setCustomerId(customer1Id.toString());
+        customer1Silver.setAssetName("SILVER");
+        customer1Silver.setSize(BigDecimal.ZERO);
+        customer1Silver.setUsableSize(BigDecimal.ZERO);
+        assetDao.save(customer1Silver);
+
+        OrderEntity sellOrder = new OrderEntity();
+        sellOrder.setCustomerId(customer2Id.toString());
+        sellOrder.setAssetName("SILVER");
+        sellOrder.setOrderSide(SideType.SELL);
+        sellOrder.setSize(BigDecimal.valueOf(10L));
+        sellOrder.setPrice(BigDecimal.valueOf(100));
+        sellOrder.setStatus(StatusType.PENDING);
+        sellOrder.setCreateDate(ZonedDateTime.now().minusMinutes(1));
+        sellOrder = orderDao.save(sellOrder);
+
+        OrderEntity buyOrder = new OrderEntity();
+        buyOrder.setCustomerId(customer1Id.toString());
+        buyOrder.setAssetName("SILVER");
+        buyOrder.setOrderSide(SideType.BUY);
+        buyOrder.setSize(BigDecimal.valueOf(10L));
+        buyOrder.setPrice(BigDecimal.valueOf(100));
+        buyOrder.setStatus(StatusType.PENDING);
+        buyOrder.setCreateDate(ZonedDateTime.now());
+        buyOrder = orderDao.save(buyOrder);
+
+        // orders saved straight to the table are not in the resident books yet
+        orderBookRegistry.rebuild();
+
+        mockMvc.perform(post(MATCH_ORDER_URL)
+                        .header(BrokageConstants.AUTHORIZATION_HEADER, BrokageConstants.BEARER_TOKEN_PREFIX + adminJwt)
+                        .with(user(userDetailsAdmin))
+                        .param(ApiPathValues.ORDERID, buyOrder.getOrderId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderRestResponseModels", hasSize(2)));
+
+        assertThat(orderDao.getOrderByOrderIdAndStatus(buyOrder.getOrderId().toString(), StatusType.MATCHED), notNullValue());
+        assertThat(orderDao.getOrderByOrderIdAndStatus(sellOrder.getOrderId().toString(), StatusType.MATCHED), notNullValue());
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "SILVER").getSize(), comparesEqualTo(BigDecimal.valueOf(10L)));
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "TRY").getSize(), comparesEqualTo(BigDecimal.valueOf(499000L)));
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer2Id.toString(), "SILVER").getSize(), comparesEqualTo(BigDecimal.valueOf(40L)));
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer2Id.toString(), "TRY").getSize(), comparesEqualTo(BigDecimal.valueOf(501000L)));
+    }
+
+    @Test
+    void matchOrders_shouldRollBack_whenCounterOrderIsCanceledWhileMatchIsQueued() throws Exception {
+        AssetEntity customer1Silver = new AssetEntity();
+        customer1Silver.setCustomerId(customer1Id.toString());
+        customer1Silver.setAssetName("SILVER");
+        customer1Silver.setSize(BigDecimal.ZERO);
+        customer1Silver.setUsableSize(BigDecimal.ZERO);
+        assetDao.save(customer1Silver);
+
+        OrderEntity sellOrder = new OrderEntity();
+        sellOrder.setCustomerId(customer2Id.toString());
+        sellOrder.setAssetName("SILVER");
+        sellOrder.setOrderSide(SideType.SELL);
+        sellOrder.setSize(BigDecimal.valueOf(10L));
+        sellOrder.setPrice(BigDecimal.valueOf(100));
+        sellOrder.setStatus(StatusType.PENDING);
+        sellOrder.setCreateDate(ZonedDateTime.now().minusMinutes(1));
+        sellOrder = orderDao.save(sellOrder);
+
+        OrderEntity buyOrder = new OrderEntity();
+        buyOrder.setCustomerId(customer1Id.toString());
+        buyOrder.setAssetName("SILVER");
+        buyOrder.setOrderSide(SideType.BUY);
+        buyOrder.setSize(BigDecimal.valueOf(10L));
+        buyOrder.setPrice(BigDecimal.valueOf(100));
+        buyOrder.setStatus(StatusType.PENDING);
+        buyOrder.setCreateDate(ZonedDateTime.now());
+        buyOrder = orderDao.save(buyOrder);
+        orderBookRegistry.rebuild();
+
+        // Holds the shard of SILVER, so the match queues up and the cancel commits before it runs
+        CountDownLatch release = new CountDownLatch(1);
+        matchingScheduler.execute(AssetKey.of("SILVER"), () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Gauge queued = meterRegistry.get("executor.queued").tag("name", "brokage.matching.shard")
+                .tag("shard", String.valueOf(matchingScheduler.shardOf(AssetKey.of("SILVER")))).gauge();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            String buyOrderId = buyOrder.getOrderId().toString();
+            Future<MvcResult> match = executor.submit(() -> mockMvc.perform(post(MATCH_ORDER_URL)
+                            .with(user(userDetailsAdmin))
+                            .param(ApiPathValues.ORDERID, buyOrderId))
+                    .andReturn());
+            for (long deadline = System.currentTimeMillis() + 4000; queued.value() < 1 && System.currentTimeMillis() < deadline; Thread.sleep(10)) {
+            }
+            assertEquals(1.0, queued.value());
+
+            mockMvc.perform(delete(BASE_ORDER_URL)
+                            .with(user(userDetailsAdmin))
+                            .param(ApiPathValues.ORDERID, sellOrder.getOrderId().toString()))
+                    .andExpect(status().isNoContent());
+            release.countDown();
+
+            assertEquals(HttpStatus.CONFLICT.value(), match.get().getResponse().getStatus());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+
+        // The cancel released the reservation and the fill was rolled back, so nothing is counted twice
+        assertThat(orderDao.getOrderByOrderIdAndStatus(sellOrder.getOrderId().toString(), StatusType.CANCELED), notNullValue());
+        assertThat(orderDao.getOrderByOrderIdAndStatus(buyOrder.getOrderId().toString(), StatusType.PENDING), notNullValue());
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer2Id.toString(), "SILVER").getSize(), comparesEqualTo(BigDecimal.valueOf(50L)));
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer2Id.toString(), "TRY").getSize(), comparesEqualTo(BigDecimal.valueOf(500000L)));
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "SILVER").getSize(), comparesEqualTo(BigDecimal.ZERO));
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "TRY").getSize(), comparesEqualTo(BigDecimal.valueOf(500000L)));
+
+        // The book touched by the rolled back match is reloaded without the canceled order
+        mockMvc.perform(post(MATCH_ORDER_URL)
+                        .with(user(userDetailsAdmin))
+                        .param(ApiPathValues.ORDERID, buyOrder.getOrderId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderRestResponseModels", hasSize(0)));
+    }
+
+    @Test
+    void matchOrders_shouldMatchAcrossAssetNameCasing() throws Exception {
+        AssetEntity customer1Silver = new AssetEntity();
+        customer1Silver.setCustomerId(customer1Id.toString());
+        customer1Silver.setAssetName("silver");
+        customer1Silver.setSize(BigDecimal.ZERO);
+        customer1Silver.setUsableSize(BigDecimal.ZERO);
+        assetDao.save(customer1Silver);
+
+        OrderEntity sellOrder = new OrderEntity();
+        sellOrder.setCustomerId(customer2Id.toString());
+        sellOrder.setAssetName("Silver");
+        sellOrder.setOrderSide(SideType.SELL);
+        sellOrder.setSize(BigDecimal.valueOf(4L));
+        sellOrder.setPrice(BigDecimal.valueOf(100));
+        sellOrder.setStatus(StatusType.PENDING);
+        sellOrder.setCreateDate(ZonedDateTime.now().minusMinutes(1));
+        sellOrder = orderDao.save(sellOrder);
+
+        OrderEntity buyOrder = new OrderEntity();
+        buyOrder.setCustomerId(customer1Id.toString());
+        buyOrder.setAssetName("SILVER");
+        buyOrder.setOrderSide(SideType.BUY);
+        buyOrder.setSize(BigDecimal.valueOf(4L));
+        buyOrder.setPrice(BigDecimal.valueOf(100));
+        buyOrder.setStatus(StatusType.PENDING);
+        buyOrder.setCreateDate(ZonedDateTime.now());
+        buyOrder = orderDao.save(buyOrder);
+
+        orderBookRegistry.rebuild();
+
+        mockMvc.perform(post(MATCH_ORDER_URL)
+                        .with(user(userDetailsAdmin))
+                        .param(ApiPathValues.ORDERID, buyOrder.getOrderId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderRestResponseModels", hasSize(2)));
+
+        assertThat(orderDao.getOrderByOrderIdAndStatus(sellOrder.getOrderId().toString(), StatusType.MATCHED), notNullValue());
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer1Id.toString(), "Silver").getSize(), comparesEqualTo(BigDecimal.valueOf(4L)));
+        assertThat(assetDao.findAssetByCustomerIdAndName(customer2Id.toString(), "silver").getSize(), comparesEqualTo(BigDecimal.valueOf(46L)));
+    }
+}
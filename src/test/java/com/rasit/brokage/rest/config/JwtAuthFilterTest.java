@@ -0,0 +1,94 @@
+package com.rasit.brokage.rest.config;
+
+import com.rasit.brokage.rest.security.JwtService;
+import com.rasit.brokage.rest.security.UserDetailsImpl;
+import com.rasit.brokage.rest.security.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthFilterTest {
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Mock
+    private Claims claims;
+
+    @Mock
+    private FilterChain filterChain;
+
+    @InjectMocks
+    private JwtAuthFilter jwtAuthFilter;
+
+    private MockHttpServletRequest request;
+    private UserDetailsImpl principal;
+
+    @BeforeEach
+    void setUp() {
+        request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token");
+        principal = new UserDetailsImpl(UUID.randomUUID(), "alice", null, List.of(new SimpleGrantedAuthority("CUSTOMER")));
+        when(jwtService.validateAndExtractClaims("token")).thenReturn(claims);
+        when(claims.getSubject()).thenReturn("alice");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void doFilterInternal_shouldLoadCustomer_whenStatelessDisabled() throws Exception {
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(principal);
+
+        jwtAuthFilter.doFilterInternal(request, new MockHttpServletResponse(), filterChain);
+
+        assertSame(principal, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verify(jwtService, never()).extractUserDetails(any());
+    }
+
+    @Test
+    void doFilterInternal_shouldUseClaims_whenStatelessEnabled() throws Exception {
+        ReflectionTestUtils.setField(jwtAuthFilter, "statelessEnabled", true);
+        when(jwtService.extractUserDetails(claims)).thenReturn(principal);
+
+        jwtAuthFilter.doFilterInternal(request, new MockHttpServletResponse(), filterChain);
+
+        assertSame(principal, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verifyNoInteractions(userDetailsService);
+        verify(filterChain).doFilter(eq(request), any());
+    }
+
+    @Test
+    void doFilterInternal_shouldFallBackToLookup_whenTokenLacksPrincipalClaims() throws Exception {
+        ReflectionTestUtils.setField(jwtAuthFilter, "statelessEnabled", true);
+        when(jwtService.extractUserDetails(claims)).thenReturn(null);
+        when(userDetailsService.loadUserByUsername("alice")).thenReturn(principal);
+
+        jwtAuthFilter.doFilterInternal(request, new MockHttpServletResponse(), filterChain);
+
+        assertSame(principal, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+}
@@ -0,0 +1,92 @@
+package com.rasit.brokage.rest.security;
+
+import com.rasit.brokage.core.data.entity.CustomerEntity;
+import com.rasit.brokage.utility.RoleType;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Encoders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private JwtService jwtService;
+    private CustomerEntity customer;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "jwtSigningKey", randomKey());
+        ReflectionTestUtils.setField(jwtService, "jwtRefreshSigningKey", randomKey());
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpiration", 60_000L);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpiration", 120_000L);
+        jwtService.init();
+
+        customer = new CustomerEntity();
+        customer.setId(UUID.randomUUID());
+        customer.setUsername("alice");
+        customer.setRole(RoleType.CUSTOMER);
+    }
+
+    private static String randomKey() {
+        byte[] key = new byte[64];
+        new SecureRandom().nextBytes(key);
+        return Encoders.BASE64.encode(key);
+    }
+
+    @Test
+    void validateAndExtractClaims_shouldReturnClaims_forValidAccessToken() {
+        Claims claims = jwtService.validateAndExtractClaims(jwtService.generateToken(customer));
+
+        assertNotNull(claims);
+        assertEquals("alice", claims.getSubject());
+        assertNotNull(claims.get("roles"));
+    }
+
+    @Test
+    void validateAndExtractClaims_shouldReturnNull_forTamperedOrRefreshToken() {
+        String token = jwtService.generateToken(customer);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertNull(jwtService.validateAndExtractClaims(tampered));
+        assertNull(jwtService.validateAndExtractClaims(jwtService.generateRefresh(new HashMap<>(), customer)));
+        assertNull(jwtService.validateAndExtractClaims("not-a-token"));
+    }
+
+    @Test
+    void validateRefreshToken_shouldUseRefreshKey() {
+        String refreshToken = jwtService.generateRefresh(new HashMap<>(), customer);
+
+        assertTrue(jwtService.validateRefreshToken(refreshToken));
+        assertEquals("alice", jwtService.getUsernameFromRefreshToken(refreshToken));
+        assertFalse(jwtService.validateToken(refreshToken));
+    }
+
+    @Test
+    void extractUserDetails_shouldBuildPrincipalFromClaims() {
+        Claims claims = jwtService.validateAndExtractClaims(jwtService.generateToken(customer));
+
+        UserDetailsImpl userDetails = jwtService.extractUserDetails(claims);
+
+        assertNotNull(userDetails);
+        assertEquals(customer.getId(), userDetails.getId());
+        assertEquals("alice", userDetails.getUsername());
+        assertEquals(List.of(RoleType.CUSTOMER.name()), userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+    }
+
+    @Test
+    void extractUserDetails_shouldReturnNull_whenCustomerIdClaimMissing() {
+        Claims claims = Jwts.claims().subject("alice").add(JwtService.ROLES_CLAIM, List.of(RoleType.CUSTOMER.name())).build();
+
+        assertNull(jwtService.extractUserDetails(claims));
+    }
+}
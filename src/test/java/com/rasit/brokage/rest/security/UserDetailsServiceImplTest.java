@@ -0,0 +1,89 @@
+package com.rasit.brokage.rest.security;
+
+import com.rasit.brokage.core.data.CustomerDao;
+import com.rasit.brokage.core.data.entity.CustomerEntity;
+import com.rasit.brokage.core.data.event.CustomerChangedEvent;
+import com.rasit.brokage.utility.RoleType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserDetailsServiceImplTest {
+
+    @Mock
+    private CustomerDao customerDao;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserDetailsServiceImpl userDetailsService;
+    private CustomerEntity customer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userDetailsService = new UserDetailsServiceImpl(customerDao, 100, Duration.ofMinutes(1), meterRegistry);
+
+        customer = new CustomerEntity();
+        customer.setId(UUID.randomUUID());
+        customer.setUsername("alice");
+        customer.setPassword("hash");
+        customer.setRole(RoleType.CUSTOMER);
+    }
+
+    @Test
+    void loadUserByUsername_shouldQueryOnce_whenCalledRepeatedly() {
+        when(customerDao.findByUsername("alice")).thenReturn(Optional.of(customer));
+
+        UserDetailsImpl first = (UserDetailsImpl) userDetailsService.loadUserByUsername("alice");
+        for (int i = 0; i < 100; i++) {
+            assertSame(first, userDetailsService.loadUserByUsername("alice"));
+        }
+
+        verify(customerDao, times(1)).findByUsername("alice");
+        assertEquals(customer.getId(), first.getId());
+        assertEquals(100.0, meterRegistry.get("cache.gets").tag("cache", "brokage.user-details").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void loadUserByUsername_shouldThrowAndNotCache_whenUserMissing() {
+        when(customerDao.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("ghost"));
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("ghost"));
+
+        verify(customerDao, times(2)).findByUsername("ghost");
+    }
+
+    @Test
+    void onCustomerChanged_shouldEvictEntry_whenCustomerSavedUnderNewUsername() {
+        when(customerDao.findByUsername("alice")).thenReturn(Optional.of(customer));
+        userDetailsService.loadUserByUsername("alice");
+
+        userDetailsService.onCustomerChanged(new CustomerChangedEvent(customer.getId(), "alice2"));
+        userDetailsService.loadUserByUsername("alice");
+
+        verify(customerDao, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    void onCustomerChanged_shouldEvictEverything_whenAllCustomersRemoved() {
+        when(customerDao.findByUsername("alice")).thenReturn(Optional.of(customer));
+        userDetailsService.loadUserByUsername("alice");
+
+        userDetailsService.onCustomerChanged(CustomerChangedEvent.all());
+        userDetailsService.loadUserByUsername("alice");
+
+        verify(customerDao, times(2)).findByUsername("alice");
+    }
+}
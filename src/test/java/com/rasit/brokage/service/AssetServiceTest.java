@@ -3,27 +3,26 @@ package com.rasit.brokage.service;
 import com.rasit.brokage.rest.converter.AssetConverter;
 import com.rasit.brokage.core.data.AssetDao;
 import com.rasit.brokage.core.data.entity.AssetEntity;
+import com.rasit.brokage.core.data.event.AssetsChangedEvent;
 import com.rasit.brokage.rest.resource.asset.AssetRestResponseModel;
 import com.rasit.brokage.rest.resource.asset.AssetsRestResponseListModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -40,20 +39,22 @@ class AssetServiceTest {
     @Mock
     private AssetConverter assetConverter;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerVersions customerVersions;
     private AssetService assetService;
 
     private String testCustomerId;
     private int testPageNumber;
     private int testPageSize;
-    private Pageable testPageable;
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        customerVersions = new CustomerVersions(16);
+        assetService = new AssetService(assetDao, assetConverter, customerVersions, 100, Duration.ofMinutes(5), meterRegistry);
         testCustomerId = "customer123";
         testPageNumber = 0;
         testPageSize = 10;
-        testPageable = PageRequest.of(testPageNumber, testPageSize);
     }
 
     @Test
@@ -72,7 +73,6 @@ class AssetServiceTest {
         asset2.setUsableSize(new BigDecimal("800.0"));
 
         List<AssetEntity> assetEntities = Arrays.asList(asset1, asset2);
-        Page<AssetEntity> pagedResult = new PageImpl<>(assetEntities, testPageable, assetEntities.size());
 
         AssetRestResponseModel responseModel1 = new AssetRestResponseModel();
         responseModel1.setAssetName("GOLD");
@@ -84,14 +84,14 @@ class AssetServiceTest {
 
         List<AssetRestResponseModel> responseModels = Arrays.asList(responseModel1, responseModel2);
 
-        when(assetDao.findAssetsByCustomerId(eq(testCustomerId), eq(testPageable)))
-                .thenReturn(pagedResult);
+        when(assetDao.findAssetsByCustomerId(eq(testCustomerId)))
+                .thenReturn(assetEntities);
         when(assetConverter.toResourceList(eq(assetEntities)))
                 .thenReturn(responseModels);
 
         // Act
         ResponseEntity<AssetsRestResponseListModel> responseEntity =
-                assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize);
+                assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize, null);
 
         // Assert
         assertNotNull(responseEntity);
@@ -100,23 +100,21 @@ class AssetServiceTest {
         assertEquals(responseModels.size(), responseEntity.getBody().getAssetRestResponseModels().size());
         assertEquals(testPageNumber, responseEntity.getBody().getPageNumber());
         assertEquals(testPageSize, responseEntity.getBody().getPageSize());
-        assertEquals(pagedResult.getTotalElements(), responseEntity.getBody().getTotalRecords());
+        assertEquals(assetEntities.size(), responseEntity.getBody().getTotalRecords());
 
-        verify(assetDao, times(1)).findAssetsByCustomerId(eq(testCustomerId), eq(testPageable));
+        verify(assetDao, times(1)).findAssetsByCustomerId(eq(testCustomerId));
         verify(assetConverter, times(1)).toResourceList(eq(assetEntities));
     }
 
     @Test
     void getAssetsByCustomerId_shouldReturnEmptyList_whenNoContentExists() {
         // Arrange
-        Page<AssetEntity> pagedResult = new PageImpl<>(Collections.emptyList(), testPageable, 0);
-
-        when(assetDao.findAssetsByCustomerId(eq(testCustomerId), eq(testPageable)))
-                .thenReturn(pagedResult);
+        when(assetDao.findAssetsByCustomerId(eq(testCustomerId)))
+                .thenReturn(Collections.emptyList());
 
         // Act
         ResponseEntity<AssetsRestResponseListModel> responseEntity =
-                assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize);
+                assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize, null);
 
         // Assert
         assertNotNull(responseEntity);
@@ -124,11 +122,11 @@ class AssetServiceTest {
         assertNotNull(responseEntity.getBody());
         assertEquals(testPageNumber, responseEntity.getBody().getPageNumber());
         assertEquals(0, responseEntity.getBody().getPageSize());
-        assertEquals(pagedResult.getTotalElements(), responseEntity.getBody().getTotalRecords());
+        assertEquals(0, responseEntity.getBody().getTotalRecords());
         assertEquals(0, responseEntity.getBody().getAssetRestResponseModels().size());
         assertEquals(0, responseEntity.getBody().getPageCount());
 
-        verify(assetDao, times(1)).findAssetsByCustomerId(eq(testCustomerId), eq(testPageable));
+        verify(assetDao, times(1)).findAssetsByCustomerId(eq(testCustomerId));
         verify(assetConverter, times(0)).toResourceList(any());
     }
 
@@ -136,15 +134,99 @@ class AssetServiceTest {
     void getAssetsByCustomerId_shouldCallDaoWithCorrectParameters() {
         // Arrange
         // We only care that the DAO is called, not the result for this test
-        Page<AssetEntity> emptyPage = new PageImpl<>(Collections.emptyList(), testPageable, 0);
-        when(assetDao.findAssetsByCustomerId(any(String.class), any(Pageable.class)))
-                .thenReturn(emptyPage);
+        when(assetDao.findAssetsByCustomerId(any(String.class)))
+                .thenReturn(Collections.emptyList());
 
         // Act
-        assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize);
+        assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize, null);
 
         // Assert
-        // Verify that findAssetsByCustomerId was called exactly once with the correct customerId and Pageable
-        verify(assetDao, times(1)).findAssetsByCustomerId(eq(testCustomerId), eq(testPageable));
+        // Verify that findAssetsByCustomerId was called exactly once with the correct customerId
+        verify(assetDao, times(1)).findAssetsByCustomerId(eq(testCustomerId));
+    }
+
+    @Test
+    void getAssetsByCustomerId_shouldPageCachedPortfolio_whenCalledAgain() {
+        List<AssetEntity> assetEntities = List.of(new AssetEntity(), new AssetEntity(), new AssetEntity());
+        when(assetDao.findAssetsByCustomerId(eq(testCustomerId))).thenReturn(assetEntities);
+        when(assetConverter.toResourceList(eq(assetEntities))).thenReturn(List.of(
+                asset("GOLD"), asset("SILVER"), asset("TRY")));
+
+        assetService.getAssetsByCustomerId(testCustomerId, 0, 2, null);
+        AssetsRestResponseListModel secondPage = assetService.getAssetsByCustomerId(testCustomerId, 1, 2, null).getBody();
+
+        assertNotNull(secondPage);
+        assertEquals(List.of("TRY"), secondPage.getAssetRestResponseModels().stream().map(AssetRestResponseModel::getAssetName).toList());
+        assertEquals(2, secondPage.getPageCount());
+        assertEquals(3, secondPage.getTotalRecords());
+        verify(assetDao, times(1)).findAssetsByCustomerId(eq(testCustomerId));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "brokage.portfolio").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "brokage.portfolio").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void onAssetsChanged_shouldReloadPortfolio_whenCustomerAssetsChanged() {
+        when(assetDao.findAssetsByCustomerId(any(String.class))).thenReturn(Collections.emptyList());
+        assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize, null);
+        assetService.getAssetsByCustomerId("other", testPageNumber, testPageSize, null);
+
+        assetService.onAssetsChanged(AssetsChangedEvent.of(testCustomerId));
+        assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize, null);
+        assetService.getAssetsByCustomerId("other", testPageNumber, testPageSize, null);
+
+        verify(assetDao, times(2)).findAssetsByCustomerId(eq(testCustomerId));
+        verify(assetDao, times(1)).findAssetsByCustomerId(eq("other"));
+    }
+
+    @Test
+    void onAssetsChanged_shouldReloadEveryPortfolio_whenAllAssetsWereRemoved() {
+        when(assetDao.findAssetsByCustomerId(any(String.class))).thenReturn(Collections.emptyList());
+        assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize, null);
+        assetService.getAssetsByCustomerId("other", testPageNumber, testPageSize, null);
+
+        assetService.onAssetsChanged(AssetsChangedEvent.all());
+        assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize, null);
+        assetService.getAssetsByCustomerId("other", testPageNumber, testPageSize, null);
+
+        verify(assetDao, times(2)).findAssetsByCustomerId(eq(testCustomerId));
+        verify(assetDao, times(2)).findAssetsByCustomerId(eq("other"));
+    }
+
+    @Test
+    void getAssetsByCustomerId_shouldNotCachePortfolio_whenAssetsChangedWhileLoading() {
+        when(assetDao.findAssetsByCustomerId(eq(testCustomerId))).thenAnswer(invocation -> {
+            assetService.onAssetsChanged(AssetsChangedEvent.of(testCustomerId));
+            return Collections.emptyList();
+        });
+
+        assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize, null);
+        assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize, null);
+
+        verify(assetDao, times(2)).findAssetsByCustomerId(eq(testCustomerId));
+    }
+
+    @Test
+    void getAssetsByCustomerId_shouldReturnNotModifiedWithoutLoading_untilAssetsOfCustomerChange() {
+        when(assetDao.findAssetsByCustomerId(eq(testCustomerId))).thenReturn(Collections.emptyList());
+        String eTag = assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize, null).getHeaders().getETag();
+        // Drop the cached portfolio, so only the ETag can spare the next request the database
+        assetService.onAssetsChanged(AssetsChangedEvent.of(testCustomerId));
+
+        ResponseEntity<AssetsRestResponseListModel> notModified = assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize, "W/" + eTag);
+        customerVersions.onAssetsChanged(AssetsChangedEvent.of(testCustomerId));
+        ResponseEntity<AssetsRestResponseListModel> changed = assetService.getAssetsByCustomerId(testCustomerId, testPageNumber, testPageSize, eTag);
+
+        assertNotNull(eTag);
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertEquals(eTag, notModified.getHeaders().getETag());
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(eTag, changed.getHeaders().getETag());
+        verify(assetDao, times(2)).findAssetsByCustomerId(eq(testCustomerId));
+    }
+
+    private static AssetRestResponseModel asset(String assetName) {
+        AssetRestResponseModel asset = new AssetRestResponseModel();
+        asset.setAssetName(assetName);
+        return asset;
     }
 }
\ No newline at end of file
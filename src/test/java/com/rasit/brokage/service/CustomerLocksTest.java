@@ -0,0 +1,90 @@
+package com.rasit.brokage.service;
+
+import com.rasit.brokage.rest.exception.CustomException;
+import com.rasit.brokage.utility.ErrorMessageType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerLocksTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerLocks customerLocks;
+    private ExecutorService otherThread;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        customerLocks = new CustomerLocks(16, 100, meterRegistry);
+        otherThread = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        otherThread.shutdownNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void withLock_shouldReleaseLock_whenNoTransactionIsActive() throws Exception {
+        assertEquals("done", customerLocks.withLock("cust", () -> "done"));
+
+        assertEquals("other", lockFromOtherThread("cust"));
+        assertEquals(2, meterRegistry.get("brokage.customer.lock.hold").timer().count());
+    }
+
+    @Test
+    void withLock_shouldHoldLockUntilCommit_whenTransactionIsActive() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        customerLocks.withLock("cust", () -> "reserved");
+
+        ExecutionException busy = assertThrows(ExecutionException.class, () -> lockFromOtherThread("cust"));
+        CustomException exception = (CustomException) busy.getCause();
+        assertEquals(ErrorMessageType.CUSTOMER_BUSY, exception.getErrorMessageType());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatusCode());
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals("other", lockFromOtherThread("cust"));
+    }
+
+    @Test
+    void withLock_shouldReleaseLock_whenTransactionRollsBack() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        assertThrows(CustomException.class, () -> customerLocks.withLock("cust", () -> {
+            throw new CustomException(ErrorMessageType.ASSET_USABLE_SIZE_NOT_ENOUGH, new String[]{"TRY", "0"}, HttpStatus.BAD_REQUEST);
+        }));
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals("other", lockFromOtherThread("cust"));
+        assertEquals(2, meterRegistry.get("brokage.customer.lock.hold").timer().count());
+    }
+
+    private String lockFromOtherThread(String customerId) throws Exception {
+        return otherThread.submit(() -> customerLocks.withLock(customerId, () -> "other")).get();
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        }
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+}
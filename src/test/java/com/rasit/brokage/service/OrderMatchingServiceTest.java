@@ -0,0 +1,151 @@
+package com.rasit.brokage.service;
+
+import com.rasit.brokage.core.data.OrderDao;
+import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.core.matching.AutoMatchMode;
+import com.rasit.brokage.core.matching.MatchingScheduler;
+import com.rasit.brokage.rest.exception.CustomException;
+import com.rasit.brokage.rest.resource.order.OrderRestResponseModel;
+import com.rasit.brokage.rest.resource.order.OrdersRestResponseListModel;
+import com.rasit.brokage.service.event.OrderCreatedEvent;
+import com.rasit.brokage.utility.SideType;
+import com.rasit.brokage.utility.StatusType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderMatchingServiceTest {
+
+    @Mock
+    private OrderDao orderDao;
+
+    @Mock
+    private OrderService orderService;
+
+    private MatchingScheduler matchingScheduler;
+
+    private OrderEntity orderEntity;
+    private OrderRestResponseModel response;
+
+    @BeforeEach
+    void setUp() {
+        matchingScheduler = new MatchingScheduler(1, 16, 5000, new SimpleMeterRegistry());
+
+        orderEntity = order(BigDecimal.valueOf(10));
+        orderEntity.setOrderId(UUID.randomUUID());
+        response = new OrderRestResponseModel();
+        response.setIdentifier(orderEntity.getOrderId().toString());
+        response.setStatus(StatusType.PENDING.name());
+        response.setSize(BigDecimal.valueOf(10));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        matchingScheduler.shutdown();
+    }
+
+    private OrderEntity order(BigDecimal size) {
+        OrderEntity order = new OrderEntity();
+        order.setCustomerId("cust");
+        order.setAssetName("GOLD");
+        order.setOrderSide(SideType.BUY);
+        order.setSize(size);
+        order.setPrice(BigDecimal.valueOf(100));
+        order.setStatus(StatusType.PENDING);
+        order.setCreateDate(ZonedDateTime.now());
+        return order;
+    }
+
+    private OrderMatchingService service(boolean autoMatchEnabled, AutoMatchMode mode) {
+        return new OrderMatchingService(orderDao, orderService, matchingScheduler, autoMatchEnabled, mode);
+    }
+
+    @Test
+    void matchOrders_shouldMatchOrderAsReadOnce() throws CustomException {
+        String orderId = orderEntity.getOrderId().toString();
+        when(orderDao.getOrderByOrderIdAndStatus(orderId, StatusType.PENDING)).thenReturn(orderEntity);
+        when(orderService.matchOrders(orderEntity)).thenReturn(ResponseEntity.ok(new OrdersRestResponseListModel()));
+
+        ResponseEntity<OrdersRestResponseListModel> result = service(false, AutoMatchMode.SYNC).matchOrders(orderId);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        verify(orderDao, times(1)).getOrderByOrderIdAndStatus(orderId, StatusType.PENDING);
+    }
+
+    @Test
+    void matchOrders_shouldReturnNotFound_whenOrderIsNotPending() throws CustomException {
+        String orderId = orderEntity.getOrderId().toString();
+        when(orderDao.getOrderByOrderIdAndStatus(orderId, StatusType.PENDING)).thenReturn(null);
+
+        ResponseEntity<OrdersRestResponseListModel> result = service(false, AutoMatchMode.SYNC).matchOrders(orderId);
+
+        assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void onOrderCreated_shouldNotMatch_whenAutoMatchDisabled() {
+        service(false, AutoMatchMode.SYNC).onOrderCreated(new OrderCreatedEvent(orderEntity, response));
+
+        verifyNoInteractions(orderService, orderDao);
+    }
+
+    @Test
+    void onOrderCreated_shouldMarkResponseMatched_whenOrderFullyFilled() throws CustomException {
+        OrderRestResponseModel matched = new OrderRestResponseModel();
+        matched.setIdentifier(orderEntity.getOrderId().toString());
+        OrdersRestResponseListModel result = new OrdersRestResponseListModel();
+        result.setOrderRestResponseModels(List.of(matched));
+        when(orderService.matchOrders(orderEntity)).thenReturn(ResponseEntity.ok(result));
+
+        service(true, AutoMatchMode.SYNC).onOrderCreated(new OrderCreatedEvent(orderEntity, response));
+
+        assertEquals(StatusType.MATCHED.name(), response.getStatus());
+        assertEquals(BigDecimal.ZERO, response.getSize());
+        verifyNoInteractions(orderDao);
+    }
+
+    @Test
+    void onOrderCreated_shouldReportRemainingSize_whenOrderPartiallyFilled() throws CustomException {
+        OrderRestResponseModel counterOrder = new OrderRestResponseModel();
+        counterOrder.setIdentifier(UUID.randomUUID().toString());
+        OrdersRestResponseListModel result = new OrdersRestResponseListModel();
+        result.setOrderRestResponseModels(List.of(counterOrder));
+        String orderId = orderEntity.getOrderId().toString();
+        when(orderService.matchOrders(orderEntity)).thenReturn(ResponseEntity.ok(result));
+        OrderEntity remaining = order(BigDecimal.valueOf(4));
+        remaining.setOrderId(orderEntity.getOrderId());
+        when(orderDao.getOrderByOrderIdAndStatus(orderId, StatusType.PENDING)).thenReturn(remaining);
+
+        service(true, AutoMatchMode.SYNC).onOrderCreated(new OrderCreatedEvent(orderEntity, response));
+
+        assertEquals(StatusType.PENDING.name(), response.getStatus());
+        assertEquals(BigDecimal.valueOf(4), response.getSize());
+    }
+
+    @Test
+    void onOrderCreated_shouldMatchOnShard_whenModeIsAsync() throws CustomException, InterruptedException {
+        when(orderService.matchOrders(orderEntity)).thenReturn(ResponseEntity.ok(new OrdersRestResponseListModel()));
+
+        service(true, AutoMatchMode.ASYNC).onOrderCreated(new OrderCreatedEvent(orderEntity, response));
+        matchingScheduler.shutdown();
+
+        verify(orderService, times(1)).matchOrders(orderEntity);
+        assertEquals(StatusType.PENDING.name(), response.getStatus());
+    }
+}
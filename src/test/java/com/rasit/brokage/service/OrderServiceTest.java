@@ -2,40 +2,76 @@ package com.rasit.brokage.service;
 
 import com.rasit.brokage.core.data.AssetDao;
 import com.rasit.brokage.core.data.OrderDao;
+import com.rasit.brokage.core.data.SettlementDao;
+import com.rasit.brokage.core.data.entity.AssetEntity;
 import com.rasit.brokage.core.data.entity.OrderEntity;
+import com.rasit.brokage.core.data.event.OrdersChangedEvent;
+import com.rasit.brokage.core.journal.SettlementJournal;
+import com.rasit.brokage.core.matching.MatchingScheduler;
+import com.rasit.brokage.core.matching.OrderBookRegistry;
+import com.rasit.brokage.core.matching.OrderBookSnapshots;
+import com.rasit.brokage.core.settlement.Settlement;
 import com.rasit.brokage.rest.converter.OrderConverter;
 import com.rasit.brokage.rest.exception.CustomException;
+import com.rasit.brokage.rest.resource.asset.BalanceDeltaRestResponseModel;
+import com.rasit.brokage.rest.resource.order.OrderBatchRestResponseModel;
 import com.rasit.brokage.rest.resource.order.OrderRestRequestModel;
 import com.rasit.brokage.rest.resource.order.OrderRestResponseModel;
+import com.rasit.brokage.rest.resource.order.OrdersCancelRestResponseModel;
 import com.rasit.brokage.rest.resource.order.OrdersRestResponseListModel;
 import com.rasit.brokage.rest.validation.AssetValidator;
+import com.rasit.brokage.service.event.OrderCreatedEvent;
+import com.rasit.brokage.service.event.OrderUpdatesEvent;
+import com.rasit.brokage.utility.ContinuationToken;
+import com.rasit.brokage.utility.ErrorMessageType;
+import com.rasit.brokage.utility.FixedPoint;
 import com.rasit.brokage.utility.SideType;
 import com.rasit.brokage.utility.StatusType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.rasit.brokage.utility.BrokageConstants.TRY_ASSET_NAME;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -48,15 +84,30 @@ class OrderServiceTest {
     @Mock
     private AssetDao assetDao;
 
+    @Mock
+    private SettlementDao settlementDao;
+
     @Mock
     private OrderConverter orderConverter;
 
     @Mock
     private AssetValidator assetValidator;
 
-    @InjectMocks
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private OrderService orderService;
 
+    private MatchingScheduler matchingScheduler;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CustomerVersions customerVersions;
+
+    private SettlementJournal settlementJournal;
+
+    private final FixedPoint fixedPoint = new FixedPoint(2);
+
     private String customerId;
     private String orderId;
     private OrderRestRequestModel buyOrderRequest;
@@ -67,6 +118,12 @@ class OrderServiceTest {
 
     @BeforeEach
     void setUp() {
+        matchingScheduler = new MatchingScheduler(1, 16, 5000, new SimpleMeterRegistry());
+        meterRegistry = new SimpleMeterRegistry();
+        customerVersions = new CustomerVersions(16);
+        useJournal(new SettlementJournal(settlementDao, false, "journal", 64, 1000, meterRegistry));
+        lenient().when(settlementDao.settle(any(Settlement.class))).thenReturn(true);
+
         customerId = UUID.randomUUID().toString();
         orderId = UUID.randomUUID().toString();
 
@@ -113,11 +170,17 @@ class OrderServiceTest {
         buyOrderResponse.setStatus("PENDING");
     }
 
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        matchingScheduler.shutdown();
+        settlementJournal.shutdown();
+    }
+
     @Test
     void createOrder_shouldCreateBuyOrderSuccessfully() throws CustomException {
-        doNothing().when(assetValidator).checkCustomerHaveEnoughAsset(anyString(), any(BigDecimal.class), any(BigDecimal.class), any(SideType.class), anyString());
+        when(assetValidator.requiredUsableAmount(BigDecimal.valueOf(10), BigDecimal.valueOf(100), SideType.BUY)).thenReturn(scaled(1000));
         when(orderConverter.toDomain(buyOrderRequest)).thenReturn(buyOrderEntity);
-        doNothing().when(orderDao).saveOrderAndReduceUsableSizeofAsset(any(OrderEntity.class), eq(TRY_ASSET_NAME), any(BigDecimal.class));
+        when(orderDao.saveOrderAndReserveUsableSizeofAsset(any(OrderEntity.class), eq(TRY_ASSET_NAME), any(BigDecimal.class))).thenReturn(true);
         when(orderConverter.toResource(buyOrderEntity)).thenReturn(buyOrderResponse);
 
         ResponseEntity<OrderRestResponseModel> response = orderService.createOrder(buyOrderRequest);
@@ -125,20 +188,25 @@ class OrderServiceTest {
         assertNotNull(response);
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertEquals(buyOrderResponse, response.getBody());
-        verify(assetValidator, times(1)).checkCustomerHaveEnoughAsset(customerId, BigDecimal.valueOf(10), BigDecimal.valueOf(100), SideType.BUY, "GOLD");
         verify(orderConverter, times(1)).toDomain(buyOrderRequest);
 
         ArgumentCaptor<BigDecimal> transactionAmountCaptor = ArgumentCaptor.forClass(BigDecimal.class);
-        verify(orderDao, times(1)).saveOrderAndReduceUsableSizeofAsset(eq(buyOrderEntity), eq(TRY_ASSET_NAME), transactionAmountCaptor.capture());
-        assertEquals(BigDecimal.valueOf(1000), transactionAmountCaptor.getValue()); // 10 * 100
-        verify(orderConverter, times(1)).toResource(buyOrderEntity);
+        verify(orderDao, times(1)).saveOrderAndReserveUsableSizeofAsset(eq(buyOrderEntity), eq(TRY_ASSET_NAME), transactionAmountCaptor.capture());
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(transactionAmountCaptor.getValue())); // 10 * 100
+        verify(assetValidator, never()).usableSizeNotEnough(anyString(), anyString());
+        verify(orderConverter, times(2)).toResource(buyOrderEntity);
+        verify(eventPublisher, times(1)).publishEvent(argThat((Object event) -> event instanceof OrderCreatedEvent created
+                && created.getOrder() == buyOrderEntity && created.getResponse() == buyOrderResponse));
+        verify(eventPublisher, times(1)).publishEvent(argThat((Object event) -> event instanceof OrderUpdatesEvent updates
+                && updates.getOrders().equals(List.of(buyOrderResponse))
+                && updates.getBalances().equals(List.of(new BalanceDeltaRestResponseModel(buyOrderEntity.getCustomerId(), TRY_ASSET_NAME, BigDecimal.ZERO, transactionAmountCaptor.getValue().negate())))));
     }
 
     @Test
     void createOrder_shouldCreateSellOrderSuccessfully() throws CustomException {
-        doNothing().when(assetValidator).checkCustomerHaveEnoughAsset(anyString(), any(BigDecimal.class), any(BigDecimal.class), any(SideType.class), anyString());
+        when(assetValidator.requiredUsableAmount(BigDecimal.valueOf(5), BigDecimal.valueOf(90), SideType.SELL)).thenReturn(scaled(5));
         when(orderConverter.toDomain(sellOrderRequest)).thenReturn(sellOrderEntity);
-        doNothing().when(orderDao).saveOrderAndReduceUsableSizeofAsset(any(OrderEntity.class), eq("GOLD"), any(BigDecimal.class));
+        when(orderDao.saveOrderAndReserveUsableSizeofAsset(any(OrderEntity.class), eq("GOLD"), any(BigDecimal.class))).thenReturn(true);
         when(orderConverter.toResource(sellOrderEntity)).thenReturn(buyOrderResponse); // Reusing buyOrderResponse for simplicity
 
         ResponseEntity<OrderRestResponseModel> response = orderService.createOrder(sellOrderRequest);
@@ -146,13 +214,28 @@ class OrderServiceTest {
         assertNotNull(response);
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
         assertEquals(buyOrderResponse, response.getBody());
-        verify(assetValidator, times(1)).checkCustomerHaveEnoughAsset(customerId, BigDecimal.valueOf(5), BigDecimal.valueOf(90), SideType.SELL, "GOLD");
         verify(orderConverter, times(1)).toDomain(sellOrderRequest);
 
         ArgumentCaptor<BigDecimal> transactionAmountCaptor = ArgumentCaptor.forClass(BigDecimal.class);
-        verify(orderDao, times(1)).saveOrderAndReduceUsableSizeofAsset(eq(sellOrderEntity), eq("GOLD"), transactionAmountCaptor.capture());
-        assertEquals(BigDecimal.valueOf(5), transactionAmountCaptor.getValue()); // Just size for SELL
-        verify(orderConverter, times(1)).toResource(sellOrderEntity);
+        verify(orderDao, times(1)).saveOrderAndReserveUsableSizeofAsset(eq(sellOrderEntity), eq("GOLD"), transactionAmountCaptor.capture());
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(transactionAmountCaptor.getValue())); // Just size for SELL
+        verify(orderConverter, times(2)).toResource(sellOrderEntity);
+    }
+
+    @Test
+    void createOrder_shouldThrowAndNotPublish_whenReservationRefused() throws CustomException {
+        CustomException notEnough = new CustomException(ErrorMessageType.ASSET_USABLE_SIZE_NOT_ENOUGH, new String[]{TRY_ASSET_NAME, "0"}, HttpStatus.BAD_REQUEST);
+        when(assetValidator.requiredUsableAmount(BigDecimal.valueOf(10), BigDecimal.valueOf(100), SideType.BUY)).thenReturn(scaled(1000));
+        when(orderConverter.toDomain(buyOrderRequest)).thenReturn(buyOrderEntity);
+        when(orderDao.saveOrderAndReserveUsableSizeofAsset(any(OrderEntity.class), eq(TRY_ASSET_NAME), any(BigDecimal.class))).thenReturn(false);
+        when(assetValidator.usableSizeNotEnough(customerId, TRY_ASSET_NAME)).thenReturn(notEnough);
+
+        CustomException exception = assertThrows(CustomException.class, () -> orderService.createOrder(buyOrderRequest));
+
+        assertSame(notEnough, exception);
+        verify(orderConverter, never()).toResource(any(OrderEntity.class));
+        verifyNoInteractions(eventPublisher);
+        assertEquals(1, meterRegistry.get("brokage.order.balance.rejected").counter().count());
     }
 
     @Test
@@ -171,7 +254,7 @@ class OrderServiceTest {
         when(orderDao.getOrdersByCustomerIdAndDate(customerId, startDate, endDate, paging)).thenReturn(pagedResult);
         when(orderConverter.toResourceList(orderEntities)).thenReturn(orderRestResponses);
 
-        ResponseEntity<OrdersRestResponseListModel> response = orderService.getOrdersByCustomerIdAndDate(customerId, startDate, endDate, pageNumber, pageSize);
+        ResponseEntity<OrdersRestResponseListModel> response = orderService.getOrdersByCustomerIdAndDate(customerId, startDate, endDate, pageNumber, pageSize, null);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -185,6 +268,63 @@ class OrderServiceTest {
         verify(orderConverter, times(1)).toResourceList(orderEntities);
     }
 
+    @Test
+    void getOrdersByCustomerIdAndDate_shouldReturnNotModified_untilOrdersOfCustomerChange() {
+        ZonedDateTime startDate = ZonedDateTime.now().minusDays(7);
+        ZonedDateTime endDate = ZonedDateTime.now().plusDays(1);
+        when(orderDao.getOrdersByCustomerIdAndDate(eq(customerId), eq(startDate), eq(endDate), any(Pageable.class))).thenReturn(Page.empty());
+
+        String eTag = orderService.getOrdersByCustomerIdAndDate(customerId, startDate, endDate, 0, 10, null).getHeaders().getETag();
+        ResponseEntity<OrdersRestResponseListModel> notModified = orderService.getOrdersByCustomerIdAndDate(customerId, startDate, endDate, 0, 10, eTag);
+        ResponseEntity<OrdersRestResponseListModel> otherPage = orderService.getOrdersByCustomerIdAndDate(customerId, startDate, endDate, 1, 10, eTag);
+        customerVersions.onOrdersChanged(OrdersChangedEvent.of(customerId));
+        ResponseEntity<OrdersRestResponseListModel> changed = orderService.getOrdersByCustomerIdAndDate(customerId, startDate, endDate, 0, 10, eTag);
+
+        assertNotNull(eTag);
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+        assertEquals(eTag, notModified.getHeaders().getETag());
+        assertEquals(HttpStatus.OK, otherPage.getStatusCode());
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(eTag, changed.getHeaders().getETag());
+        verify(orderDao, times(2)).getOrdersByCustomerIdAndDate(customerId, startDate, endDate, PageRequest.of(0, 10));
+    }
+
+    @Test
+    void getOrdersByCustomerIdAndDate_shouldReturnTokenOfLastOrder_whenMoreOrdersFollow() throws CustomException {
+        ZonedDateTime startDate = ZonedDateTime.now().minusDays(7);
+        ZonedDateTime endDate = ZonedDateTime.now().plusDays(1);
+        buyOrderEntity.setOrderId(UUID.randomUUID());
+        buyOrderEntity.setCreateDate(startDate.plusDays(1));
+        List<OrderEntity> orderEntities = List.of(buyOrderEntity);
+        ContinuationToken after = new ContinuationToken(startDate, UUID.randomUUID());
+
+        when(orderDao.getOrdersByCustomerIdAndDate(eq(customerId), eq(startDate), eq(endDate),
+                argThat(token -> token != null && token.getOrderId().equals(after.getOrderId())), eq(1)))
+                .thenReturn(new SliceImpl<>(orderEntities, PageRequest.of(0, 1), true));
+        when(orderConverter.toResourceList(orderEntities)).thenReturn(List.of(buyOrderResponse));
+
+        ResponseEntity<OrdersRestResponseListModel> response = orderService.getOrdersByCustomerIdAndDate(customerId, startDate, endDate, after.encode(), 1, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getOrderRestResponseModels().size());
+        ContinuationToken next = ContinuationToken.decode(response.getBody().getContinuationToken());
+        assertEquals(buyOrderEntity.getOrderId(), next.getOrderId());
+        assertEquals(buyOrderEntity.getCreateDate().toInstant(), next.getCreateDate().toInstant());
+    }
+
+    @Test
+    void getOrdersByCustomerIdAndDate_shouldThrowBadRequest_whenContinuationTokenInvalid() {
+        ZonedDateTime startDate = ZonedDateTime.now().minusDays(7);
+        ZonedDateTime endDate = ZonedDateTime.now().plusDays(1);
+
+        CustomException exception = assertThrows(CustomException.class,
+                () -> orderService.getOrdersByCustomerIdAndDate(customerId, startDate, endDate, "not-a-token", 10, null));
+
+        assertEquals(ErrorMessageType.INVALID_CONTINUATION_TOKEN, exception.getErrorMessageType());
+        verifyNoInteractions(orderDao);
+    }
+
     @Test
     void getOrdersByCustomerIdAndDate_shouldReturnEmptyList_whenNoContentExists() {
         ZonedDateTime startDate = ZonedDateTime.now().minusDays(7);
@@ -197,7 +337,7 @@ class OrderServiceTest {
 
         when(orderDao.getOrdersByCustomerIdAndDate(customerId, startDate, endDate, paging)).thenReturn(pagedResult);
 
-        ResponseEntity<OrdersRestResponseListModel> response = orderService.getOrdersByCustomerIdAndDate(customerId, startDate, endDate, pageNumber, pageSize);
+        ResponseEntity<OrdersRestResponseListModel> response = orderService.getOrdersByCustomerIdAndDate(customerId, startDate, endDate, pageNumber, pageSize, null);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -211,33 +351,139 @@ class OrderServiceTest {
     }
 
     @Test
-    void cancelOrder_shouldReturnNoContent_whenOrderIsPending() {
-        when(orderDao.getOrderByOrderIdAndStatus(orderId, StatusType.PENDING)).thenReturn(buyOrderEntity);
-        doNothing().when(orderDao).cancelOrderAndIncreaseUsableSizeofAsset(eq(orderId), eq(TRY_ASSET_NAME), any(BigDecimal.class));
+    void createOrders_shouldReserveAcceptedOrdersOnce_andReportRejectedPerItem() throws CustomException {
+        AssetEntity tryAsset = new AssetEntity();
+        tryAsset.setAssetKey("try");
+        tryAsset.setUsableSize(BigDecimal.valueOf(1500));
+        AssetEntity goldAsset = new AssetEntity();
+        goldAsset.setAssetKey("gold");
+        goldAsset.setUsableSize(BigDecimal.valueOf(100));
+        when(assetDao.findAssetsByCustomerIdAndNames(eq(customerId), argThat((Collection<String> names) -> names.containsAll(List.of("GOLD", "SILVER", TRY_ASSET_NAME)))))
+                .thenReturn(List.of(tryAsset, goldAsset));
+        OrderRestRequestModel secondBuy = new OrderRestRequestModel(null, "GOLD", SideType.BUY, BigDecimal.valueOf(10), BigDecimal.valueOf(100));
+        OrderRestRequestModel unknownAsset = new OrderRestRequestModel(null, "SILVER", SideType.SELL, BigDecimal.ONE, BigDecimal.ONE);
+        when(assetValidator.requiredUsableAmount(BigDecimal.valueOf(10), BigDecimal.valueOf(100), SideType.BUY)).thenReturn(scaled(1000));
+        when(assetValidator.requiredUsableAmount(BigDecimal.valueOf(5), BigDecimal.valueOf(90), SideType.SELL)).thenReturn(scaled(5));
+        when(orderConverter.toDomain(buyOrderRequest)).thenReturn(buyOrderEntity);
+        when(orderConverter.toDomain(sellOrderRequest)).thenReturn(sellOrderEntity);
+        when(orderDao.saveOrdersAndReserveUsableSizes(eq(customerId), eq(List.of(buyOrderEntity, sellOrderEntity)), anyMap())).thenReturn(true);
+        when(orderConverter.toResource(any(OrderEntity.class))).thenReturn(buyOrderResponse);
 
-        ResponseEntity<Object> response = orderService.cancelOrder(orderId);
+        ResponseEntity<OrderBatchRestResponseModel> response = orderService.createOrders(customerId, List.of(buyOrderRequest, secondBuy, unknownAsset, sellOrderRequest));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(201, 400, 404, 201), response.getBody().getResults().stream().map(result -> result.getStatus()).toList());
+        assertEquals(2, response.getBody().getCreatedCount());
+        assertEquals(2, response.getBody().getRejectedCount());
+        assertEquals(ErrorMessageType.ASSET_USABLE_SIZE_NOT_ENOUGH.getMessageId(), response.getBody().getResults().get(1).getError().getMessageId());
+        assertEquals(customerId, secondBuy.getCustomerId());
+
+        ArgumentCaptor<Map<String, BigDecimal>> reservations = ArgumentCaptor.forClass(Map.class);
+        verify(orderDao).saveOrdersAndReserveUsableSizes(eq(customerId), anyList(), reservations.capture());
+        assertEquals(2, reservations.getValue().size());
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(reservations.getValue().get("try")));
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(reservations.getValue().get("gold")));
+        verify(eventPublisher, times(2)).publishEvent(any(OrderCreatedEvent.class));
+    }
+
+    @Test
+    void cancelOrder_shouldReturnNoContent_whenOrderIsPending() throws CustomException {
+        when(orderDao.getPendingOrderForUpdate(orderId, customerId)).thenReturn(buyOrderEntity);
+        when(orderDao.cancelOrderAndIncreaseUsableSizeofAsset(eq(buyOrderEntity), any(BigDecimal.class), eq(TRY_ASSET_NAME), any(BigDecimal.class))).thenReturn(true);
+        when(orderConverter.toResource(buyOrderEntity)).thenReturn(buyOrderResponse);
+
+        ResponseEntity<Object> response = orderService.cancelOrder(orderId, customerId);
 
         assertNotNull(response);
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
 
         ArgumentCaptor<BigDecimal> transactionAmountCaptor = ArgumentCaptor.forClass(BigDecimal.class);
-        verify(orderDao, times(1)).cancelOrderAndIncreaseUsableSizeofAsset(eq(orderId), eq(TRY_ASSET_NAME), transactionAmountCaptor.capture());
-        assertEquals(BigDecimal.valueOf(1000), transactionAmountCaptor.getValue());
+        verify(orderDao, times(1)).cancelOrderAndIncreaseUsableSizeofAsset(eq(buyOrderEntity), eq(buyOrderEntity.getSize()), eq(TRY_ASSET_NAME), transactionAmountCaptor.capture());
+        assertEquals(new BigDecimal("1000.00"), transactionAmountCaptor.getValue());
+        verify(orderDao, never()).isOrderExistsWithOrderIdAndCustomerId(any(), any());
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof OrderUpdatesEvent updates
+                && updates.getOrders().get(0).getStatus().equals("CANCELED")
+                && updates.getBalances().equals(List.of(new BalanceDeltaRestResponseModel(customerId, TRY_ASSET_NAME, BigDecimal.ZERO, new BigDecimal("1000.00"))))));
     }
 
     @Test
-    void cancelOrder_shouldReturnNoContent_whenOrderNotFound() {
-        when(orderDao.getOrderByOrderIdAndStatus(orderId, StatusType.PENDING)).thenReturn(null);
+    void cancelOrder_shouldLockOrderOfItsOwner_whenAdminCancels() throws CustomException {
+        when(orderDao.getCustomerIdOfOrder(orderId)).thenReturn(customerId);
+        when(orderDao.getPendingOrderForUpdate(orderId, customerId)).thenReturn(buyOrderEntity);
+        when(orderDao.cancelOrderAndIncreaseUsableSizeofAsset(eq(buyOrderEntity), any(BigDecimal.class), eq(TRY_ASSET_NAME), any(BigDecimal.class))).thenReturn(true);
+        when(orderConverter.toResource(buyOrderEntity)).thenReturn(buyOrderResponse);
+
+        ResponseEntity<Object> response = orderService.cancelOrder(orderId, null);
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+    }
+
+    @Test
+    void cancelOrder_shouldThrowNotFound_whenOrderIsNotOwnedByCustomer() {
+        when(orderDao.getPendingOrderForUpdate(orderId, customerId)).thenReturn(null);
+        when(orderDao.isOrderExistsWithOrderIdAndCustomerId(orderId, customerId)).thenReturn(false);
 
-        ResponseEntity<Object> response = orderService.cancelOrder(orderId);
+        CustomException exception = assertThrows(CustomException.class, () -> orderService.cancelOrder(orderId, customerId));
+
+        assertEquals(ErrorMessageType.ORDER_NOT_FOUND, exception.getErrorMessageType());
+        assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
+        verify(orderDao, never()).cancelOrderAndIncreaseUsableSizeofAsset(any(), any(), any(), any());
+    }
+
+    @Test
+    void cancelOrders_shouldReturnCanceledCount() throws CustomException {
+        sellOrderEntity.setOrderId(UUID.randomUUID());
+        when(orderDao.getPendingOrdersForUpdate(customerId, "GOLD", SideType.SELL)).thenReturn(List.of(sellOrderEntity));
+        when(orderConverter.toResource(sellOrderEntity)).thenReturn(new OrderRestResponseModel());
+
+        ResponseEntity<OrdersCancelRestResponseModel> response = orderService.cancelOrders(customerId, "GOLD", SideType.SELL);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getCanceledCount());
+        verify(orderDao).cancelPendingOrdersAndIncreaseUsableSizes(customerId, "GOLD", SideType.SELL, List.of(sellOrderEntity), Map.of("gold", new BigDecimal("5.00")));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof OrderUpdatesEvent updates
+                && updates.getBalances().equals(List.of(new BalanceDeltaRestResponseModel(customerId, "GOLD", BigDecimal.ZERO, new BigDecimal("5.00"))))));
+    }
+
+    @Test
+    void cancelOrders_shouldReleaseRoundedAmountOfEachOrder() throws CustomException {
+        List<OrderEntity> orders = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            OrderEntity order = new OrderEntity();
+            order.setOrderId(UUID.randomUUID());
+            order.setCustomerId(customerId);
+            order.setAssetName("GOLD");
+            order.setOrderSide(SideType.BUY);
+            order.setSize(new BigDecimal("0.50"));
+            order.setPrice(new BigDecimal("0.03"));
+            order.setStatus(StatusType.PENDING);
+            orders.add(order);
+        }
+        when(orderDao.getPendingOrdersForUpdate(customerId, null, SideType.BUY)).thenReturn(orders);
+        when(orderConverter.toResource(any(OrderEntity.class))).thenReturn(new OrderRestResponseModel());
+
+        orderService.cancelOrders(customerId, null, SideType.BUY);
+
+        // Each order reserved 0.50 x 0.03 = 0.015 rounded to 0.02, not 0.045 rounded once
+        verify(orderDao).cancelPendingOrdersAndIncreaseUsableSizes(customerId, null, SideType.BUY, orders, Map.of("try", new BigDecimal("0.06")));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof OrderUpdatesEvent updates
+                && updates.getBalances().equals(List.of(new BalanceDeltaRestResponseModel(customerId, TRY_ASSET_NAME, BigDecimal.ZERO, new BigDecimal("0.06"))))));
+    }
+
+    @Test
+    void cancelOrder_shouldReturnNoContent_whenOrderIsNotPending() throws CustomException {
+        when(orderDao.getPendingOrderForUpdate(orderId, customerId)).thenReturn(null);
+        when(orderDao.isOrderExistsWithOrderIdAndCustomerId(orderId, customerId)).thenReturn(true);
+
+        ResponseEntity<Object> response = orderService.cancelOrder(orderId, customerId);
 
         assertNotNull(response);
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
-        verify(orderDao, never()).cancelOrderAndIncreaseUsableSizeofAsset(any(), any(), any());
+        verify(orderDao, never()).cancelOrderAndIncreaseUsableSizeofAsset(any(), any(), any(), any());
     }
 
     @Test
-    void matchOrders_shouldReturnOkAndMatchedOrder_whenFullMatchExists() {
+    void matchOrders_shouldReturnOkAndMatchedOrder_whenFullMatchExists() throws CustomException {
         OrderEntity buyOrder = new OrderEntity();
         buyOrder.setOrderId(UUID.randomUUID());
         buyOrder.setCustomerId("custA");
@@ -267,12 +513,12 @@ class OrderServiceTest {
         matchedSellOrderResponse.setStatus("MATCHED");
 
         when(orderDao.getOrderByOrderIdAndStatus(buyOrder.getOrderId().toString(), StatusType.PENDING)).thenReturn(buyOrder);
-        when(orderDao.getAllByStatusAndAssetNameAndSide(StatusType.PENDING, "STOCK", SideType.SELL))
+        when(orderDao.getAllByStatusAndAssetName(StatusType.PENDING, "stock"))
                 .thenReturn(Collections.singletonList(sellOrder));
-        when(orderConverter.toResource(buyOrder)).thenReturn(matchedBuyOrderResponse);
-        when(orderConverter.toResource(sellOrder)).thenReturn(matchedSellOrderResponse);
+        when(orderConverter.toResource(argThat(order -> order != null && buyOrder.getOrderId().equals(order.getOrderId())))).thenReturn(matchedBuyOrderResponse);
+        when(orderConverter.toResource(argThat(order -> order != null && sellOrder.getOrderId().equals(order.getOrderId())))).thenReturn(matchedSellOrderResponse);
 
-        ResponseEntity<OrdersRestResponseListModel> response = orderService.matchOrders(buyOrder.getOrderId().toString());
+        ResponseEntity<OrdersRestResponseListModel> response = orderService.matchOrders(buyOrder);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -281,17 +527,23 @@ class OrderServiceTest {
         assertEquals("MATCHED", response.getBody().getOrderRestResponseModels().get(0).getStatus());
         assertEquals("MATCHED", response.getBody().getOrderRestResponseModels().get(1).getStatus());
 
-        verify(assetDao, times(1)).increaseSizeofAsset(eq("custB"), eq(TRY_ASSET_NAME), eq(BigDecimal.valueOf(1000))); // sell cust gets TRY
-        verify(assetDao, times(1)).reduceSizeofAsset(eq("custB"), eq("STOCK"), eq(BigDecimal.valueOf(10))); // sell cust reduces STOCK
-        verify(assetDao, times(1)).increaseSizeofAsset(eq("custA"), eq("STOCK"), eq(BigDecimal.valueOf(10))); // buy cust gets STOCK
-        verify(assetDao, times(1)).reduceSizeofAsset(eq("custA"), eq(TRY_ASSET_NAME), eq(BigDecimal.valueOf(1000))); // buy cust reduces TRY
+        Settlement settlement = captureSettlement();
+        assertEquals(scaled(1000), settlement.getBalanceDelta("custB", TRY_ASSET_NAME).getSize()); // sell cust gets TRY
+        assertEquals(scaled(-10), settlement.getBalanceDelta("custB", "STOCK").getSize()); // sell cust reduces STOCK
+        assertEquals(scaled(10), settlement.getBalanceDelta("custA", "STOCK").getSize()); // buy cust gets STOCK
+        assertEquals(scaled(-1000), settlement.getBalanceDelta("custA", TRY_ASSET_NAME).getSize()); // buy cust reduces TRY
 
-        verify(orderDao, times(1)).updateOrderStatusWithMatched(buyOrder.getOrderId());
-        verify(orderDao, times(1)).updateOrderStatusWithMatched(sellOrder.getOrderId());
+        assertEquals(StatusType.MATCHED, settlement.getOrderUpdate(buyOrder.getOrderId()).getStatus());
+        assertEquals(StatusType.MATCHED, settlement.getOrderUpdate(sellOrder.getOrderId()).getStatus());
+
+        assertEquals(1, meterRegistry.get("brokage.matching.fills").summary().totalAmount());
+        assertEquals(settlement.getBalanceDeltas().size() + settlement.getOrderUpdates().size(),
+                meterRegistry.get("brokage.settlement.statements").summary().totalAmount());
+        assertEquals(0, meterRegistry.get("brokage.orderbook.depth").tag("asset", "stock").gauge().value());
     }
 
     @Test
-    void matchOrders_shouldReturnOkAndPartiallyMatchedOrder_whenPartialMatchExists() {
+    void matchOrders_shouldReturnOkAndPartiallyMatchedOrder_whenPartialMatchExists() throws CustomException {
         OrderEntity buyOrder = new OrderEntity();
         buyOrder.setOrderId(UUID.randomUUID());
         buyOrder.setCustomerId("custA");
@@ -317,57 +569,72 @@ class OrderServiceTest {
         matchedSellOrderResponse.setStatus("MATCHED");
 
         when(orderDao.getOrderByOrderIdAndStatus(buyOrder.getOrderId().toString(), StatusType.PENDING)).thenReturn(buyOrder);
-        when(orderDao.getAllByStatusAndAssetNameAndSide(StatusType.PENDING, "STOCK", SideType.SELL))
+        when(orderDao.getAllByStatusAndAssetName(StatusType.PENDING, "stock"))
                 .thenReturn(Collections.singletonList(sellOrder));
-        when(orderConverter.toResource(sellOrder)).thenReturn(matchedSellOrderResponse);
+        when(orderConverter.toResource(argThat(order -> order != null && sellOrder.getOrderId().equals(order.getOrderId())))).thenReturn(matchedSellOrderResponse);
 
-        ResponseEntity<OrdersRestResponseListModel> response = orderService.matchOrders(buyOrder.getOrderId().toString());
+        ResponseEntity<OrdersRestResponseListModel> response = orderService.matchOrders(buyOrder);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals(1, response.getBody().getOrderRestResponseModels().size());
 
-        verify(assetDao, times(1)).increaseSizeofAsset(eq("custB"), eq(TRY_ASSET_NAME), eq(BigDecimal.valueOf(1000)));
-        verify(assetDao, times(1)).reduceSizeofAsset(eq("custB"), eq("STOCK"), eq(BigDecimal.valueOf(10)));
-        verify(assetDao, times(1)).increaseSizeofAsset(eq("custA"), eq("STOCK"), eq(BigDecimal.valueOf(10)));
-        verify(assetDao, times(1)).reduceSizeofAsset(eq("custA"), eq(TRY_ASSET_NAME), eq(BigDecimal.valueOf(1000)));
+        Settlement settlement = captureSettlement();
+        assertEquals(scaled(1000), settlement.getBalanceDelta("custB", TRY_ASSET_NAME).getSize());
+        assertEquals(scaled(-10), settlement.getBalanceDelta("custB", "STOCK").getSize());
+        assertEquals(scaled(10), settlement.getBalanceDelta("custA", "STOCK").getSize());
+        assertEquals(scaled(-1000), settlement.getBalanceDelta("custA", TRY_ASSET_NAME).getSize());
+
+        assertNull(settlement.getOrderUpdate(buyOrder.getOrderId()).getStatus()); // Buy order is not fully matched
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(settlement.getOrderUpdate(buyOrder.getOrderId()).getSize())); // Remaining size
+        assertEquals(StatusType.MATCHED, settlement.getOrderUpdate(sellOrder.getOrderId()).getStatus());
+    }
+
+    @Test
+    void matchOrders_shouldThrowConflict_whenMatchedOrderWasCanceledBeforeSettlement() {
+        OrderEntity sellOrder = pendingOrder("custB", "GOLD", SideType.SELL, 10, 100);
+        when(orderDao.getOrderByOrderIdAndStatus(orderId, StatusType.PENDING)).thenReturn(buyOrderEntity);
+        when(orderDao.getAllByStatusAndAssetName(StatusType.PENDING, "gold")).thenReturn(Collections.singletonList(sellOrder));
+        when(settlementDao.settle(any(Settlement.class))).thenReturn(false);
+
+        CustomException exception = assertThrows(CustomException.class, () -> orderService.matchOrders(buyOrderEntity));
 
-        verify(orderDao, never()).updateOrderStatusWithMatched(buyOrder.getOrderId()); // Buy order is not fully matched
-        verify(orderDao, times(1)).updateOrderStatusWithMatched(sellOrder.getOrderId());
-        verify(orderDao, times(1)).updateOrderSize(buyOrder.getOrderId(), BigDecimal.valueOf(5)); // Remaining size
+        assertEquals(ErrorMessageType.MATCH_CONFLICT, exception.getErrorMessageType());
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(eventPublisher, never()).publishEvent(any(OrderUpdatesEvent.class));
     }
 
 
     @Test
-    void matchOrders_shouldReturnNotFound_whenOrderToMatchDoesNotExistOrNotPending() {
-        when(orderDao.getOrderByOrderIdAndStatus("nonExistentOrder", StatusType.PENDING)).thenReturn(null);
+    void matchOrders_shouldReturnNotFound_whenOrderIsNoLongerPending() throws CustomException {
+        when(orderDao.getAllByStatusAndAssetName(StatusType.PENDING, "gold")).thenReturn(Collections.emptyList());
+        when(orderDao.getOrderByOrderIdAndStatus(orderId, StatusType.PENDING)).thenReturn(null);
 
-        ResponseEntity<OrdersRestResponseListModel> response = orderService.matchOrders("nonExistentOrder");
+        ResponseEntity<OrdersRestResponseListModel> response = orderService.matchOrders(buyOrderEntity);
 
         assertNotNull(response);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
-        verify(orderDao, never()).getAllByStatusAndAssetNameAndSide(any(), any(), any());
+        verify(settlementDao, never()).settle(any());
     }
 
     @Test
-    void matchOrders_shouldReturnEmptyList_whenNoCounterOrdersFound() {
+    void matchOrders_shouldReturnEmptyList_whenNoCounterOrdersFound() throws CustomException {
         when(orderDao.getOrderByOrderIdAndStatus(buyOrderEntity.getOrderId().toString(), StatusType.PENDING)).thenReturn(buyOrderEntity);
-        when(orderDao.getAllByStatusAndAssetNameAndSide(StatusType.PENDING, "GOLD", SideType.SELL))
+        when(orderDao.getAllByStatusAndAssetName(StatusType.PENDING, "gold"))
                 .thenReturn(Collections.emptyList());
 
-        ResponseEntity<OrdersRestResponseListModel> response = orderService.matchOrders(buyOrderEntity.getOrderId().toString());
+        ResponseEntity<OrdersRestResponseListModel> response = orderService.matchOrders(buyOrderEntity);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals(0, response.getBody().getOrderRestResponseModels().size());
-        verify(orderDao, never()).updateOrderStatusWithMatched(any());
-        verify(orderDao, never()).updateOrderSize(any(), any());
+        verify(settlementDao, never()).settle(any());
     }
 
     @Test
-    void matchOrders_shouldStopMatching_whenPriceNoLongerMatches() {
+    void matchOrders_shouldStopMatching_whenPriceNoLongerMatches() throws CustomException {
         OrderEntity buyOrder = new OrderEntity();
         buyOrder.setOrderId(UUID.randomUUID());
         buyOrder.setCustomerId("custA");
@@ -399,7 +666,7 @@ class OrderServiceTest {
         sellOrder2.setCreateDate(ZonedDateTime.now().minusMinutes(7));
 
         when(orderDao.getOrderByOrderIdAndStatus(buyOrder.getOrderId().toString(), StatusType.PENDING)).thenReturn(buyOrder);
-        when(orderDao.getAllByStatusAndAssetNameAndSide(StatusType.PENDING, "STOCK", SideType.SELL))
+        when(orderDao.getAllByStatusAndAssetName(StatusType.PENDING, "stock"))
                 .thenReturn(Arrays.asList(sellOrder1, sellOrder2));
 
         when(orderConverter.toResource(any(OrderEntity.class))).thenAnswer(invocation -> {
@@ -410,17 +677,144 @@ class OrderServiceTest {
             return res;
         });
 
-        ResponseEntity<OrdersRestResponseListModel> response = orderService.matchOrders(buyOrder.getOrderId().toString());
+        ResponseEntity<OrdersRestResponseListModel> response = orderService.matchOrders(buyOrder);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals(1, response.getBody().getOrderRestResponseModels().size());
 
-        verify(orderDao, times(1)).updateOrderStatusWithMatched(sellOrder1.getOrderId());
-        verify(orderDao, never()).updateOrderStatusWithMatched(sellOrder2.getOrderId());
+        Settlement settlement = captureSettlement();
+        assertEquals(StatusType.MATCHED, settlement.getOrderUpdate(sellOrder1.getOrderId()).getStatus());
+        assertNull(settlement.getOrderUpdate(sellOrder2.getOrderId()));
+
+        assertNull(settlement.getOrderUpdate(buyOrder.getOrderId()).getStatus());
+        assertEquals(0, BigDecimal.valueOf(15).compareTo(settlement.getOrderUpdate(buyOrder.getOrderId()).getSize()));
+    }
+
+    @Test
+    void cancelOrder_shouldCancelWithRestingSize_whenJournalIsEnabledAndOrderIsPartlyFilled(@TempDir Path directory) throws Exception {
+        useJournal(enabledJournal(directory));
+        OrderEntity counterOrder = pendingOrder("custB", "GOLD", SideType.SELL, 4, 100);
+        when(orderDao.getAllByStatusAndAssetName(StatusType.PENDING, "gold")).thenReturn(List.of(buyOrderEntity, counterOrder));
+        when(orderDao.getPendingOrderForUpdate(orderId, customerId)).thenReturn(buyOrderEntity);
+        when(orderDao.cancelOrderAndIncreaseUsableSizeofAsset(eq(buyOrderEntity), any(BigDecimal.class), eq(TRY_ASSET_NAME), any(BigDecimal.class))).thenReturn(true);
+        when(orderConverter.toResource(any(OrderEntity.class))).thenAnswer(invocation -> new OrderRestResponseModel());
+        orderService.matchOrders(counterOrder);
+
+        orderService.cancelOrder(orderId, customerId);
+
+        // The read order still has its size of 10, and the journal only resizes the row while it is PENDING
+        verify(orderDao).cancelOrderAndIncreaseUsableSizeofAsset(buyOrderEntity, new BigDecimal("6.00"), TRY_ASSET_NAME, new BigDecimal("600.00"));
+    }
+
+    @Test
+    void cancelOrder_shouldNotCancel_whenJournalIsEnabledAndOrderIsNoLongerResting(@TempDir Path directory) throws Exception {
+        useJournal(enabledJournal(directory));
+        when(orderDao.getAllByStatusAndAssetName(StatusType.PENDING, "gold")).thenReturn(Collections.emptyList());
+        when(orderDao.getPendingOrderForUpdate(orderId, customerId)).thenReturn(buyOrderEntity);
+
+        ResponseEntity<Object> response = orderService.cancelOrder(orderId, customerId);
+
+        // The table still shows the order PENDING, but it was filled by a settlement not projected yet
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(orderDao, never()).cancelOrderAndIncreaseUsableSizeofAsset(any(), any(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any(OrderUpdatesEvent.class));
+    }
+
+    @Test
+    void cancelOrders_shouldCancelRestingOrdersWithTheirRestingSizes_whenJournalIsEnabled(@TempDir Path directory) throws Exception {
+        useJournal(enabledJournal(directory));
+        OrderEntity counterOrder = pendingOrder("custB", "GOLD", SideType.SELL, 4, 100);
+        OrderEntity filledOrder = pendingOrder(customerId, "GOLD", SideType.SELL, 3, 200);
+        when(orderDao.getAllByStatusAndAssetName(StatusType.PENDING, "gold")).thenReturn(List.of(buyOrderEntity, counterOrder));
+        when(orderDao.getPendingOrdersForUpdate(customerId, null, null)).thenReturn(List.of(buyOrderEntity, filledOrder));
+        when(orderConverter.toResource(any(OrderEntity.class))).thenAnswer(invocation -> new OrderRestResponseModel());
+        orderService.matchOrders(counterOrder);
+
+        ResponseEntity<OrdersCancelRestResponseModel> response = orderService.cancelOrders(customerId, null, null);
+
+        assertEquals(1, response.getBody().getCanceledCount());
+        ArgumentCaptor<List<OrderEntity>> canceled = ArgumentCaptor.forClass(List.class);
+        verify(orderDao).cancelOrdersAndIncreaseUsableSizes(eq(customerId), canceled.capture(), eq(Map.of("try", new BigDecimal("600.00"))));
+        assertEquals(List.of(buyOrderEntity.getOrderId()), canceled.getValue().stream().map(OrderEntity::getOrderId).toList());
+        assertEquals(new BigDecimal("6.00"), canceled.getValue().get(0).getSize());
+    }
+
+    @Test
+    void matchOrders_shouldReturnNotFound_whenJournalIsEnabledAndOrderIsNotResting(@TempDir Path directory) throws Exception {
+        useJournal(enabledJournal(directory));
+        when(orderDao.getAllByStatusAndAssetName(StatusType.PENDING, "gold")).thenReturn(Collections.emptyList());
+
+        ResponseEntity<OrdersRestResponseListModel> response = orderService.matchOrders(buyOrderEntity);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        // The table lags behind the book, so it is not asked whether the order is still PENDING
+        verify(orderDao, never()).getOrderByOrderIdAndStatus(any(), any());
+        verify(settlementDao, never()).settle(anyLong(), any());
+    }
+
+    @Test
+    void matchOrders_shouldLoadBookOnlyOnceJournalIsProjected_whenJournalIsEnabled(@TempDir Path directory) throws Exception {
+        useJournal(enabledJournal(directory));
+        AtomicBoolean projected = new AtomicBoolean();
+        doAnswer(invocation -> {
+            Thread.sleep(200);
+            projected.set(true);
+            return null;
+        }).when(settlementDao).settle(anyLong(), any(Settlement.class));
+        OrderEntity counterOrder = pendingOrder("custB", "GOLD", SideType.SELL, 4, 100);
+        OrderEntity silverOrder = pendingOrder(customerId, "SILVER", SideType.BUY, 1, 10);
+        when(orderDao.getAllByStatusAndAssetName(StatusType.PENDING, "gold")).thenReturn(List.of(buyOrderEntity, counterOrder));
+        AtomicBoolean projectedBeforeLoad = new AtomicBoolean();
+        when(orderDao.getAllByStatusAndAssetName(StatusType.PENDING, "silver")).thenAnswer(invocation -> {
+            projectedBeforeLoad.set(projected.get());
+            return List.of(silverOrder);
+        });
+        orderService.matchOrders(counterOrder);
+
+        ResponseEntity<OrdersRestResponseListModel> response = orderService.matchOrders(silverOrder);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(projectedBeforeLoad.get());
+    }
+
+    /**
+     * Replaces the service under test with one settling through the given journal.
+     */
+    private void useJournal(SettlementJournal journal) {
+        settlementJournal = journal;
+        orderService = new OrderService(orderDao, assetDao, settlementJournal, orderConverter, assetValidator,
+                new OrderBookRegistry(orderDao, settlementJournal, new OrderBookSnapshots(orderDao, fixedPoint, false, "snapshot", 1000, 1000, meterRegistry),
+                        matchingScheduler, fixedPoint, meterRegistry),
+                eventPublisher, fixedPoint, new CustomerLocks(16, 1000, new SimpleMeterRegistry()), new OrderMetrics(meterRegistry), customerVersions);
+    }
+
+    private SettlementJournal enabledJournal(Path directory) throws IOException {
+        SettlementJournal journal = new SettlementJournal(settlementDao, true, directory.toString(), 1, 1000, meterRegistry);
+        journal.recover();
+        return journal;
+    }
+
+    private OrderEntity pendingOrder(String customerId, String assetName, SideType orderSide, long size, long price) {
+        OrderEntity order = new OrderEntity();
+        order.setOrderId(UUID.randomUUID());
+        order.setCustomerId(customerId);
+        order.setAssetName(assetName);
+        order.setOrderSide(orderSide);
+        order.setSize(BigDecimal.valueOf(size));
+        order.setPrice(BigDecimal.valueOf(price));
+        order.setStatus(StatusType.PENDING);
+        return order;
+    }
+
+    private long scaled(long value) {
+        return fixedPoint.fromDecimal(BigDecimal.valueOf(value));
+    }
 
-        verify(orderDao, never()).updateOrderStatusWithMatched(buyOrder.getOrderId());
-        verify(orderDao, times(1)).updateOrderSize(buyOrder.getOrderId(), BigDecimal.valueOf(15));
+    private Settlement captureSettlement() {
+        ArgumentCaptor<Settlement> settlementCaptor = ArgumentCaptor.forClass(Settlement.class);
+        verify(settlementDao, times(1)).settle(settlementCaptor.capture());
+        return settlementCaptor.getValue();
     }
 }
\ No newline at end of file
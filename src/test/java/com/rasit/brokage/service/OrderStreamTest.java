@@ -0,0 +1,89 @@
+package com.rasit.brokage.service;
+
+import com.rasit.brokage.rest.resource.asset.BalanceDeltaRestResponseModel;
+import com.rasit.brokage.rest.resource.order.OrderRestResponseModel;
+import com.rasit.brokage.service.event.OrderUpdatesEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStreamTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void onOrderUpdates_shouldScheduleOneDrainPerSubscriber_whenSeveralEventsArrive() {
+        OrderStream orderStream = orderStream(OrderStream.OverflowPolicy.DISCONNECT);
+        orderStream.subscribe("alice");
+
+        orderStream.onOrderUpdates(updates("alice", 2));
+        orderStream.onOrderUpdates(updates("alice", 1));
+
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    void onOrderUpdates_shouldNotBufferEvents_whenTheyBelongToAnotherCustomer() {
+        OrderStream orderStream = orderStream(OrderStream.OverflowPolicy.DISCONNECT);
+        orderStream.subscribe("alice");
+
+        orderStream.onOrderUpdates(updates("bob", 5));
+
+        assertTrue(tasks.isEmpty());
+        assertEquals(1, orderStream.getSubscriberCount());
+    }
+
+    @Test
+    void onOrderUpdates_shouldDropEventsAndKeepSubscriber_whenBufferIsFullAndPolicyIsDrop() {
+        OrderStream orderStream = orderStream(OrderStream.OverflowPolicy.DROP);
+        orderStream.subscribe("alice");
+
+        orderStream.onOrderUpdates(updates("alice", 5));
+
+        assertEquals(1, orderStream.getSubscriberCount());
+        assertEquals(3, meterRegistry.get("brokage.stream.dropped").counter().count());
+        assertEquals(0, meterRegistry.get("brokage.stream.disconnected").counter().count());
+    }
+
+    @Test
+    void onOrderUpdates_shouldDisconnectSubscriber_whenBufferIsFullAndPolicyIsDisconnect() {
+        OrderStream orderStream = orderStream(OrderStream.OverflowPolicy.DISCONNECT);
+        orderStream.subscribe("alice");
+        orderStream.subscribe("bob");
+
+        orderStream.onOrderUpdates(updates("alice", 5));
+        orderStream.onOrderUpdates(updates("alice", 1));
+
+        assertEquals(1, orderStream.getSubscriberCount());
+        assertEquals(1, meterRegistry.get("brokage.stream.disconnected").counter().count());
+        assertEquals(0, meterRegistry.get("brokage.stream.dropped").counter().count());
+        assertEquals(1, meterRegistry.get("brokage.stream.subscribers").gauge().value());
+    }
+
+    private OrderStream orderStream(OrderStream.OverflowPolicy overflowPolicy) {
+        return new OrderStream(3, overflowPolicy, 60000, tasks::add, meterRegistry);
+    }
+
+    private static OrderUpdatesEvent updates(String customerId, int orderCount) {
+        List<OrderRestResponseModel> orders = new ArrayList<>();
+        for (int i = 0; i < orderCount; i++) {
+            OrderRestResponseModel order = new OrderRestResponseModel();
+            order.setCustomerId(customerId);
+            order.setStatus("PENDING");
+            orders.add(order);
+        }
+        return new OrderUpdatesEvent(orders, List.of(new BalanceDeltaRestResponseModel(customerId, "TRY", BigDecimal.ZERO, BigDecimal.TEN.negate())));
+    }
+}
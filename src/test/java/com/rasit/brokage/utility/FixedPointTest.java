@@ -0,0 +1,41 @@
+package com.rasit.brokage.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointTest {
+
+    private final FixedPoint fixedPoint = new FixedPoint(2);
+
+    @Test
+    void fromDecimal_shouldConvertExactly() {
+        assertEquals(15075L, fixedPoint.fromDecimal(new BigDecimal("150.75")));
+        assertEquals(1000L, fixedPoint.fromDecimal(new BigDecimal("10.000")));
+        assertEquals(0, new BigDecimal("150.75").compareTo(fixedPoint.toDecimal(15075L)));
+    }
+
+    @Test
+    void fromDecimal_shouldThrow_whenValueHasMoreDecimalsThanScale() {
+        assertThrows(ArithmeticException.class, () -> fixedPoint.fromDecimal(new BigDecimal("1.005")));
+    }
+
+    @Test
+    void fromDecimal_shouldThrow_whenValueDoesNotFitIntoLong() {
+        assertThrows(ArithmeticException.class, () -> fixedPoint.fromDecimal(new BigDecimal("1e20")));
+    }
+
+    @Test
+    void multiply_shouldRoundHalfUpToScale() {
+        assertEquals(151L, fixedPoint.multiply(fixedPoint.fromDecimal(new BigDecimal("0.50")), fixedPoint.fromDecimal(new BigDecimal("3.01")))); // 1.505
+        assertEquals(-151L, fixedPoint.multiply(-50L, 301L));
+        assertEquals(150L, fixedPoint.multiply(50L, 300L));
+    }
+
+    @Test
+    void multiply_shouldThrow_onOverflow() {
+        assertThrows(ArithmeticException.class, () -> fixedPoint.multiply(Long.MAX_VALUE / 10, 1000L));
+    }
+}